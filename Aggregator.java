@@ -0,0 +1,78 @@
+/**
+ * This is a summary of a range of elements that a BST can keep for every subtree, so that
+ * BST.aggregate can reduce any range of the tree in O(H) instead of visiting every element
+ * in it. The summaries must form a monoid: combine must be associative, and identity must
+ * leave any summary unchanged when combined with it on either side. combine does not have
+ * to be commutative, since summaries are always combined in ascending order.
+ *
+ * For example, Aggregator.of(0L, e -> (long) e.weight(), Long::sum) keeps range sums, and
+ * an aggregator lifting each interval to its end and combining with Math::max answers
+ * whether any interval starting in a range reaches past a given point.
+ *
+ * @param <E> Type of the elements
+ * @param <A> Type of the summaries
+ */
+
+package project4;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+public interface Aggregator<E, A> {
+	
+	/**
+	 * Returns the summary of an empty range.
+	 *
+	 * @return the identity summary
+	 */
+	A identity();
+	
+	/**
+	 * Returns the summary of a range holding only the given element.
+	 *
+	 * @param e Element to summarize, never null
+	 * @return the summary of the element
+	 */
+	A lift(E e);
+	
+	/**
+	 * Returns the summary of two adjacent ranges, every element of the first being less
+	 * than every element of the second. Neither summary may be changed, since they are
+	 * kept in the tree.
+	 *
+	 * @param left Summary of the lower range
+	 * @param right Summary of the higher range
+	 * @return the summary of both ranges together
+	 */
+	A combine(A left, A right);
+	
+	/**
+	 * Returns an aggregator made of the given identity and functions.
+	 *
+	 * @param <E> Type of the elements
+	 * @param <A> Type of the summaries
+	 * @param identity Summary of an empty range
+	 * @param lift Function that summarizes a single element
+	 * @param combine Function that combines the summaries of two adjacent ranges
+	 * @return the aggregator
+	 * @throws NullPointerException if either function is null
+	 */
+	static <E, A> Aggregator<E, A> of(A identity, Function<? super E, ? extends A> lift, BinaryOperator<A> combine) throws NullPointerException {
+		if(lift == null || combine == null) //null check
+			throw new NullPointerException("Given functions cannot be null");
+		
+		return new Aggregator<E, A>() {
+			public A identity() {
+				return identity;
+			}
+			
+			public A lift(E e) {
+				return lift.apply(e);
+			}
+			
+			public A combine(A left, A right) {
+				return combine.apply(left, right);
+			}
+		};
+	}
+}
\ No newline at end of file
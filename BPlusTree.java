@@ -0,0 +1,934 @@
+/**
+ * This is an implementation of a B+ tree: a sorted set whose nodes hold many keys each,
+ * kept in a sorted array and searched with a binary search. Only the leaves hold elements,
+ * and they are linked to each other in ascending order; inner nodes hold up to order
+ * children, a separator key between each pair of them, and the number of elements under
+ * each child, which is what get(int) and rank use to find positions. Every leaf is at the
+ * same depth, so a lookup follows about log(n) / log(order / 2) references instead of the
+ * log2(n) of a binary tree, and each node it visits is one contiguous array.
+ *
+ * It offers the same set operations as BST. Elements must implement the Comparable interface
+ * and cannot be null.
+ *
+ * @param <E> Type of the elements
+ */
+
+package project4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+public class BPlusTree<E extends Comparable<E>> implements Iterable<E> {
+	
+	private static final int DEFAULT_ORDER = 64;
+	private static final int MIN_ORDER = 4; //smallest order where every node keeps at least two entries
+	
+	private final int order; //most keys a leaf can hold, and most children an inner node can have
+	private final int minFill; //fewest keys or children any node other than the root can have
+	private Node root; //reference to root node of the tree, an empty leaf when the tree is empty
+	private Leaf head; //first leaf, which holds the lowest elements
+	private Leaf tail; //last leaf, which holds the highest elements
+	private int levels = 1; //number of levels of nodes, including the leaves
+	private int size = 0; //keeps track of the amount of elements in the tree
+	private int modCount = 0; //number of structural changes, so iterators can detect concurrent modification
+	
+	//handed from a node that split during an insertion to its parent: the new right sibling,
+	//the lowest key under it and the number of elements under it
+	private Node splitNode;
+	private Object splitKey;
+	private int splitSize;
+	
+	
+	/**
+	 * Constructs a new, empty tree with the default order of 64, sorted according to the
+	 * natural ordering of its elements.
+	 */
+	public BPlusTree() {
+		this(DEFAULT_ORDER);
+	}
+	
+	/**
+	 * Constructs a new, empty tree with the given order, sorted according to the natural
+	 * ordering of its elements. The order is the most keys a leaf can hold and the most
+	 * children an inner node can have; every node other than the root is kept at least half
+	 * full. Larger orders make the tree shallower, at the cost of moving more keys around on
+	 * every insertion and removal.
+	 *
+	 * @param order Most keys or children a node can have
+	 * @throws IllegalArgumentException if order is less than 4
+	 */
+	public BPlusTree(int order) throws IllegalArgumentException {
+		if(order < MIN_ORDER)
+			throw new IllegalArgumentException("Order cannot be less than " + MIN_ORDER);
+		this.order = order;
+		this.minFill = order / 2;
+		root = head = tail = new Leaf(order);
+	}
+	
+	/**
+	 * Constructs a new tree with the default order containing the elements in the specified
+	 * collection, sorted according to the natural ordering of its elements. Duplicate elements
+	 * are only added once.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @throws NullPointerException if the given collection is null or contains null elements
+	 */
+	public BPlusTree(Collection<? extends E> collection) throws NullPointerException {
+		this(DEFAULT_ORDER);
+		if(collection == null) //null check
+			throw new NullPointerException("Given collection cannot be null");
+		addAll(collection);
+	}
+	
+	/**
+	 * Adds the specified element to this tree if it is not already present.
+	 * If this tree already contains the element, the call leaves the tree unchanged
+	 * and returns false. This operation is O(order * log n).
+	 *
+	 * @param e element to be added to this tree
+	 * @return true if this tree did not already contain the specified element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean add(E e) throws NullPointerException {
+		if(e == null)
+			throw new NullPointerException("Cannot input null element");
+		
+		if(!insert(root, e))
+			return false;
+		size++;
+		modCount++;
+		if(splitNode != null) { //the root split, so the tree grows a level
+			Inner newRoot = new Inner(order);
+			newRoot.children[0] = root;
+			newRoot.children[1] = splitNode;
+			newRoot.sizes[0] = size - splitSize;
+			newRoot.sizes[1] = splitSize;
+			newRoot.keys[0] = splitKey;
+			newRoot.count = 2;
+			root = newRoot;
+			levels++;
+			splitNode = null;
+			splitKey = null;
+		}
+		return true;
+	}
+	//recursive, adds e under the given node and returns true if it wasn't already there. If the
+	//node overflowed and split, the new right sibling is left in splitNode for the parent to link
+	private boolean insert(Node node, E e) {
+		if(node instanceof Leaf) { //base case: put the element in its place in the leaf
+			Leaf leaf = (Leaf) node;
+			int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, e);
+			if(pos >= 0) //the element is a duplicate
+				return false;
+			pos = -pos - 1;
+			System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, leaf.count - pos);
+			leaf.keys[pos] = e;
+			leaf.count++;
+			if(leaf.count > order)
+				splitLeaf(leaf);
+			return true;
+		}
+		
+		Inner inner = (Inner) node;
+		int i = childIndex(inner, e);
+		if(!insert(inner.children[i], e))
+			return false;
+		inner.sizes[i]++;
+		if(splitNode != null) { //the child split, so its new sibling goes right after it
+			int moved = inner.count - i - 1; //children after the one that split
+			System.arraycopy(inner.children, i + 1, inner.children, i + 2, moved);
+			System.arraycopy(inner.sizes, i + 1, inner.sizes, i + 2, moved);
+			System.arraycopy(inner.keys, i, inner.keys, i + 1, moved);
+			inner.children[i + 1] = splitNode;
+			inner.sizes[i + 1] = splitSize;
+			inner.sizes[i] -= splitSize;
+			inner.keys[i] = splitKey;
+			inner.count++;
+			splitNode = null;
+			if(inner.count > order)
+				splitInner(inner);
+		}
+		return true;
+	}
+	
+	/**
+	 * Private method that moves the upper half of the keys of an overflowing leaf into a new
+	 * leaf linked in after it, and hands the new leaf to the parent through splitNode
+	 *
+	 * @param leaf Leaf to split
+	 */
+	private void splitLeaf(Leaf leaf) {
+		Leaf right = new Leaf(order);
+		int keep = leaf.count / 2;
+		right.count = leaf.count - keep;
+		System.arraycopy(leaf.keys, keep, right.keys, 0, right.count);
+		Arrays.fill(leaf.keys, keep, leaf.count, null); //let go of the moved keys
+		leaf.count = keep;
+		
+		right.prev = leaf;
+		right.next = leaf.next;
+		if(leaf.next != null)
+			leaf.next.prev = right;
+		else
+			tail = right;
+		leaf.next = right;
+		
+		splitNode = right;
+		splitKey = right.keys[0];
+		splitSize = right.count;
+	}
+	
+	/**
+	 * Private method that moves the upper half of the children of an overflowing inner node
+	 * into a new inner node, and hands it to the parent through splitNode along with the
+	 * separator key between the two halves
+	 *
+	 * @param inner Inner node to split
+	 */
+	private void splitInner(Inner inner) {
+		Inner right = new Inner(order);
+		int keep = inner.count / 2;
+		right.count = inner.count - keep;
+		System.arraycopy(inner.children, keep, right.children, 0, right.count);
+		System.arraycopy(inner.sizes, keep, right.sizes, 0, right.count);
+		System.arraycopy(inner.keys, keep, right.keys, 0, right.count - 1);
+		splitKey = inner.keys[keep - 1]; //separated the halves, now separates the two nodes
+		Arrays.fill(inner.children, keep, inner.count, null);
+		Arrays.fill(inner.keys, keep - 1, inner.count - 1, null);
+		inner.count = keep;
+		
+		splitNode = right;
+		splitSize = 0;
+		for(int i = 0; i < right.count; i++) {
+			splitSize += right.sizes[i];
+		}
+	}
+	
+	/**
+	 * Adds all of the elements in the specified collection to this tree.
+	 *
+	 * @param collection to be added
+	 * @return true if this tree changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null or
+	 * 		if any element of the collection is null
+	 */
+	public boolean addAll(Collection<? extends E> collection) throws NullPointerException {
+		boolean changed = false;
+		for(E item : collection) {
+			changed |= add(item);
+		}
+		return changed;
+	}
+	
+	/**
+	 * Removes the specified element from this tree if it is present. Returns true if this
+	 * tree contained the element. This operation is O(order * log n).
+	 *
+	 * @param o Object to be removed
+	 * @return true if item is removed
+	 * @throws ClassCastException if the specified object cannot be compared with the
+	 * 		elements currently in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o) throws ClassCastException, NullPointerException {
+		if(o == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		if(!delete(root, (E) o))
+			return false;
+		size--;
+		modCount++;
+		if(root instanceof Inner && root.count == 1) { //the root is down to one child, so the tree loses a level
+			root = ((Inner) root).children[0];
+			levels--;
+		}
+		return true;
+	}
+	//recursive, removes e from under the given node and returns true if it was there. The node
+	//may be left with fewer than minFill entries, for its parent to fix
+	private boolean delete(Node node, E e) {
+		if(node instanceof Leaf) { //base case: take the element out of the leaf
+			Leaf leaf = (Leaf) node;
+			int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, e);
+			if(pos < 0) //the element isn't in the tree
+				return false;
+			System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.count - pos - 1);
+			leaf.keys[--leaf.count] = null;
+			return true;
+		}
+		
+		Inner inner = (Inner) node;
+		int i = childIndex(inner, e);
+		if(!delete(inner.children[i], e))
+			return false;
+		inner.sizes[i]--;
+		if(inner.children[i].count < minFill)
+			rebalance(inner, i);
+		return true;
+	}
+	
+	/**
+	 * Private method that fixes a child that has fewer than minFill entries, by moving an
+	 * entry over from a sibling that can spare one, or otherwise merging it with a sibling
+	 *
+	 * @param parent Parent of the child
+	 * @param i Index of the child in its parent
+	 */
+	private void rebalance(Inner parent, int i) {
+		if(i > 0 && parent.children[i - 1].count > minFill) {
+			borrowFromLeft(parent, i);
+		} else if(i < parent.count - 1 && parent.children[i + 1].count > minFill) {
+			borrowFromRight(parent, i);
+		} else if(i > 0) {
+			merge(parent, i - 1);
+		} else {
+			merge(parent, i);
+		}
+	}
+	
+	/**
+	 * Private method that moves the last entry of a child's left sibling to the front of
+	 * the child
+	 *
+	 * @param parent Parent of the child
+	 * @param i Index of the child in its parent
+	 */
+	private void borrowFromLeft(Inner parent, int i) {
+		Node child = parent.children[i];
+		Node left = parent.children[i - 1];
+		int moved; //number of elements moved over
+		if(child instanceof Leaf) {
+			System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+			child.keys[0] = left.keys[left.count - 1];
+			left.keys[left.count - 1] = null;
+			parent.keys[i - 1] = child.keys[0];
+			moved = 1;
+		} else {
+			Inner to = (Inner) child;
+			Inner from = (Inner) left;
+			//the parent's separator comes down in front of the child's keys, and the
+			//separator of the moved child goes up in its place
+			System.arraycopy(to.children, 0, to.children, 1, to.count);
+			System.arraycopy(to.sizes, 0, to.sizes, 1, to.count);
+			System.arraycopy(to.keys, 0, to.keys, 1, to.count - 1);
+			to.children[0] = from.children[from.count - 1];
+			to.sizes[0] = moved = from.sizes[from.count - 1];
+			to.keys[0] = parent.keys[i - 1];
+			parent.keys[i - 1] = from.keys[from.count - 2];
+			from.children[from.count - 1] = null;
+			from.keys[from.count - 2] = null;
+		}
+		child.count++;
+		left.count--;
+		parent.sizes[i] += moved;
+		parent.sizes[i - 1] -= moved;
+	}
+	
+	/**
+	 * Private method that moves the first entry of a child's right sibling to the end of
+	 * the child
+	 *
+	 * @param parent Parent of the child
+	 * @param i Index of the child in its parent
+	 */
+	private void borrowFromRight(Inner parent, int i) {
+		Node child = parent.children[i];
+		Node right = parent.children[i + 1];
+		int moved; //number of elements moved over
+		if(child instanceof Leaf) {
+			child.keys[child.count] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+			right.keys[right.count - 1] = null;
+			parent.keys[i] = right.keys[0];
+			moved = 1;
+		} else {
+			Inner to = (Inner) child;
+			Inner from = (Inner) right;
+			to.children[to.count] = from.children[0];
+			to.sizes[to.count] = moved = from.sizes[0];
+			to.keys[to.count - 1] = parent.keys[i];
+			parent.keys[i] = from.keys[0];
+			System.arraycopy(from.children, 1, from.children, 0, from.count - 1);
+			System.arraycopy(from.sizes, 1, from.sizes, 0, from.count - 1);
+			System.arraycopy(from.keys, 1, from.keys, 0, from.count - 2);
+			from.children[from.count - 1] = null;
+			from.keys[from.count - 2] = null;
+		}
+		child.count++;
+		right.count--;
+		parent.sizes[i] += moved;
+		parent.sizes[i + 1] -= moved;
+	}
+	
+	/**
+	 * Private method that moves every entry of a child's right sibling into the child,
+	 * and removes the sibling from the parent
+	 *
+	 * @param parent Parent of the child
+	 * @param i Index of the child in its parent
+	 */
+	private void merge(Inner parent, int i) {
+		Node child = parent.children[i];
+		Node right = parent.children[i + 1];
+		if(child instanceof Leaf) {
+			System.arraycopy(right.keys, 0, child.keys, child.count, right.count);
+			Leaf leaf = (Leaf) child;
+			leaf.next = ((Leaf) right).next;
+			if(leaf.next != null)
+				leaf.next.prev = leaf;
+			else
+				tail = leaf;
+		} else {
+			Inner to = (Inner) child;
+			Inner from = (Inner) right;
+			to.keys[to.count - 1] = parent.keys[i]; //the parent's separator comes down between them
+			System.arraycopy(from.keys, 0, to.keys, to.count, from.count - 1);
+			System.arraycopy(from.children, 0, to.children, to.count, from.count);
+			System.arraycopy(from.sizes, 0, to.sizes, to.count, from.count);
+		}
+		child.count += right.count;
+		
+		parent.sizes[i] += parent.sizes[i + 1];
+		int moved = parent.count - i - 2; //children after the removed one
+		System.arraycopy(parent.children, i + 2, parent.children, i + 1, moved);
+		System.arraycopy(parent.sizes, i + 2, parent.sizes, i + 1, moved);
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, moved);
+		parent.count--;
+		parent.children[parent.count] = null;
+		parent.keys[parent.count - 1] = null;
+	}
+	
+	/**
+	 * Removes the element at the specified position in this tree and returns it.
+	 *
+	 * @param index Index of the element to remove
+	 * @return the element that was removed
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public E removeAt(int index) throws IndexOutOfBoundsException {
+		E e = get(index);
+		remove(e);
+		return e;
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified element.
+	 *
+	 * @param o Object to look for
+	 * @return true if the tree already contains the object
+	 * @throws ClassCastException if the specified object cannot be compared
+	 * 		with the elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean contains(Object o) throws ClassCastException, NullPointerException {
+		if(o == null) //null check
+			throw new NullPointerException("Given item cannot be null");
+		
+		Leaf leaf = findLeaf(o);
+		return Arrays.binarySearch(leaf.keys, 0, leaf.count, o) >= 0;
+	}
+	
+	/**
+	 * Returns true if this tree contains all of the elements in the specified collection.
+	 *
+	 * @param c Collection to compare
+	 * @return true if this tree contains all of the elements in the specified collection
+	 * @throws NullPointerException if the specified collection is null or contains null elements
+	 */
+	public boolean containsAll(Collection<?> c) throws NullPointerException {
+		if(c == null) //null check
+			throw new NullPointerException("Given collection cannot be null");
+		
+		for(Object item : c) {
+			if(!contains(item))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Private method that returns the index of the child of the given inner node whose
+	 * subtree the given element belongs in
+	 *
+	 * @param inner Inner node to search
+	 * @param o Element to look for
+	 * @return Index of the child
+	 */
+	private static int childIndex(Inner inner, Object o) {
+		//keys[j] is at most every element under children[j + 1], so an equal key means go right
+		int pos = Arrays.binarySearch(inner.keys, 0, inner.count - 1, o);
+		return (pos >= 0) ? pos + 1 : -pos - 1;
+	}
+	
+	/**
+	 * Private method that returns the leaf the given element is in, or would be added to
+	 *
+	 * @param o Element to look for
+	 * @return Leaf for the element
+	 */
+	private Leaf findLeaf(Object o) {
+		Node node = root;
+		while(node instanceof Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[childIndex(inner, o)];
+		}
+		return (Leaf) node;
+	}
+	
+	/**
+	 * Removes all of the elements from this tree. The tree will be empty
+	 * after this call returns.
+	 */
+	public void clear() {
+		root = head = tail = new Leaf(order);
+		levels = 1;
+		size = 0;
+		modCount++;
+	}
+	
+	/**
+	 * Returns the element at the specified position in this tree. The indexing is zero based
+	 * (i.e., the smallest element in this tree is at index 0 and the largest one is at
+	 * index size()-1). This operation is O(order * log n), but only visits one node per level.
+	 *
+	 * @param index Index of the element to return
+	 * @return Element at given index
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= size) //range check
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		Node node = root;
+		while(node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int i = 0;
+			while(index >= inner.sizes[i]) { //skip the children that come entirely before the index
+				index -= inner.sizes[i];
+				i++;
+			}
+			node = inner.children[i];
+		}
+		return (E) node.keys[index];
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree if it is contained in the
+	 * tree; otherwise, (-(insertion point) - 1). The insertion point is the index the
+	 * element would have if it were added to the tree.
+	 *
+	 * @param e Element to look for
+	 * @return Index of the element, or (-(insertion point) - 1) if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int rank(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		int count = 0; //amount of elements known to be less than e
+		Node node = root;
+		while(node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int i = childIndex(inner, e);
+			for(int j = 0; j < i; j++) { //every child before the one we go down is less than e
+				count += inner.sizes[j];
+			}
+			node = inner.children[i];
+		}
+		int pos = Arrays.binarySearch(node.keys, 0, node.count, e);
+		return (pos >= 0) ? count + pos : pos - count;
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree, or -1 if this tree does
+	 * not contain the element.
+	 *
+	 * @param e Element to look for
+	 * @return Index of the element, or -1 if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int indexOf(E e) throws NullPointerException {
+		int rank = rank(e);
+		if(rank < 0)
+			return -1;
+		return rank;
+	}
+	
+	/**
+	 * Returns the number of elements in this tree that are strictly less than
+	 * the specified element.
+	 *
+	 * @param e Element to compare
+	 * @return Number of elements less than e
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int countLess(E e) throws NullPointerException {
+		int rank = rank(e);
+		return (rank >= 0) ? rank : -rank - 1;
+	}
+	
+	/**
+	 * Returns the first (lowest) element currently in this tree.
+	 *
+	 * @return the first (lowest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E first() throws NoSuchElementException {
+		if(isEmpty()) //empty check
+			throw new NoSuchElementException("Tree is empty");
+		return (E) head.keys[0];
+	}
+	
+	/**
+	 * Returns the last (highest) element currently in this tree.
+	 *
+	 * @return last (highest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E last() throws NoSuchElementException {
+		if(isEmpty()) //empty check
+			throw new NoSuchElementException("Tree is empty");
+		return (E) tail.keys[tail.count - 1];
+	}
+	
+	/**
+	 * Returns the greatest element in this tree strictly less than the
+	 * given element, or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the greatest element less than e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E lower(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		Leaf leaf = findLeaf(e);
+		int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, e);
+		return elementAt(leaf, (pos >= 0) ? pos - 1 : -pos - 2);
+	}
+	
+	/**
+	 * Returns the least element in this tree strictly greater than the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the least element greater than e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E higher(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		Leaf leaf = findLeaf(e);
+		int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, e);
+		return elementAt(leaf, (pos >= 0) ? pos + 1 : -pos - 1);
+	}
+	
+	/**
+	 * Returns the least element in this tree greater than or equal to the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the least element greater than or equal to e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E ceiling(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		Leaf leaf = findLeaf(e);
+		int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, e);
+		return elementAt(leaf, (pos >= 0) ? pos : -pos - 1);
+	}
+	
+	/**
+	 * Returns the greatest element in this tree less than or equal to the given
+	 * element, or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the greatest element less than or equal to e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E floor(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		Leaf leaf = findLeaf(e);
+		int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, e);
+		return elementAt(leaf, (pos >= 0) ? pos : -pos - 2);
+	}
+	
+	/**
+	 * Private method for the navigation queries that returns the element at the given
+	 * position of a leaf, where one past either end means the neighbouring leaf
+	 *
+	 * @param leaf Leaf the search ended in
+	 * @param pos Position in the leaf, from -1 to its count
+	 * @return Element at the position, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	private E elementAt(Leaf leaf, int pos) {
+		if(pos < 0) //the last element of the previous leaf
+			return (leaf.prev == null) ? null : (E) leaf.prev.keys[leaf.prev.count - 1];
+		if(pos == leaf.count) //the first element of the next leaf
+			return (leaf.next == null) ? null : (E) leaf.next.keys[0];
+		return (E) leaf.keys[pos];
+	}
+	
+	/**
+	 * Returns a list of the elements of this tree from fromElement, inclusive, to toElement,
+	 * inclusive, in ascending order. This operation is O(log n + M) where M is the number of
+	 * items returned, and reads the range straight off the linked leaves.
+	 *
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @return a list containing the elements in the range
+	 * @throws NullPointerException if either fromElement or toElement are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public ArrayList<E> getRange(E fromElement, E toElement) throws NullPointerException, IllegalArgumentException {
+		ArrayList<E> list = new ArrayList<E>();
+		forEachInRange(fromElement, toElement, list::add);
+		return list;
+	}
+	
+	/**
+	 * Passes every element of this tree from fromElement, inclusive, to toElement, inclusive,
+	 * to the given action in ascending order, without building an intermediate list.
+	 * This operation is O(log n + M) where M is the number of elements in the range.
+	 *
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param action Action to perform on each element in the range
+	 * @return the number of elements in the range
+	 * @throws NullPointerException if fromElement, toElement or action are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	@SuppressWarnings("unchecked")
+	public int forEachInRange(E fromElement, E toElement, Consumer<? super E> action) throws NullPointerException, IllegalArgumentException {
+		//null check
+		if(fromElement == null || toElement == null)
+			throw new NullPointerException("fromElement and toElement cannot be null");
+		if(action == null)
+			throw new NullPointerException("Given action cannot be null");
+		if(fromElement.compareTo(toElement) > 0)
+			throw new IllegalArgumentException("fromElement cannot be larger than toElement");
+		
+		Leaf leaf = findLeaf(fromElement);
+		int pos = Arrays.binarySearch(leaf.keys, 0, leaf.count, fromElement);
+		if(pos < 0)
+			pos = -pos - 1;
+		int count = 0;
+		while(leaf != null) {
+			for(; pos < leaf.count; pos++) {
+				E e = (E) leaf.keys[pos];
+				if(e.compareTo(toElement) > 0) //past the end of the range
+					return count;
+				action.accept(e);
+				count++;
+			}
+			leaf = leaf.next;
+			pos = 0;
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the number of elements in this tree.
+	 *
+	 * @return number of elements in this tree
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the height of this tree, which is the number of levels of nodes, including
+	 * the leaves. Every lookup visits exactly this many nodes.
+	 *
+	 * @return the height of this tree or zero if the tree is empty
+	 */
+	public int height() {
+		return (size == 0) ? 0 : levels;
+	}
+	
+	/**
+	 * Returns the order of this tree, which is the most keys a leaf can hold and the most
+	 * children an inner node can have.
+	 *
+	 * @return the order of this tree
+	 */
+	public int order() {
+		return order;
+	}
+	
+	/**
+	 * Returns true if this tree contains no elements.
+	 *
+	 * @return true if this tree contains no elements
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns an array containing all the elements in this tree in ascending order.
+	 *
+	 * @return an array, whose runtime component type is Object, containing all of the elements in this tree
+	 */
+	public Object[] toArray() {
+		Object[] arr = new Object[size];
+		int i = 0;
+		for(Leaf leaf = head; leaf != null; leaf = leaf.next) {
+			System.arraycopy(leaf.keys, 0, arr, i, leaf.count);
+			i += leaf.count;
+		}
+		return arr;
+	}
+	
+	/**
+	 * Returns a string of the elements in this tree in ascending order, enclosed in square
+	 * brackets and separated by a comma and a single space.
+	 *
+	 * @return String of the elements in this tree
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		boolean first = true; //an element may print as an empty string, so the length can't tell
+		for(Leaf leaf = head; leaf != null; leaf = leaf.next) {
+			for(int i = 0; i < leaf.count; i++) {
+				if(!first) //separate from the previous item
+					sb.append(", ");
+				sb.append(String.valueOf(leaf.keys[i]));
+				first = false;
+			}
+		}
+		return sb.append("]").toString();
+	}
+	
+	/**
+	 * Returns an iterator over the elements in this tree in ascending order, which walks
+	 * the linked leaves. The iterator supports remove(), and is fail-fast: if the tree is
+	 * changed in any way other than through the iterator's own remove(), the iterator
+	 * throws a ConcurrentModificationException.
+	 *
+	 * @return an iterator over the elements in this tree in ascending order
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new leafIterator();
+	}
+	
+	/**
+	 * Base class of the nodes of the tree
+	 */
+	private static abstract class Node {
+		Object[] keys; //sorted elements of a leaf, or separators between the children of an inner node
+		int count; //number of elements in a leaf, or of children of an inner node
+	}
+	
+	/**
+	 * Leaf node, which holds elements and is linked to its neighbours
+	 */
+	private static final class Leaf extends Node {
+		Leaf prev; //leaf with the next lower elements
+		Leaf next; //leaf with the next higher elements
+		
+		Leaf(int order) {
+			keys = new Object[order + 1]; //one more than fits, to overflow into before splitting
+		}
+	}
+	
+	/**
+	 * Inner node, in which keys[j] separates the elements under children[j], which are all
+	 * less than it, from those under children[j + 1], which are all greater or equal
+	 */
+	private static final class Inner extends Node {
+		Node[] children;
+		int[] sizes; //number of elements under each child
+		
+		Inner(int order) {
+			keys = new Object[order];
+			children = new Node[order + 1];
+			sizes = new int[order + 1];
+		}
+	}
+	
+	/**
+	 * Iterator over the linked leaves
+	 */
+	private class leafIterator implements Iterator<E> {
+		
+		Leaf leaf = head; //leaf of the next element
+		int pos = 0; //position of the next element in its leaf
+		int expectedModCount = modCount; //modCount of the tree when we last saw it
+		E lastReturned; //last returned element, or null if it can't be removed
+		
+		/**
+		 * Returns true if there are elements left
+		 *
+		 * @return true if there are elements left
+		 */
+		@Override
+		public boolean hasNext() {
+			//every leaf but an empty root has elements, so a next leaf means a next element
+			return pos < leaf.count || leaf.next != null;
+		}
+		
+		/**
+		 * Returns the next element in ascending order
+		 *
+		 * @return the next element
+		 * @throws NoSuchElementException if there are no elements left
+		 * @throws ConcurrentModificationException if the tree was changed by something other
+		 * 		than this iterator
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() throws NoSuchElementException, ConcurrentModificationException {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(pos == leaf.count) { //move on to the next leaf
+				if(leaf.next == null)
+					throw new NoSuchElementException("No elements left");
+				leaf = leaf.next;
+				pos = 0;
+			}
+			lastReturned = (E) leaf.keys[pos++];
+			return lastReturned;
+		}
+		
+		/**
+		 * Removes the last returned element from the tree
+		 *
+		 * @throws IllegalStateException if next hasn't been called since the last remove
+		 * @throws ConcurrentModificationException if the tree was changed by something other
+		 * 		than this iterator
+		 */
+		@Override
+		public void remove() throws IllegalStateException, ConcurrentModificationException {
+			if(lastReturned == null)
+				throw new IllegalStateException("next() has to be called before remove()");
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			
+			BPlusTree.this.remove(lastReturned);
+			expectedModCount = modCount;
+			//the removal may have moved elements between leaves, so find the next one again
+			leaf = findLeaf(lastReturned);
+			pos = -Arrays.binarySearch(leaf.keys, 0, leaf.count, lastReturned) - 1;
+			lastReturned = null;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+/**
+ * Measures BPlusTree of several orders against a balanced BST. For each of the given sizes,
+ * the trees are built from the same keys in random order, and every lookup is run with the
+ * same random probes.
+ *
+ * Before the timings, the benchmark prints how many nodes a contains visits on average in
+ * each tree. Each of those visits is a dependent load: the address of the next node isn't
+ * known until the current one has been read, so once the tree outgrows the CPU caches,
+ * every visit is a likely cache miss that the CPU can't overlap with the others. A balanced
+ * BST visits about log2(n) nodes, while a B+ tree visits exactly its height, one node per
+ * level, and binary searches a single array inside each. The timings show how much of that
+ * difference survives the extra comparisons within a node, and what it costs on insertion.
+ * Times are in nanoseconds per operation, or per element for the iterator.
+ *
+ * Usage: java project4.BPlusTreeBenchmark [sizes] [millisPerOperation]
+ * where sizes is a comma separated list, such as 1000,100000,10000000
+ */
+
+package project4;
+
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+
+public class BPlusTreeBenchmark {
+	
+	//orders of the B+ trees that are measured
+	private static final int[] ORDERS = {16, 64, 256};
+	
+	//length of the ranges passed to forEachInRange
+	private static final int RANGE = 100;
+	
+	private static final String[] OPERATIONS = {
+		"add", "contains", "remove+add", "get(int)", "floor", "ceiling", "rank", "forEachInRange(100)", "iterator"
+	};
+	
+	//position of the iterator in OPERATIONS, which visits every element
+	private static final int TRAVERSAL = 8;
+	
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args Optional comma separated tree sizes and length of each measurement in milliseconds
+	 */
+	public static void main(String[] args) {
+		String[] sizes = ((args.length > 0) ? args[0] : "1000,100000,1000000").split(",");
+		long millis = (args.length > 1) ? Long.parseLong(args[1]) : 200;
+		
+		for(String s : sizes) {
+			int size = Integer.parseInt(s.trim());
+			System.out.println();
+			System.out.println("size=" + size + ", random order, " + millis + " ms per operation");
+			run(size, millis);
+		}
+	}
+	
+	/**
+	 * Private method that builds the trees for one size, prints the nodes each visits per
+	 * lookup, and then measures and prints every operation
+	 *
+	 * @param size Number of elements in the trees
+	 * @param millis Length of each measurement in milliseconds
+	 */
+	private static void run(int size, long millis) {
+		//the trees hold the even numbers below 2 * size, and probes are drawn from all
+		//numbers below 2 * size, so about half of the lookups hit
+		Integer[] inserts = new Integer[size];
+		for(int i = 0; i < size; i++) {
+			inserts[i] = 2 * i;
+		}
+		Random random = new Random(7);
+		for(int i = size - 1; i > 0; i--) { //Fisher-Yates shuffle
+			int j = random.nextInt(i + 1);
+			Integer swap = inserts[i];
+			inserts[i] = inserts[j];
+			inserts[j] = swap;
+		}
+		random = new Random(42);
+		Integer[] probes = new Integer[1 << 16];
+		int[] indexes = new int[probes.length];
+		for(int i = 0; i < probes.length; i++) {
+			probes[i] = random.nextInt(2 * size);
+			indexes[i] = random.nextInt(size);
+		}
+		
+		BST<Integer> bst = new BST<Integer>(true);
+		for(Integer key : inserts) {
+			bst.add(key);
+		}
+		IntToLongFunction[][] targets = new IntToLongFunction[ORDERS.length + 1][];
+		targets[0] = bstOperations(bst, inserts, probes, indexes);
+		
+		//a BST lookup visits a different number of nodes depending on the probe, so count them
+		BSTMetrics metrics = bst.enableMetrics();
+		for(Integer probe : probes) {
+			bst.contains(probe);
+		}
+		BSTMetrics.Snapshot snapshot = metrics.snapshot();
+		bst.disableMetrics();
+		StringBuilder visits = new StringBuilder(String.format("nodes visited per contains: BST %.1f",
+				(double) snapshot.getNodesVisited(BSTMetrics.Operation.CONTAINS) / snapshot.getCount(BSTMetrics.Operation.CONTAINS)));
+		StringBuilder header = new StringBuilder(String.format("%-16s %14s", "operation", "BST ns"));
+		
+		for(int t = 0; t < ORDERS.length; t++) {
+			BPlusTree<Integer> tree = new BPlusTree<Integer>(ORDERS[t]);
+			for(Integer key : inserts) {
+				tree.add(key);
+			}
+			targets[t + 1] = bPlusTreeOperations(tree, inserts, probes, indexes);
+			//every B+ tree lookup visits one node per level
+			visits.append(", B+ ").append(ORDERS[t]).append(' ').append(tree.height());
+			header.append(String.format(" %14s", "B+ " + ORDERS[t] + " ns"));
+		}
+		System.out.println(visits);
+		System.out.println(header);
+		
+		for(int i = 0; i < OPERATIONS.length; i++) {
+			int perCall = (i == TRAVERSAL) ? size : 1;
+			StringBuilder line = new StringBuilder(String.format("%-16s", OPERATIONS[i]));
+			for(IntToLongFunction[] target : targets) {
+				double[] result = BSTBenchmark.measure(target[i], millis, perCall);
+				line.append(String.format(" %14.1f", result[0]));
+			}
+			System.out.println(line);
+		}
+	}
+	
+	/**
+	 * Private method that returns every operation on the given balanced BST, in the order of
+	 * OPERATIONS. Each operation takes the number of the call, which picks the probe to use,
+	 * and returns a value derived from its result.
+	 *
+	 * @param tree Tree holding the keys
+	 * @param inserts Keys in insertion order
+	 * @param probes Random keys to look up
+	 * @param indexes Random positions to look up
+	 * @return Array of operations
+	 */
+	private static IntToLongFunction[] bstOperations(BST<Integer> tree, Integer[] inserts, Integer[] probes, int[] indexes) {
+		int mask = probes.length - 1;
+		int size = inserts.length;
+		BSTBenchmark.Holder<BST<Integer>> fresh = new BSTBenchmark.Holder<BST<Integer>>();
+		
+		return new IntToLongFunction[] {
+			i -> { //add, building a new tree every size calls
+				if(i % size == 0)
+					fresh.value = new BST<Integer>(true);
+				return fresh.value.add(inserts[i % size]) ? 1 : 0;
+			},
+			i -> tree.contains(probes[i & mask]) ? 1 : 0,
+			i -> { //remove an element and put it back, so the tree stays the same size
+				Integer key = inserts[indexes[i & mask]];
+				return (tree.remove(key) ? 1 : 0) + (tree.add(key) ? 1 : 0);
+			},
+			i -> tree.get(indexes[i & mask]),
+			i -> BSTBenchmark.valueOf(tree.floor(probes[i & mask])),
+			i -> BSTBenchmark.valueOf(tree.ceiling(probes[i & mask])),
+			i -> tree.rank(probes[i & mask]),
+			i -> {
+				Integer from = probes[i & mask];
+				return tree.forEachInRange(from, from + 2 * RANGE, e -> { });
+			},
+			i -> BSTBenchmark.sum(tree.iterator())
+		};
+	}
+	
+	/**
+	 * Private method that returns every operation on the given B+ tree, in the order of
+	 * OPERATIONS
+	 *
+	 * @param tree Tree holding the keys
+	 * @param inserts Keys in insertion order
+	 * @param probes Random keys to look up
+	 * @param indexes Random positions to look up
+	 * @return Array of operations
+	 */
+	private static IntToLongFunction[] bPlusTreeOperations(BPlusTree<Integer> tree, Integer[] inserts, Integer[] probes, int[] indexes) {
+		int mask = probes.length - 1;
+		int size = inserts.length;
+		BSTBenchmark.Holder<BPlusTree<Integer>> fresh = new BSTBenchmark.Holder<BPlusTree<Integer>>();
+		
+		return new IntToLongFunction[] {
+			i -> {
+				if(i % size == 0)
+					fresh.value = new BPlusTree<Integer>(tree.order());
+				return fresh.value.add(inserts[i % size]) ? 1 : 0;
+			},
+			i -> tree.contains(probes[i & mask]) ? 1 : 0,
+			i -> {
+				Integer key = inserts[indexes[i & mask]];
+				return (tree.remove(key) ? 1 : 0) + (tree.add(key) ? 1 : 0);
+			},
+			i -> tree.get(indexes[i & mask]),
+			i -> BSTBenchmark.valueOf(tree.floor(probes[i & mask])),
+			i -> BSTBenchmark.valueOf(tree.ceiling(probes[i & mask])),
+			i -> tree.rank(probes[i & mask]),
+			i -> {
+				Integer from = probes[i & mask];
+				return tree.forEachInRange(from, from + 2 * RANGE, e -> { });
+			},
+			i -> BSTBenchmark.sum(tree.iterator())
+		};
+	}
+}
\ No newline at end of file
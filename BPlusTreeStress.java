@@ -0,0 +1,192 @@
+/**
+ * Check for BPlusTree, comparing every answer with a TreeSet. It runs three phases and exits
+ * with status 1 on the first mismatch:
+ *
+ * 1. Trees of the smallest order, an odd order and the default order are changed at random
+ *    with add, remove and removeAt, which splits, merges and borrows between nodes all the
+ *    time, checking get(int), rank, the neighbour searches and a random range after every change.
+ * 2. The same trees are filled and then emptied again in ascending, descending and random
+ *    order, checking the whole tree after every step.
+ * 3. toString is checked on elements that print as empty strings.
+ *
+ * Usage: java project4.BPlusTreeStress [operations]
+ */
+
+package project4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class BPlusTreeStress {
+	
+	private static final int KEY_RANGE = 5000;
+	private static final int[] ORDERS = {4, 5, 64};
+	
+	/**
+	 * Runs the check.
+	 *
+	 * @param args Optional number of random operations per tree
+	 */
+	public static void main(String[] args) {
+		int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 50_000;
+		
+		for(int order : ORDERS) {
+			random(new BPlusTree<Integer>(order), operations, new Random(order));
+		}
+		System.out.println("random changes: ok");
+		for(int order : ORDERS) {
+			fillAndEmpty(order, new Random(order));
+		}
+		System.out.println("fill and empty: ok");
+		emptyStrings();
+		System.out.println("toString: ok");
+	}
+	
+	/**
+	 * Private method for the first phase, changing a tree at random and checking its answers
+	 *
+	 * @param tree Empty tree to change
+	 * @param operations Number of random changes
+	 * @param random Source of the keys
+	 */
+	private static void random(BPlusTree<Integer> tree, int operations, Random random) {
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		for(int i = 0; i < operations; i++) {
+			Integer key = random.nextInt(KEY_RANGE);
+			int choice = random.nextInt(5);
+			if(choice < 3) { //more insertions than removals, so the tree grows deep
+				check(tree.add(key), expected.add(key), "add", key);
+			} else if(choice == 3 || expected.isEmpty()) {
+				check(tree.remove(key), expected.remove(key), "remove", key);
+			} else {
+				int index = random.nextInt(expected.size());
+				Integer removed = get(expected, index);
+				expected.remove(removed);
+				check(tree.removeAt(index), removed, "removeAt", index);
+			}
+			check(tree.size(), expected.size(), "size", "");
+			
+			if(!expected.isEmpty()) {
+				int index = random.nextInt(expected.size());
+				check(tree.get(index), get(expected, index), "get", index);
+			}
+			int rank = expected.headSet(key).size();
+			check(tree.rank(key), expected.contains(key) ? rank : -rank - 1, "rank", key);
+			check(String.valueOf(tree.lower(key)), String.valueOf(expected.lower(key)), "lower", key);
+			check(String.valueOf(tree.higher(key)), String.valueOf(expected.higher(key)), "higher", key);
+			check(String.valueOf(tree.floor(key)), String.valueOf(expected.floor(key)), "floor", key);
+			check(String.valueOf(tree.ceiling(key)), String.valueOf(expected.ceiling(key)), "ceiling", key);
+			
+			int from = random.nextInt(KEY_RANGE);
+			int to = from + random.nextInt(KEY_RANGE / 10);
+			check(tree.getRange(from, to), new ArrayList<Integer>(expected.subSet(from, true, to, true)), "getRange", from + ", " + to);
+		}
+		checkAll(tree, expected, "random");
+	}
+	
+	/**
+	 * Private method for the second phase, filling and emptying trees in different orders
+	 *
+	 * @param order Order of the trees
+	 * @param random Source of the shuffles
+	 */
+	private static void fillAndEmpty(int order, Random random) {
+		List<Integer> keys = new ArrayList<Integer>();
+		for(int i = 0; i < KEY_RANGE / 5; i++) {
+			keys.add(i);
+		}
+		for(int pattern = 0; pattern < 3; pattern++) {
+			BPlusTree<Integer> tree = new BPlusTree<Integer>(order);
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			for(Integer key : arrange(keys, pattern, random)) {
+				tree.add(key);
+				expected.add(key);
+				checkAll(tree, expected, "fill " + pattern);
+			}
+			for(Integer key : arrange(keys, pattern, random)) {
+				check(tree.remove(key), expected.remove(key), "remove", key);
+				checkAll(tree, expected, "empty " + pattern);
+			}
+		}
+	}
+	
+	/**
+	 * Private method for the third phase, checking that elements printed as empty strings
+	 * are still separated
+	 */
+	private static void emptyStrings() {
+		BPlusTree<String> tree = new BPlusTree<String>(4);
+		TreeSet<String> expected = new TreeSet<String>();
+		for(String s : new String[] {"", "a", "b", "c", "d", "e"}) {
+			tree.add(s);
+			expected.add(s);
+			check(tree.toString(), expected.toString(), "toString", s);
+		}
+	}
+	
+	/**
+	 * Private method that returns a copy of the keys in ascending, descending or random order
+	 *
+	 * @param keys Keys in ascending order
+	 * @param pattern 0 for ascending, 1 for descending, 2 for random
+	 * @param random Source of the shuffle
+	 * @return the rearranged keys
+	 */
+	private static List<Integer> arrange(List<Integer> keys, int pattern, Random random) {
+		List<Integer> arranged = new ArrayList<Integer>(keys);
+		if(pattern == 1) {
+			Collections.reverse(arranged);
+		} else if(pattern == 2) {
+			Collections.shuffle(arranged, random);
+		}
+		return arranged;
+	}
+	
+	/**
+	 * Private method that returns the element at the given index of a set
+	 *
+	 * @param set Set to look in
+	 * @param index Index of the element
+	 * @return the element
+	 */
+	private static Integer get(TreeSet<Integer> set, int index) {
+		return set.stream().skip(index).findFirst().get();
+	}
+	
+	/**
+	 * Private method that checks the size, every element and every index of the tree
+	 *
+	 * @param tree Tree to check
+	 * @param expected Set it must match
+	 * @param phase Name of the step, for the report
+	 */
+	private static void checkAll(BPlusTree<Integer> tree, TreeSet<Integer> expected, String phase) {
+		check(tree.size(), expected.size(), "size", phase);
+		check(Arrays.asList(tree.toArray()), Arrays.asList(expected.toArray()), "toArray", phase);
+		int index = 0;
+		for(Integer key : expected) {
+			check(tree.get(index), key, "get", index);
+			check(tree.rank(key), index, "rank", key);
+			index++;
+		}
+	}
+	
+	/**
+	 * Private method that exits with status 1 if a result differs from the expected one
+	 *
+	 * @param actual Result of the tree
+	 * @param expected Result of the set
+	 * @param operation Name of the operation
+	 * @param key Key or range the operation was given
+	 */
+	private static void check(Object actual, Object expected, String operation, Object key) {
+		if(!actual.equals(expected)) {
+			System.out.println("FAILED: " + operation + "(" + key + ") returned " + actual + ", expected " + expected);
+			System.exit(1);
+		}
+	}
+}
\ No newline at end of file
@@ -1,1258 +1,4077 @@
-/**
- * This is an implementation of a binary search tree.
- * Items can be added, removed, etc.
- * 
- * @author Jackson Reinhart
- * @version 4/26/2022
- */
-
-package project4;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Objects;
-
-public class BST<E extends Comparable<E>> implements Iterable<E>{
-	
-	private Node root; //reference to root node of the tree
-	private int size = 0; //keeps track of the amount of nodes in the tree
-	
-	
-	/**
-	 * Constructs a new, empty tree, sorted according to the natural ordering of its elements.
-	 * All elements inserted into the tree must implement the Comparable interface.
-	 */
-	public BST() {
-		root = null;
-	}
-	
-	/**
-	 * Constructs a new tree containing the elements in the specified collection,
-	 * sorted according to the natural ordering of its elements.
-	 * All elements inserted into the tree must implement the Comparable interface.
-	 *
-	 * @param collection Collection to create the tree out of
-	 * @throws NullPointerException if the given set is null
-	 */
-	public BST(E[] collection) throws NullPointerException {
-		if(collection == null) 
-			throw new NullPointerException("Given set cannot be null");
-		//guarantee that it is o(n log n) by sorting the array
-		Arrays.sort(collection);
-		for(E item : collection) {
-			add(item);
-		}
-	}
-	
-	/**
-	 * Adds the specified element to this set if it is not already present.
-	 * More formally, adds the specified element e to this tree if the set contains
-	 * no element e2 such that Objects.equals(e, e2). If this set already contains
-	 * the element, the call leaves the set unchanged and returns false.
-	 * 
-	 * @param e element to be added to this set
-	 * @return true if this set did not already contain the specified element
-	 * @throws NullPointerException if the specified element is null and this set uses
-	 * 		natural ordering, or its comparator does not permit null elements
-	 */
-	public boolean add(E e) throws NullPointerException {
-		if(e == null)
-			throw new NullPointerException("Cannot input null element");
-		
-		if(root == null) { //if this is the first node to be added
-			root = new Node(e); //make the root the first item
-			size++;
-			return true;
-		}
-		return add(e, root); //otherwise, recursive add
-	}
-	
-	private boolean add(E e, Node curRoot) {
-		//compare
-		int comp = e.compareTo(curRoot.data);
-		
-		//left node if smaller
-		if(comp < 0) {
-			if(curRoot.left == null) {
-				curRoot.left = new Node(e);
-				if(curRoot.right == null || curRoot.left.height >= curRoot.right.height) {
-					curRoot.height = curRoot.left.height + 1;
-				}
-				updateNodeSize(curRoot);
-				updateLeftSize(curRoot);
-				size++;
-				return true;
-			}
-			
-			boolean added = add(e, curRoot.left); //we recurse
-			if(added) {
-				//update heights: if there is no right node, or if the left node's height is now
-				//larger than the right node's, set this node's height to the left's height plus one
-				if(curRoot.right == null || curRoot.left.height >= curRoot.right.height) {
-					curRoot.height = curRoot.left.height + 1;
-				}
-				updateNodeSize(curRoot);
-				updateLeftSize(curRoot);
-			return added;
-			}
-			
-		} else if(comp > 0) { //right node if bigger
-			if(curRoot.right == null) {
-				curRoot.right = new Node(e);
-				if(curRoot.left == null || curRoot.left.height <= curRoot.right.height) {
-					curRoot.height = curRoot.right.height + 1;
-				}
-				updateNodeSize(curRoot);
-				updateLeftSize(curRoot);
-				size++;
-				return true;
-			}
-			boolean added = add(e, curRoot.right);
-			if(added) {
-				//update heights: if there is no left node, or if the right node's height is larger
-				//than the left node's, set this node's height to it plus one
-				if(curRoot.left == null || curRoot.left.height <= curRoot.right.height) {
-					curRoot.height = curRoot.right.height + 1;
-				}
-				updateNodeSize(curRoot);
-				updateLeftSize(curRoot);
-			}
-			return added;
-		}
-		return false; //will only be reached if the item is a duplicate
-	}
-	
-	
-	/**
-	 * Returns the element at the specified position in this tree. The order of the indexed
-	 * elements is the same as provided by this tree's iterator. The indexing is zero based
-	 * (i.e., the smallest element in this tree is at index 0 and the largest one is at
-	 * index size()-1).
-	 * 
-	 * @param index Index of the element to return
-	 * @return Element at given index
-	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
-	 */
-	public E get(int index) throws IndexOutOfBoundsException {
-		if(index < 0 || index >= size) //range check 
-			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
-		
-		return get(index, root); //recurse
-	}
-	//recursive
-	private E get(int index, Node curRoot) {
-		if(index == curRoot.leftSize) //base case: if index matches
-			return curRoot.data;
-		if(index < curRoot.leftSize) //otherwise, if index is less, move left
-			return get(index, curRoot.left);
-		if(index > curRoot.leftSize) //when we reach the point where the index
-			//is smaller, we know the item is at index - left size - 1 of the right subtree
-			return get(index - curRoot.leftSize - 1, curRoot.right);
-		return null; //unreachable
-	}
-	
-	/**
-	 * Private method to maintain nodes' subtrees' size records
-	 * Updates given nodes' sizes by summing the sizes of their
-	 * children and adding 1 (because it's inclusive)
-	 * 
-	 * @param n Node to update
-	 */
-	private void updateNodeSize(Node n) {
-		if(n.left == null && n.right == null)
-			n.size = 1; //base case: if no children, zero size
-		
-		int s = 0; //helper var 
-		if(n.left != null)
-			s += n.left.size; //if a left node exists, add its size to s
-		if(n.right != null)
-			s += n.right.size; //if a right node exists, add its size to s
-		
-		n.size = s + 1; //size is sum of left and right sizes plus one
-	}
-	
-	/**
-	 * Private method to update the left size variable in nodes to
-	 * keep track of their left subtree size. Sets it to the size of 
-	 * the left child (therefore the left subtree).
-	 * 
-	 * @param n Node to update
-	 */
-	private void updateLeftSize(Node n) {
-		if(n.left != null)
-			n.leftSize = n.left.size; //leftsize is just the size of the left subtree
-	}
-	
-	/**
-	 * Adds all of the elements in the specified collection to this tree.
-	 * 
-	 * @param collection to be added
-	 * @return true if this set changed as a result of the call
-	 * @throws NullPointerException if the specified collection is null or
-	 * 		if any element of the collection is null
-	 */
-	public boolean addAll(Collection<? extends E> collection) throws NullPointerException {
-		for(E item : collection) {
-			add(item);
-		}
-		return true; 
-	}
-	
-	/**
-	 * Returns true if this set contains the specified element.
-	 * More formally, returns true if and only if this set contains
-	 * an element e such that Objects.equals(o, e).
-	 * 
-	 * @param o Object to look for
-	 * @return true if the tree already contains the object
-	 * @throws ClassCastException if the specified object cannot be compared
-	 * 		with the elements currently in the set
-	 * @throws NullPointerException if the specified element is null and this
-	 * 		set uses natural ordering, or its comparator does not permit null elements
-	 */
-	public boolean contains(Object o) throws ClassCastException, NullPointerException {
-		//null check
-		if(o == null)
-			throw new NullPointerException("Given item cannot be null");
-		
-		return contains(o, root);
-	}
-	
-	//recursive search
-	private boolean contains(Object o, Node curRoot) throws ClassCastException {
-		if(Objects.equals(o, curRoot.data)) //base case: if we find the element
-			return true;
-		
-		if(curRoot.left == null && curRoot.right == null) {
-			return false; //if we reach a leaf (end of the line) but haven't found it yet
-		}
-		
-		//if we're not at a leaf and we haven't found it, keep looking, recurse down
-		//get the comparison 
-		@SuppressWarnings("unchecked")
-		int comp = curRoot.data.compareTo((E) o);
-		
-		if(comp < 0) { //right
-			if(curRoot.right != null) { //make sure we have a node to look at
-				return contains(o, curRoot.right);
-			} else {
-				return false; //if we can't go right, we can't find it
-			}
-		} else if(comp > 0) { //left
-			if(curRoot.left != null) { //make sure we have a node to look at
-				return contains(o, curRoot.left);
-			} else {
-				return false; //if we can't go left anymore, we can't find it
-			}
-		}
-		return false;
-	}
-	
-	/**
-	 * Returns true if this collection contains all of the elements in the specified
-	 * collection. This implementation iterates over the specified collection, checking each
-	 * element returned by the iterator in turn to see if it's contained in this tree. If all
-	 * elements are so contained true is returned, otherwise false.
-	 * 
-	 * @param c Collection to compare
-	 * @return true if this tree contains all of the elements in the specified collection
-	 * @throws NullPointerException if the specified collection contains one or more null elements
-	 * 		and this collection does not permit null elements, or if the specified collection is null.
-	 */
-	public boolean containsAll(Collection<?> c) throws NullPointerException {
-		if(c == null) //null check
-			throw new NullPointerException("Given collection cannot be null");
-		
-		for(Object item : c) { //iterate through each item in given array
-			if(item == null) //null check each item
-				throw new NullPointerException("Given collection cannot contain null items");
-			if(contains(item) == false) //check for containment
-				return false; //if any of them are not contained, return false
-		}
-		return true; //otherwise, return true is reached
-	}
-	
-	/**
-	 * Removes all of the elements from this set. The set will be empty
-	 * after this call returns.
-	 */
-	public void clear() {
-		size = 0;
-		root = null;
-	}
-	
-	/**
-	 * Removes the specified element from this tree if it is present. More formally,
-	 * removes an element e such that Objects.equals(o, e), if this tree contains such
-	 * an element. Returns true if this tree contained the element (or equivalently, if
-	 * this tree changed as a result of the call). (This tree will not contain the
-	 * element once the call returns.)
-	 * 
-	 * @param o Object to be removed
-	 * @return true if item is removed
-	 * @throws ClassCastException if the specified object cannot be compared with the
-	 * 		elements currently in this tree
-	 * @throws NullPointerException if the specified element is null
-	 */
-	public boolean remove(Object o) throws ClassCastException, NullPointerException {
-		if(o == null) //null check
-			throw new NullPointerException("Given element cannot be null");
-		
-		if(isEmpty())
-			return false;
-		
-		return remove(o, root, null); //call recursion from the root
-	}
-	
-	//recursive
-	private boolean remove(Object o, Node curRoot, Node parent) throws ClassCastException {
-		
-		if(curRoot == null) { //if we've fallen off the tree
-			return false;
-		}
-		
-		//base case: if we've found the target object
-		if(Objects.equals(o, curRoot.data)) {
-			
-			//if it's a node with two children
-			if(curRoot.left != null && curRoot.right != null) {
-				
-				//edge case: if left child is predecessor
-				if(curRoot.left.right == null) {
-					curRoot.data = curRoot.left.data; //replace the target node with predecessor
-					curRoot.left = null; //delete predecessor
-				} else {
-					//normal scenario: predecessor is somewhere down the tree
-					Node predecessor = curRoot.left; //go left one
-					
-					while(predecessor.right != null) {
-						predecessor = predecessor.right; //go right until you can't anymore
-					}
-					
-					//now that we have the predecessor, we must replace and delete
-					curRoot.data = predecessor.data;
-					remove(predecessor.data, curRoot.left, curRoot);
-				}
-				
-			} else {
-				//edge case: if this is the root of the tree
-				if(parent == null) {
-					root = null;
-					size--;
-					return true;
-				}
-				
-				//check to see if this is the left or right child of the parent
-				boolean isLeftChild = (curRoot == parent.left);
-				
-				//if it's a leaf
-				if(curRoot.left == null && curRoot.right == null) {
-					
-					if(curRoot == root) { //edge case: if leaf is the root of a size 1 tree
-						root = null;
-						size--;
-						return true;
-					}
-					
-					if(isLeftChild) { //if it's the left child
-						parent.left = null; //disconnect
-					} else { //if it's the right child
-						parent.right = null; //disconnect
-					}
-				}
-				
-				//if it's a node with only one child
-				//if it has only a left child
-				if(curRoot.left != null && curRoot.right == null) {
-					//set that left child to the left or right child of the parent,
-					//depending on the former position of the deleted node
-					if(isLeftChild) {
-						parent.left = curRoot.left;
-					} else {
-						parent.right = curRoot.left;
-					}
-				//if it has only a right child
-				} else if(curRoot.right != null && curRoot.left == null) {
-					//set that right child to the left or right child of the parent,
-					//depending on the former position of the deleted node
-					if(isLeftChild) {
-						parent.left = curRoot.right;
-					} else {
-						parent.right = curRoot.right;
-					}
-				}
-			
-			}
-			if(parent != null)
-				parent.height--;
-			size--;
-			return true;
-			
-		//recursing to the node
-		} else {
-			int comp = curRoot.data.compareTo((E) o);
-			
-			if(comp < 0) { //right
-				if(remove(o, curRoot.right, curRoot)) {
-					updateHeight(curRoot);
-					updateNodeSize(curRoot);
-					updateLeftSize(curRoot);
-					
-					return true;
-				}
-			} else if(comp > 0) { //left
-				if(remove(o, curRoot.left, curRoot)) {
-					
-					//every node that executes this is guaranteed affected by a deletion
-					updateHeight(curRoot);
-					updateNodeSize(curRoot);
-					updateLeftSize(curRoot);
-					
-					return true;
-				}
-			}
-			return false;
-		}
-	}
-	
-	/**
-	 * Private method that updates heights of individual nodes
-	 * 
-	 * @param n Node to be updated
- 	 */
-	private void updateHeight(Node n) {
-		//if a leaf
-		if(n.left == null && n.right == null)
-			n.height = 1;
-		
-		int heightLeft;
-		int heightRight;
-		//use helper variables to have height so we don't have to risk trying to access nulls
-		if(n.left == null) {
-			heightLeft = 0;
-		} else {
-			heightLeft = n.left.height;
-		}
-		if(n.right == null) {
-			heightRight = 0;
-		} else {
-			heightRight = n.right.height;
-		}
-		//simply set the height to the maximum child height + 1
-		n.height = Math.max(heightLeft, heightRight) + 1;
-	}
-	
-	/**
-	 * Returns the number of elements in this tree.
-	 * 
-	 * @return number of elements in this tree
-	 */
-	public int size() {
-		return size;
-	}
-	
-	/**
-	 * Returns the height of this tree. The height of a leaf is 1. The height of
-	 * the tree is the height of its root node.
-	 * 
-	 * @return the height of this tree or zero if the tree is empty
-	 */
-	public int height() {
-		return root.height; //height of root is height of tree
-	}
-	
-	/**
-	 * Returns true if this set contains no elements.
-	 * 
-	 * @return true if this set contains no elements.
-	 */
-	public boolean isEmpty() {
-		return root == null;
-	}
-	
-	/**
-	 * Returns true if this tree is a full tree (i.e., a binary
-	 * tree in which each node has either two children or is a leaf).
-	 * 
-	 * @return true if this tree is a full tree
-	 */
-	public boolean isFull() {
-		if(isEmpty())
-			return true;
-		return isFull(root);
-	}
-	//recursive
-	private boolean isFull(Node curRoot) {
-		if(curRoot.height == 1) {
-			return true; //if it's a leaf, return true
-		} else if(curRoot.left != null  && curRoot.right != null) {
-			//if the left and right nodes are both not null
-			if(isFull(curRoot.left) && isFull(curRoot.right))
-				return true; //recurse onto left and then right nodes
-		}
-		return false; //else return false
-	}
-	
-	/**
-	 * Returns true if this tree is balanced based on the AVL tree balancing requirements
-	 * (i.e., for every node, the difference in height between its two sub-trees is at most 1).
-	 * 
-	 * @return true if this tree is balanced
-	 */
-	public boolean isBalanced() {
-		if(isEmpty())
-			return true;
-		return isBalanced(root);
-	}
-	//recursive
-	private boolean isBalanced(Node curRoot) {
-		
-		if(curRoot == null) //if we've reached a leaf
-			return true;
-		
-		//helper variables so we can safely fall off the tree
-		int leftChildHeight;
-		int rightChildHeight;
-		
-		//null check the children and update the helper variables so we can
-		//get left and right height even if left or right subtrees are empty
-		//(which we treat as a height of zero)
-		if(curRoot.left == null) {
-			leftChildHeight = 0;
-		} else {
-			leftChildHeight = curRoot.left.height;
-		}
-		
-		if(curRoot.right == null) {
-			rightChildHeight = 0;
-		} else {
-			rightChildHeight = curRoot.right.height;
-		}
-		
-		//ensure we are only checking full nodes
-		//this node is balanced if the difference between left height and right height is one or 
-		boolean thisNodeBalanced = !(Math.abs(leftChildHeight - rightChildHeight) > 1);
-		//return true if both children are also balanced, false if any of them aren't
-		return (isBalanced(curRoot.left) == true && isBalanced(curRoot.right) == true && thisNodeBalanced == true);
-		//} else {
-			//return true; //reached if leaf or has only one child, in which case it is balanced
-		//}
-	}
-	
-	/**
-	 * Compares the specified object with this tree for equality. Returns true if the
-	 * given object is also a tree, the two trees have the same size, and every member
-	 * of the given tree is contained in this tree.
-	 * 
-	 * @return true if the specified object is equal to this tree
-	 */
-	public boolean equals(Object obj) {
-		//if given object is not a BST
-		if(!(obj instanceof BST<?>))
-			return false;
-		
-		//cast given object as a BST
-		@SuppressWarnings("unchecked")
-		BST<E> treeObj = (BST<E>) obj;
-		//check size for equality
-		if(treeObj.size() != this.size())
-			return false;
-		//check each node for equality
-		if(!compareTreeNodes(root, treeObj.root))
-			return false;
-		//if we reach this point, everything works, return true
-		return true;
-	}
-	/**
-	 * Private method for equals(Object obj) that returns true if a tree's
-	 * objects are identical to another given tree
-	 * 
-	 * @param n1 Root of tree 1
-	 * @param n2 Root of tree 2
-	 * @return True if both trees have identical elements
-	 */
-	private boolean compareTreeNodes(Node n1, Node n2) {
-		//if both nodes are null, true
-		if(n1 == null && n2 == null)
-			return true;
-		//else, compare: if they're both non-null (we haven't fallen off the tree)
-		//and they have matching data, recurse left and then right and do the same
-		//and if all children are equal, return true.
-		return (n1 != null && n2 != null) && (n1.data.equals(n2.data)) &&
-				compareTreeNodes(n1.left, n2.left) &&
-				compareTreeNodes(n1.right, n2.right);
-	}
-	
-	/**
-	 * Returns the first (lowest) element currently in this tree.
-	 * 
-	 * @return the first (lowest) element in this tree
-	 * @throw NoSuchElementException if tree is empty
-	 */
-	public E first() throws NoSuchElementException {
-		if(isEmpty()) //empty check
-			throw new NoSuchElementException("Tree is empty"); //recurse
-		
-		return first(root); //recurse
-	}
-	//recursive
-	private E first(Node curRoot) {
-		if(curRoot.left == null) { //if we've gone as left as possible
-			return curRoot.data;
-		} else { //otherwise keep going left
-			return first(curRoot.left);
-		}
-	}
-	
-	/**
-	 * Returns the last (highest) element currently in this tree.
-	 * 
-	 * @return last (highest) element in this tree
-	 * @throws NoSuchElementException if tree is empty
-	 */
-	public E last() throws NoSuchElementException {
-		if(isEmpty()) //empty check
-			throw new NoSuchElementException("Tree is empty");
-		
-		return last(root); //recurse
-	}
-	//recursive
-	private E last(Node curRoot) {
-		if(curRoot.right == null) { //base case: if we have gone as right as possible, return
-			return curRoot.data;
-		} else { //otherwise, keep going right
-			last(curRoot.right);
-		}
-		return curRoot.data; //unreachable
-	}
-	
-	/**
-	 * Returns the greatest element in this set strictly less than the
-	 * given element, or null if there is no such element.
-	 * 
-	 * @param e the value to match
-	 * @return the greatest element less than e, or null if there is no such element
-	 * @throws ClassCastException if the specified element cannot be compared with the
-	 * 		elements currently in the set
-	 * @throws NullPointerException if the specified element is null
-	 */
-	public E lower(E e) throws ClassCastException, NullPointerException {
-		if(e == null) //null check
-			throw new NullPointerException("Given element cannot be null");
-		
-		return lower(e, root);
-	}
-	//recursive
-	private E lower(E e, Node curRoot) {
-		//if we fall off the tree on the way there, there is no ceiling element, return null
-		if(curRoot == null)
-			return null;
-		
-		//compare node with e
-		boolean nodeIsGreaterThanOrEqualToTarget = e.compareTo(curRoot.data) <= 0;
-		//if node is less than e, we go left
-		if(nodeIsGreaterThanOrEqualToTarget) {
-			return lower(e, curRoot.left);
-		}
-		
-		//if the lower is not in the left subtree, it is in the right subtree or current node
-		E rightResult = lower(e, curRoot.right);
-		//stop leftResult from being null
-		if(rightResult == null)
-			return curRoot.data;
-		//compare rightResult with e
-		boolean rightResultIsLess = rightResult.compareTo(e) < 0;
-		if(rightResultIsLess) {
-			return rightResult;
-		} else {
-			return curRoot.data;
-		}
-	}
-	
-	/**
-	 * Returns the least element in this tree strictly greater than the given element,
-	 * or null if there is no such element.
-	 * 
-	 * @param e the value to match
-	 * @return the least element greater than e, or null if there is no such element
-	 * @throws ClassCastException if the specified element cannot be compared with the
-	 * 		elements currently in the set
-	 * @throws NullPointerException if the specified element is null
-	 */
-	public E higher(E e) throws ClassCastException, NullPointerException {
-		if(e == null) //null check
-			throw new NullPointerException("Given element cannot be null");
-		
-		return higher(e, root);
-	}
-	//recursive
-	private E higher(E e, Node curRoot) {
-		//if we fall off the tree on the way there, there is no ceiling element, return null
-		if(curRoot == null)
-			return null;
-		
-		//compare node with e
-		boolean nodeIsLessThanOrEqualToTarget = e.compareTo(curRoot.data) >= 0;
-		//if node is less than e, we go right
-		if(nodeIsLessThanOrEqualToTarget) {
-			return higher(e, curRoot.right);
-		}
-		
-		//if the higher is not in the right subtree, it is in the left subtree or current node
-		E leftResult = higher(e, curRoot.left);
-		//stop leftResult from being null
-		if(leftResult == null)
-			return curRoot.data;
-		//compare leftResult with e
-		boolean leftResultIsLarger = leftResult.compareTo(e) > 0;
-		if(leftResultIsLarger) {
-			return leftResult;
-		} else {
-			return curRoot.data;
-		}
-	}
-	
-	/**
-	 * Returns the least element in this tree greater than or equal to the given element,
-	 * or null if there is no such element.
-	 * 
-	 * @param e element to compare
-	 * @return the least element in this tree greater than or equal to the given element
-	 * @throws ClassCastException if the specified element cannot be compared with the
-	 * 		elements currently in the set
-	 * @throws NullPointerException if the specified element is null
-	 */
-	public E ceiling(E e) throws ClassCastException, NullPointerException {
-		if(e == null) //null check
-			throw new NullPointerException("Given element cannot be null");
-		
-		return ceiling(e, root);
-	}
-	//recursive
-	private E ceiling(E e, Node curRoot) {
-		//if we fall off the tree on the way there, there is no ceiling element, return null
-		if(curRoot == null)
-			return null;
-		//if we found a match, we have our ceiling
-		if(curRoot.data.equals(e))
-			return curRoot.data;
-		
-		//compare node with e
-		boolean nodeIsLessThanTarget = e.compareTo(curRoot.data) > 0;
-		//if node is less than e, we go right
-		if(nodeIsLessThanTarget) {
-			return ceiling(e, curRoot.right);
-		}
-		
-		//if the ceiling is not in the right subtree, it is in the left subtree or current node
-		E ceil = ceiling(e, curRoot.left);
-		//stop ceil from being null
-		if(ceil == null)
-			return curRoot.data;
-		//compare ceil with e
-		boolean ceilIsLargerOrEqual = ceil.compareTo(e) >= 0;
-		if(ceilIsLargerOrEqual) {
-			return ceil;
-		} else {
-			return curRoot.data;
-		}
-	}
-	
-	/**
-	 * Returns the greatest element in this set less than or equal to the given
-	 * element, or null if there is no such element.
-	 * 
-	 * @param e element to compare
-	 * @return the greatest element less than or equal to e, or null if there is no such element
-	 * @throws ClassCastException if the specified element cannot be compared with the
-	 * 		elements currently in the set
-	 * @throws NullPointerException if the specified element is null
-	 */
-	public E floor(E e) throws ClassCastException, NullPointerException {
-		if(e == null) //null check
-			throw new NullPointerException("Given element cannot be null");
-		
-		return floor(e, root);
-	}
-	//recursive
-	private E floor(E e, Node curRoot) {
-		//if we fall off the tree on the way there, there is no ceiling element, return null
-		if(curRoot == null)
-			return null;
-		
-		//if we found a match, we have our floor
-			if(curRoot.data.equals(e))
-				return curRoot.data;
-		
-		//compare node with e
-		boolean nodeIsGreaterThanToTarget = e.compareTo(curRoot.data) < 0;
-		//if node is less than e, we go left
-		if(nodeIsGreaterThanToTarget) {
-			return floor(e, curRoot.left);
-		}
-		
-		//if the lower is not in the left subtree, it is in the right subtree or current node
-		E rightResult = floor(e, curRoot.right);
-		//stop leftResult from being null
-		if(rightResult == null)
-			return curRoot.data;
-		//compare rightResult with e
-		boolean rightResultIsLess = rightResult.compareTo(e) <= 0;
-		if(rightResultIsLess) {
-			return rightResult;
-		} else {
-			return curRoot.data;
-		}
-	}
-	
-	/**
-	 * This function returns an array containing all the elements returned by this tree's iterator,
-	 * in the same order, stored in consecutive elements of the array, starting with index 0.
-	 * The length of the returned array is equal to the number of elements returned by the iterator.
-	 * 
-	 * @return an array, whose runtime component type is Object, containing all of the elements in this tree
-	 */
-	public Object[] toArray() {
-		
-		//make array of tree size
-		Object[] arr = new Object[size];
-		//get in order iterator
-		Iterator<E> itr = iterator();
-		int i = 0;
-		
-		while(itr.hasNext()) {
-			arr[i] = itr.next();
-			i++;
-		}
-		
-		return arr;
-	}
-	
-	/**
-	 * Returns a collection whose elements range from fromElement, inclusive, to toElement,
-	 * inclusive. The returned collection/list is backed by this tree, so changes in the
-	 * returned list are reflected in this tree, and vice-versa (i.e., the two structures
-	 * share elements. The returned collection should be organized according to the natural
-	 * ordering of the elements (i.e., it should be sorted).
-	 * 
-	 * @param fromElement Lower bound of range
-	 * @param toElement Higher bound of range
-	 * @return a collection containing a portion of this tree whose elements range from
-	 * 		fromElement, inclusive, to toElement, inclusive
-	 * @throws NullPointerException if either fromElement or toElement are null
-	 * @throws IllegalArgumentException if fromElement is larger than toElement
-	 */
-	public ArrayList<E> getRange(E fromElement, E toElement) throws NullPointerException, IllegalArgumentException {
-		//null check
-		if(fromElement == null || toElement == null)
-			throw new NullPointerException("fromElement and toElement cannot be null");
-		//comparing variable, >0 if fromElement is larger than toElement
-		int elementComp = fromElement.compareTo(toElement);
-		if(elementComp > 0)
-			throw new IllegalArgumentException("fromElement cannot be larger than toElement");
-		//recurse once all our checks are cleared
-		return getRange(fromElement, toElement, root, new ArrayList<E>());
-	}
-	//recurse
-	private ArrayList<E> getRange (E fromElement, E toElement, Node curRoot, ArrayList<E> list) {
-		if(curRoot == null) {
-			//if we fall off the tree, return empty list
-			return list;
-		}
-		//compare bounds with current node's data
-		int lowBoundComp = fromElement.compareTo(curRoot.data);
-		int highBoundComp = toElement.compareTo(curRoot.data);
-		
-		if(lowBoundComp > 0) { //if we're below the lower bound, go right
-			return getRange(fromElement, toElement, curRoot.right, list);
-		} else if(highBoundComp < 0) { //if we're above the higher bound, go left
-			return getRange(fromElement, toElement, curRoot.left, list);
-		} else {
-			//helper list variable to simplify our adding code
-			ArrayList<E> localList = new ArrayList<E>();
-			//if we are within the bounds, search the left subtree
-			localList.addAll(getRange(fromElement, toElement, curRoot.left, list));
-			//then, add this node's data
-			localList.add(curRoot.data);
-			//then search the right subtree
-			localList.addAll(getRange(fromElement, toElement, curRoot.right, list));
-			return localList; //return the whole list put together
-		}
-	}
-	
-	/**
-	 * Returns a string representation of this tree. The string representation consists of a list of the tree's
-	 * elements in the order they are returned by its iterator (inorder traversal), enclosed in square brackets
-	 * ("[]"). Adjacent elements are separated by the characters ", " (comma and space). Elements are converted
-	 * to strings as by String.valueOf(Object).
-	 * 
-	 * @return String representation of this tree, inorder
-	 */
-	@Override
-	public String toString() {
-		String rawStr = buildString(root); //build string
-		rawStr = rawStr.substring(0, rawStr.length() - 2); //remove last comma and space
-		return "[" + rawStr + "]"; //add brackets and return 
-	}
-	//recursive string building
-	private String buildString(Node curRoot) {
-		//if we've fallen off the tree
-		if(curRoot == null)
-			return "";
-		
-		String str = ""; //helper variable
-		str += buildString(curRoot.left); //recurse to left, add that to string
-		str += String.valueOf(curRoot.data) + ", "; //add this node in between left and right
-		str += buildString(curRoot.right); //recurse to right
-		return str; //return the string put together
-	}
-	
-	/**
-	 * Produces a string representation of this tree that contains, one per line,
-	 * every path from the root of this tree to a leaf node in the tree. The order of
-	 * the paths should be from left to right. In each path, the values in the nodes
-	 * should be separated by a comma and a single space. The following multi-line string
-	 *  K, D, B, A
-	 *  K, D, J
-	 *  K, P, M, L
-	 *  K, P, M, O, N
-	 * is a string representation of this tree:
-	 *            K
-	 *         /     \
-	 *       D        P
-	 *     /   \     /
-	 *    B     J   M
-	 *    /        /   \
-	 *   A        L     O
-	 *                 /
-	 *                N
-	 *
-	 * @return string containing all root-leaf paths of this tree
-	 */
-	public String toStringAllPaths() {
-		StringBuilder sb = new StringBuilder(); //string builder will build our string
-		toStringAllPaths(root, "", sb); //recurse
-		return sb.toString();
-	}
-	private String toStringAllPaths(Node curRoot, String pathStr, StringBuilder sb) {
-		if(curRoot == null)
-			return "";
-		
-		if(curRoot.left != null)
-			//recurse, with the path now containing this node's data and ", "
-			toStringAllPaths(curRoot.left, pathStr + String.valueOf(curRoot.data) + ", ", sb);
-		if(curRoot.right != null)
-			toStringAllPaths(curRoot.right, pathStr + String.valueOf(curRoot.data) + ", ", sb);
-		//until we hit a leaf, in which case we can add this path to the string builder and
-		//recurse back up to the next path
-		if(curRoot.left == null && curRoot.right == null) {
-			sb.append(pathStr += curRoot.data + "\n");
-		}
-		return "";
-	}
-	
-	
-	/**
-	 * Produces a string representation of this tree that contains, one per line,
-	 * every path from the root of this tree to a leaf node in the tree whose length
-	 * is maximal (i.e., whose length matches the height of the tree). The order of
-	 * the paths should be from left to right. In each path, the values in the nodes
-	 * should be separated by a comma and a single space.
-	 * 
-	 * @return string containing all maximal root-leaf paths of this tree.
-	 */
-	public String toStringAllMaxPaths() {
-		StringBuilder sb = new StringBuilder(); //string builder will build our string
-		toStringAllMaxPaths(root, "", sb); //recurse
-		return sb.toString();
-	}
-	//recursive
-	private String toStringAllMaxPaths(Node curRoot, String pathStr, StringBuilder sb) {
-		if(curRoot == null)
-			return "";
-		
-		if(curRoot.left != null)
-			//recurse, with the path now containing this node's data and ", "
-			toStringAllMaxPaths(curRoot.left, pathStr + String.valueOf(curRoot.data) + ", ", sb);
-		if(curRoot.right != null)
-			toStringAllMaxPaths(curRoot.right, pathStr + String.valueOf(curRoot.data) + ", ", sb);
-		//until we hit a leaf, in which case we can add this path to the string builder and
-		//recurse back up to the next path
-		if(curRoot.left == null && curRoot.right == null) {
-			//if the amount of elements we've added so far +1 is equal to the tree's height, it's
-			//a maximal path.
-			if(pathStr.split(", ").length + 1 == this.height())
-				sb.append(pathStr += String.valueOf(curRoot.data) + "\n");
-		}
-		return "";
-	}
-	
-	/**
-	 * Produces tree like string representation of this tree. Returns a string representation of
-	 * this tree in a tree-like format. The string representation consists of a tree-like
-	 * representation of this tree. Each node is shown in its own line with the indentation showing
-	 * the depth of the node in this tree. The root is printed on the first line, followed by its
-	 * left subtree, followed by its right subtree.
-	 * 
-	 * @return string containing tree-like representation of this tree.
-	 */
-	public String toStringTreeFormat() {
-		//return empty string if tree is empty
-		if(isEmpty())
-			return "";
-		
-		StringBuilder sb = new StringBuilder();
-		//recurse with starting index of 0
-		toStringTreeFormat(root, 0, sb);
-		return sb.toString(); //return finished string builder string
-	}
-	//recursive
-	private void toStringTreeFormat(Node curRoot, int indent, StringBuilder sb) {
-		//adds filler, indent - 1 so that "|--" gets a head start
-		for(int i = 0; i < indent - 1; i++) {
-			sb.append("   ");
-		}
-		//skips root, but is placed after filler on every subsequent node
-		if(indent != 0)
-			sb.append("|--");
-		
-		if(curRoot == null) {
-			//if we hit the nulls, just print null and space and move onto next 
-			//line so that we null protect the necessary curRoot.left and curRoot.right calls
-			sb.append("null\n");
-		} else {
-			sb.append(String.valueOf(curRoot.data) + "\n"); //append the data and new line
-			toStringTreeFormat(curRoot.left, indent + 1, sb); //recurse left, increase indent
-			toStringTreeFormat(curRoot.right, indent + 1, sb); //recurse right, increase indent
-		}
-	}
-	
-	
-	/**
-	 * Returns an iterator over the elements in this tree in ascending order.
-	 * 
-	 * @return an iterator over the elements in this set in ascending order
-	 */
-	@Override
-	public Iterator<E> iterator() { //in-order iterator
-		return new inorderIterator(this); //return inorder iterator
-	}
-	
-	/**
-	 * Returns an iterator over the elements in this tree in order of the
-	 * preorder traversal.
-	 * 
-	 * @return an iterator over the elements in this tree in order of the
-	 *		preorder traversal
-	 */
-	public Iterator<E> preorderIterator() {
-		return new preorderIterator(this);
-	}
-	
-	/**
-	 * Returns an iterator over the elements in this tree in order of
-	 * the postorder traversal.
-	 * 
-	 * @return an iterator over the elements in this tree in order of
-	 * 		the postorder traversal
-	 */
-	public Iterator<E> postorderIterator() {
-		return new postorderIterator(this);
-	}
-	
-	/**
-	 * Node class
-	 * Contains local field for height, size of subtree, and size of its left child's subtree
-	 */
-	private class Node {
-		E data;
-		Node left;
-		Node right;
-		int height = 1;
-		int size = 1;
-		int leftSize = 0;
-		
-		//constructor with just data
-		public Node(E data) {
-			this.data = data;
-		}
-		
-		//constructor with data, left and right
-		public Node(E data, Node left, Node right) {
-			this.data = data;
-			this.left = left;
-			this.right = right;
-		}
-		
-	}
-	
-	/**
-	 * Inorder iterator
-	 * Iterates through the tree with inorder traversal
-	 */
-	private class inorderIterator implements Iterator<E> {
-		
-		BST<E> bst;
-		ArrayList<Node> nodeList = new ArrayList<Node>(); //where we'll cache the nodes
-		int index; //keep track of where we are in the list
-		
-		/**
-		 * Default constructor, generates iterator in O(n)
-		 */
-		public inorderIterator(BST<E> inBST) {
-			this.bst = inBST;
-			index = 0;
-			
-			genNodeList(root); //generate inorder list
-		}
-		
-		//inorder recursive method
-		private void genNodeList(Node curRoot) {
-			if(curRoot != null) {
-				genNodeList(curRoot.left); //go left,
-				nodeList.add(curRoot); //this node,
-				genNodeList(curRoot.right); //and finally, right
-			}
-		}
-		
-		/**
-		 * Checks if there are any elements left to be iterated over
-		 * 
-		 * @return True if there are elements left to return
-		 */
-		@Override
-		public boolean hasNext() {
-			//if the index is the same as the size of the array, there's nothing left
-			return !(nodeList.size() == index);
-		}
-		
-		/**
-		 * Returns next element
-		 * 
-		 * @return The next element in the iteration
-		 */
-		@Override
-		public E next() {
-			//check to make sure there are items left
-			if(hasNext()) {
-				//cache and return item
-				Node n = nodeList.get(index);
-				index++;
-				return n.data;
-			} else {
-				return null;
-			}
-		}
-	}
-	
-	/**
-	 * Preorder iterator
-	 * Iterates through the tree with a preorder traversal
-	 */
-	private class preorderIterator implements Iterator<E> {
-
-		BST<E> bst;
-		ArrayList<Node> nodeList = new ArrayList<Node>(); //where we'll cache the nodes
-		int index;
-		
-		/**
-		 * Default constructor, generates iterator in O(n)
-		 */
-		public preorderIterator(BST<E> inBST) {
-			this.bst = inBST;
-			index = 0;
-			
-			genNodeList(root); //generate preorder list
-		}
-		
-		//preorder recursive method
-		private void genNodeList(Node curRoot) {
-			if(curRoot != null) {
-				nodeList.add(curRoot); //this node,
-				genNodeList(curRoot.left); //go left,
-				genNodeList(curRoot.right); //and finally, right
-			}
-		}
-		
-		/**
-		 * Checks if there are any elements left to be iterated over
-		 * 
-		 * @return True if there are elements left to return
-		 */
-		@Override
-		public boolean hasNext() {
-			//if the index is the same as the size of the array, there's nothing left
-			return !(nodeList.size() == index);
-		}
-		
-		/**
-		 * Returns next element
-		 * 
-		 * @return The next element in the iteration
-		 */
-		@Override
-		public E next() {
-			Node n = nodeList.get(index);
-			index++;
-			return n.data;
-		}
-	}
-	
-		/**
-		 * Postorder iterator
-		 * Iterates through the tree with a postorder traversal
-		 */
-	private class postorderIterator implements Iterator<E> {
-
-		BST<E> bst;
-		ArrayList<Node> nodeList = new ArrayList<Node>(); //where we'll cache the nodes
-		int index;
-		
-		/**
-		 * Default constructor, generates iterator in O(n)
-		 */
-		public postorderIterator(BST<E> inBST) {
-			this.bst = inBST;
-			index = 0;
-			
-			genNodeList(root); //generate postorder list
-		}
-		
-		//postorder recursive method
-		private void genNodeList(Node curRoot) {
-			if(curRoot != null) {
-				genNodeList(curRoot.left); //go left,
-				genNodeList(curRoot.right); //right,
-				nodeList.add(curRoot); //and finally this node
-			}
-		}
-		
-		/**
-		 * Checks if there are any elements left to be iterated over
-		 * 
-		 * @return True if there are elements left to return
-		 */
-		@Override
-		public boolean hasNext() {
-			//if the index is the same as the size of the array, there's nothing left
-			return !(nodeList.size() == index);
-		}
-		
-		/**
-		 * Returns next element
-		 * 
-		 * @return The next element in the iteration
-		 */
-		@Override
-		public E next() {
-			Node n = nodeList.get(index);
-			index++;
-			return n.data;
-		}
-	}
+/**
+ * This is an implementation of a binary search tree.
+ * Items can be added, removed, etc.
+ * 
+ * Each element is held in its own Node object, linked to its children by references.
+ * The pooled struct-of-arrays node storage, where nodes are slots in parallel arrays
+ * reused through a free list, only exists in the primitive trees IntBST, LongBST and
+ * DoubleBST; this tree's keys are references anyway, so it keeps object nodes.
+ * 
+ * @author Jackson Reinhart
+ * @version 4/26/2022
+ */
+
+package project4;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+public class BST<E extends Comparable<E>> implements Iterable<E>{
+	
+	private Node<E> root; //reference to root node of the tree
+	private int size = 0; //keeps track of the amount of nodes in the tree
+	private int modCount = 0; //number of structural changes, so iterators can detect concurrent modification
+	private final boolean balanced; //true if the tree rotates to stay AVL balanced
+	private final boolean persistent; //true if changes copy the nodes they touch instead of changing them
+	private final boolean readOnly; //true for snapshots, which can never change
+	private BSTMetrics metrics; //null unless metrics are enabled, so the operations only pay for a null check
+	private Aggregator<? super E, Object> aggregator; //null unless the tree is augmented, see augment
+	
+	//reusable buffers holding the root-to-node path of the current insertion or removal,
+	//and the direction taken from each node on it (true if we went left)
+	private Node<E>[] path = newNodeArray(32);
+	private boolean[] wentLeft = new boolean[32];
+	
+	//set operations, for merging the elements of two trees without balancing
+	private static final int UNION = 0;
+	private static final int INTERSECTION = 1;
+	private static final int DIFFERENCE = 2;
+	
+	//subtrees with fewer elements than this are built and merged by parallelAddAll on one thread
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+	
+	//first four bytes of a saved tree: "BST" and the format version
+	private static final int MAGIC = 0x42535401;
+	private static final int BUFFER_SIZE = 1 << 16; //bytes buffered between the codec and the stream
+	
+	
+	/**
+	 * Constructs a new, empty tree, sorted according to the natural ordering of its elements.
+	 * All elements inserted into the tree must implement the Comparable interface.
+	 */
+	public BST() {
+		this(false);
+	}
+	
+	/**
+	 * Constructs a new, empty tree, sorted according to the natural ordering of its elements.
+	 * If balanced is true, the tree rotates its nodes on every insertion and removal so that
+	 * it always satisfies the AVL balancing requirements, which keeps its height (and the cost
+	 * of every O(H) operation) logarithmic in its size.
+	 * 
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 */
+	public BST(boolean balanced) {
+		this(balanced, false);
+	}
+	
+	/**
+	 * Constructs a new, empty tree, sorted according to the natural ordering of its elements.
+	 * If persistent is true, insertions and removals never change a node that is already in
+	 * the tree: they copy the O(H) nodes on the path they change and share all the others,
+	 * so that snapshot() can hand out an immutable view of the tree in O(1).
+	 * 
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @param persistent true if the tree should copy paths instead of changing nodes
+	 */
+	public BST(boolean balanced, boolean persistent) {
+		this.balanced = balanced;
+		this.persistent = persistent;
+		this.readOnly = false;
+		root = null;
+	}
+	
+	/**
+	 * Private constructor for snapshots and copies of persistent trees, which share
+	 * the nodes of the given tree
+	 * 
+	 * @param source Persistent tree to share the nodes of
+	 * @param readOnly true if the new tree is a snapshot
+	 */
+	private BST(BST<E> source, boolean readOnly) {
+		this.balanced = source.balanced;
+		this.persistent = true;
+		this.readOnly = readOnly;
+		root = source.root;
+		size = source.size;
+		aggregator = source.aggregator; //the shared nodes hold its summaries
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection,
+	 * sorted according to the natural ordering of its elements.
+	 * All elements inserted into the tree must implement the Comparable interface.
+	 * The tree is built perfectly balanced in O(n log n) time, and duplicate
+	 * elements are only added once. The given array is not modified.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @throws NullPointerException if the given set is null or contains null elements
+	 */
+	public BST(E[] collection) throws NullPointerException {
+		this(collection, false);
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection,
+	 * sorted according to the natural ordering of its elements. The tree is built
+	 * perfectly balanced in O(n log n) time, and duplicate elements are only added once.
+	 * The given array is not modified.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @throws NullPointerException if the given set is null or contains null elements
+	 */
+	public BST(E[] collection, boolean balanced) throws NullPointerException {
+		this(balanced);
+		if(collection == null) 
+			throw new NullPointerException("Given set cannot be null");
+		//guarantee that it is o(n log n) by sorting a copy of the array
+		Object[] sorted = Arrays.copyOf(collection, collection.length, Object[].class);
+		Arrays.sort(sorted);
+		buildFromSorted(sorted, sorted.length);
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection,
+	 * sorted according to the natural ordering of its elements. The tree is built
+	 * perfectly balanced in O(n log n) time, or in O(n) time if the collection is a
+	 * SortedSet that uses natural ordering (in which case it is not sorted again).
+	 * Duplicate elements are only added once.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @throws NullPointerException if the given collection is null or contains null elements
+	 */
+	public BST(Collection<? extends E> collection) throws NullPointerException {
+		this(collection, false);
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection,
+	 * sorted according to the natural ordering of its elements. The tree is built
+	 * perfectly balanced in O(n log n) time, or in O(n) time if the collection is a
+	 * SortedSet that uses natural ordering (in which case it is not sorted again).
+	 * Duplicate elements are only added once.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @throws NullPointerException if the given collection is null or contains null elements
+	 */
+	public BST(Collection<? extends E> collection, boolean balanced) throws NullPointerException {
+		this(balanced);
+		if(collection == null)
+			throw new NullPointerException("Given collection cannot be null");
+		
+		Object[] sorted = collection.toArray();
+		//a sorted set with natural ordering is already sorted and has no duplicates
+		if(!(collection instanceof SortedSet<?> && ((SortedSet<?>) collection).comparator() == null))
+			Arrays.sort(sorted);
+		buildFromSorted(sorted, sorted.length);
+	}
+	
+	/**
+	 * Returns a new tree containing the elements returned by the specified iterator,
+	 * which must return them in ascending order. The elements are not sorted again, so the
+	 * perfectly balanced tree is built in O(n) time. Consecutive duplicate elements are
+	 * only added once.
+	 *
+	 * @param <E> Type of the elements
+	 * @param sorted Iterator over the elements in ascending order
+	 * @return a new tree containing the elements
+	 * @throws NullPointerException if the given iterator is null or returns null elements
+	 * @throws IllegalArgumentException if the iterator does not return its elements in ascending order
+	 */
+	public static <E extends Comparable<E>> BST<E> fromSorted(Iterator<? extends E> sorted) throws NullPointerException, IllegalArgumentException {
+		return fromSorted(sorted, false);
+	}
+	
+	/**
+	 * Returns a new tree containing the elements returned by the specified iterator,
+	 * which must return them in ascending order. The elements are not sorted again, so the
+	 * perfectly balanced tree is built in O(n) time. Consecutive duplicate elements are
+	 * only added once.
+	 *
+	 * @param <E> Type of the elements
+	 * @param sorted Iterator over the elements in ascending order
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @return a new tree containing the elements
+	 * @throws NullPointerException if the given iterator is null or returns null elements
+	 * @throws IllegalArgumentException if the iterator does not return its elements in ascending order
+	 */
+	public static <E extends Comparable<E>> BST<E> fromSorted(Iterator<? extends E> sorted, boolean balanced) throws NullPointerException, IllegalArgumentException {
+		if(sorted == null)
+			throw new NullPointerException("Given iterator cannot be null");
+		
+		ArrayList<E> items = new ArrayList<E>();
+		E prev = null; //last item we kept, to check the order against
+		while(sorted.hasNext()) {
+			E item = sorted.next();
+			if(item == null)
+				throw new NullPointerException("Given iterator cannot return null items");
+			if(prev != null) {
+				int comp = prev.compareTo(item);
+				if(comp > 0)
+					throw new IllegalArgumentException("Given iterator must return items in ascending order");
+				if(comp == 0)
+					continue; //skip duplicates
+			}
+			items.add(item);
+			prev = item;
+		}
+		BST<E> tree = new BST<E>(balanced);
+		Object[] arr = items.toArray();
+		tree.buildFromSorted(arr, arr.length);
+		return tree;
+	}
+	
+	/**
+	 * Private method for the bulk constructors and fromSorted that removes duplicates
+	 * from the given sorted array and builds a perfectly balanced tree out of what is left
+	 * 
+	 * @param sorted Sorted array of elements, which is compacted in place
+	 * @param length Number of elements in the array to use
+	 * @throws NullPointerException if the array contains null elements
+	 */
+	private void buildFromSorted(Object[] sorted, int length) throws NullPointerException {
+		int n = removeDuplicates(sorted, length);
+		root = buildBalanced(sorted, 0, n - 1);
+		size = n;
+	}
+	
+	/**
+	 * Private method that removes duplicates from the given sorted array by moving
+	 * the distinct elements to the front of it
+	 * 
+	 * @param sorted Sorted array of elements, which is compacted in place
+	 * @param length Number of elements in the array to use
+	 * @return Number of distinct elements, which are now at the front of the array
+	 * @throws NullPointerException if the array contains null elements
+	 */
+	@SuppressWarnings("unchecked")
+	private int removeDuplicates(Object[] sorted, int length) throws NullPointerException {
+		int n = 0; //amount of distinct items, which are moved to the front of the array
+		for(int i = 0; i < length; i++) {
+			if(sorted[i] == null)
+				throw new NullPointerException("Given collection cannot contain null items");
+			//only keep an item if it is different from the last one kept
+			if(n == 0 || ((E) sorted[n - 1]).compareTo((E) sorted[i]) != 0)
+				sorted[n++] = sorted[i];
+		}
+		return n;
+	}
+	
+	//recursive, builds the subtree for sorted[lo..hi] and fills in its metadata bottom-up
+	@SuppressWarnings("unchecked")
+	private Node<E> buildBalanced(Object[] sorted, int lo, int hi) {
+		if(lo > hi) //base case: empty range
+			return null;
+		
+		int mid = (lo + hi) >>> 1; //middle item becomes the root of the subtree
+		Node<E> n = new Node<E>((E) sorted[mid], buildBalanced(sorted, lo, mid - 1), buildBalanced(sorted, mid + 1, hi));
+		updateHeight(n);
+		updateNodeSize(n);
+		return n;
+	}
+	
+	/**
+	 * Adds the specified element to this set if it is not already present.
+	 * More formally, adds the specified element e to this tree if the set contains
+	 * no element e2 such that Objects.equals(e, e2). If this set already contains
+	 * the element, the call leaves the set unchanged and returns false.
+	 * 
+	 * @param e element to be added to this set
+	 * @return true if this set did not already contain the specified element
+	 * @throws NullPointerException if the specified element is null and this set uses
+	 * 		natural ordering, or its comparator does not permit null elements
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public boolean add(E e) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(e == null)
+			throw new NullPointerException("Cannot input null element");
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		//walk down to the empty spot where the item belongs, remembering the path
+		int depth = 0;
+		Node<E> curRoot = root;
+		try {
+			while(curRoot != null) {
+				int comp = e.compareTo(curRoot.data);
+				if(comp == 0) { //the item is a duplicate
+					clearPath(depth);
+					if(m != null)
+						m.record(BSTMetrics.Operation.ADD, start, depth + 1, depth + 1);
+					return false;
+				}
+				pushPath(depth++, curRoot, comp < 0);
+				curRoot = (comp < 0) ? curRoot.left : curRoot.right; //left node if smaller, right node if bigger
+			}
+		} catch(RuntimeException | Error ex) { //compareTo threw, so let go of the nodes passed so far
+			clearPath(depth);
+			throw ex;
+		}
+		
+		addLeaf(depth, e);
+		if(m != null)
+			m.record(BSTMetrics.Operation.ADD, start, depth, depth);
+		return true;
+	}
+	
+	/**
+	 * Private method that adds a new leaf holding the given element below the last node of
+	 * the path buffer, where the search for it fell off the tree, and updates its ancestors.
+	 * 
+	 * @param depth Number of nodes in the path, zero if the tree is empty
+	 * @param e Element to add
+	 */
+	private void addLeaf(int depth, E e) {
+		size++;
+		modCount++;
+		Node<E> leaf = new Node<E>(e);
+		updateAggregate(leaf);
+		if(depth == 0) //if this is the first node to be added
+			root = leaf; //make the root the first item
+		else
+			rebuildPath(depth, leaf); //link in the new leaf and update its ancestors
+	}
+	
+	/**
+	 * Private method that records a node in the path buffer, growing
+	 * the buffer if the tree is deeper than it can hold
+	 * 
+	 * @param depth Position of the node in the path
+	 * @param n Node to record
+	 * @param left True if the path continues to the node's left child
+	 */
+	private void pushPath(int depth, Node<E> n, boolean left) {
+		if(depth == path.length) {
+			path = Arrays.copyOf(path, depth * 2);
+			wentLeft = Arrays.copyOf(wentLeft, depth * 2);
+		}
+		path[depth] = n;
+		wentLeft[depth] = left;
+	}
+	
+	/**
+	 * Private method that creates an array of nodes, which can't be done
+	 * directly because Node is a generic class
+	 * 
+	 * @param length Length of the array
+	 * @return New array of the given length
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<E>[] newNodeArray(int length) {
+		return (Node<E>[]) new Node<?>[length];
+	}
+	
+	/**
+	 * Private method that empties the first depth entries of the path
+	 * buffer so it doesn't keep removed nodes from being collected
+	 * 
+	 * @param depth Number of entries to clear
+	 */
+	private void clearPath(int depth) {
+		Arrays.fill(path, 0, depth, null);
+	}
+	
+	/**
+	 * Private method that links the given subtree in below the last node of the path
+	 * buffer, in place of the child the path went to, then walks back up the path to the
+	 * root updating each node's metadata (and rotating it if the tree is balanced).
+	 * In a persistent tree, each node on the path is copied first. Clears the path
+	 * buffer on the way.
+	 * 
+	 * @param depth Number of nodes in the path
+	 * @param child New subtree to link in, may be null
+	 */
+	private void rebuildPath(int depth, Node<E> child) {
+		for(int i = depth - 1; i >= 0; i--) {
+			Node<E> n = own(path[i]);
+			path[i] = null;
+			if(wentLeft[i]) {
+				n.left = child;
+			} else {
+				n.right = child;
+			}
+			updateHeight(n);
+			updateNodeSize(n);
+			
+			//the (possibly rotated) subtree becomes the child of the next node up
+			child = balanced ? rebalance(n) : n;
+		}
+		root = child;
+	}
+	
+	/**
+	 * Private method that returns a node that can be changed: in a persistent tree a copy
+	 * of the given node, since the node itself may be shared with a snapshot, and
+	 * otherwise the node itself
+	 * 
+	 * @param n Node that is about to be changed
+	 * @return Node to change in its place
+	 */
+	private Node<E> own(Node<E> n) {
+		if(!persistent)
+			return n;
+		Node<E> copy = new Node<E>(n.data, n.left, n.right);
+		copy.height = n.height;
+		copy.size = n.size;
+		copy.aggregate = n.aggregate;
+		return copy;
+	}
+	
+	/**
+	 * Private method that throws if this tree is a snapshot
+	 * 
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	private void checkWritable() throws UnsupportedOperationException {
+		if(readOnly)
+			throw new UnsupportedOperationException("Snapshots cannot be changed");
+	}
+	
+	
+	/**
+	 * Returns the element at the specified position in this tree. The order of the indexed
+	 * elements is the same as provided by this tree's iterator. The indexing is zero based
+	 * (i.e., the smallest element in this tree is at index 0 and the largest one is at
+	 * index size()-1).
+	 * 
+	 * @param index Index of the element to return
+	 * @return Element at given index
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public E get(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= size) //range check 
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 1;
+		Node<E> curRoot = root;
+		int leftSize = sizeOf(curRoot.left);
+		while(index != leftSize) { //stop when the index matches
+			if(index < leftSize) { //if index is less, move left
+				curRoot = curRoot.left;
+			} else { //otherwise, we know the item is at index - left size - 1 of the right subtree
+				index -= leftSize + 1;
+				curRoot = curRoot.right;
+			}
+			leftSize = sizeOf(curRoot.left);
+			visited++;
+		}
+		if(m != null) //no comparisons, since get(int) goes by the subtree sizes
+			m.record(BSTMetrics.Operation.GET, start, visited, 0);
+		return curRoot.data;
+	}
+	
+	/**
+	 * Removes the element at the specified position in this tree, using the same indexing
+	 * as get(int). This operation is O(H).
+	 * 
+	 * @param index Index of the element to remove
+	 * @return Element that was removed
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public E removeAt(int index) throws IndexOutOfBoundsException, UnsupportedOperationException {
+		checkWritable();
+		if(index < 0 || index >= size) //range check 
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		//walk down like get(int) does, remembering the path
+		int depth = 0;
+		Node<E> curRoot = root;
+		int leftSize = sizeOf(curRoot.left);
+		while(index != leftSize) {
+			if(index < leftSize) {
+				pushPath(depth++, curRoot, true);
+				curRoot = curRoot.left;
+			} else {
+				index -= leftSize + 1;
+				pushPath(depth++, curRoot, false);
+				curRoot = curRoot.right;
+			}
+			leftSize = sizeOf(curRoot.left);
+		}
+		E removed = curRoot.data; //saved first, since removing may overwrite the node's data
+		removeNode(depth, curRoot);
+		if(m != null) //no comparisons, since removeAt goes by the subtree sizes
+			m.record(BSTMetrics.Operation.REMOVE, start, depth + 1, 0);
+		return removed;
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree, using the same indexing as
+	 * get(int), if it is contained in the tree; otherwise, (-(insertion point) - 1). The
+	 * insertion point is the index the element would have if it were added to the tree.
+	 * This operation is O(H).
+	 * 
+	 * @param e Element to look for
+	 * @return Index of the element, or (-(insertion point) - 1) if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int rank(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 0;
+		int count = 0; //amount of elements known to be less than e
+		int rank = -1; //stays negative unless e is found
+		Node<E> curRoot = root;
+		while(curRoot != null) {
+			visited++;
+			int comp = e.compareTo(curRoot.data);
+			if(comp == 0) { //found it, everything in its left subtree comes before it
+				rank = count + sizeOf(curRoot.left);
+				break;
+			}
+			if(comp > 0) {
+				//this node and its whole left subtree are less than e
+				count += sizeOf(curRoot.left) + 1;
+				curRoot = curRoot.right;
+			} else {
+				curRoot = curRoot.left;
+			}
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.RANK, start, visited, visited);
+		return (rank >= 0) ? rank : -count - 1;
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree, using the same indexing
+	 * as get(int), or -1 if this tree does not contain the element. This operation is O(H).
+	 * 
+	 * @param e Element to look for
+	 * @return Index of the element, or -1 if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int indexOf(E e) throws NullPointerException {
+		int rank = rank(e);
+		if(rank < 0)
+			return -1;
+		return rank;
+	}
+	
+	/**
+	 * Returns the number of elements in this tree that are strictly less than
+	 * the specified element. This operation is O(H).
+	 * 
+	 * @param e Element to compare
+	 * @return Number of elements less than e
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int countLess(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int[] visited = (m != null) ? new int[1] : null;
+		int count = countBelow(e, false, visited);
+		if(m != null)
+			m.record(BSTMetrics.Operation.RANK, start, visited[0], visited[0]);
+		return count;
+	}
+	
+	/**
+	 * Returns the number of elements in this tree that range from fromElement to toElement.
+	 * Each bound is included in the range if its inclusive flag is true. This operation is
+	 * O(H), no matter how many elements are in the range.
+	 * 
+	 * @param fromElement Lower bound of range
+	 * @param fromInclusive true if the lower bound is part of the range
+	 * @param toElement Higher bound of range
+	 * @param toInclusive true if the higher bound is part of the range
+	 * @return Number of elements in the range
+	 * @throws NullPointerException if either fromElement or toElement are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public int countRange(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) throws NullPointerException, IllegalArgumentException {
+		//null check
+		if(fromElement == null || toElement == null)
+			throw new NullPointerException("fromElement and toElement cannot be null");
+		if(fromElement.compareTo(toElement) > 0)
+			throw new IllegalArgumentException("fromElement cannot be larger than toElement");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		//everything up to the higher bound, minus everything before the lower bound
+		int[] visited = (m != null) ? new int[1] : null;
+		int count = countBelow(toElement, toInclusive, visited) - countBelow(fromElement, !fromInclusive, visited);
+		if(m != null) //both descents, plus the comparison of the bounds
+			m.record(BSTMetrics.Operation.RANK, start, visited[0], visited[0] + 1);
+		return Math.max(count, 0); //an empty range such as (e, e) would otherwise come out as -1
+	}
+	
+	/**
+	 * Private method that counts the elements in this tree that are less than
+	 * (or equal to, if inclusive is true) the given element, using the subtree sizes
+	 * 
+	 * @param e Element to compare
+	 * @param inclusive True if elements equal to e should be counted
+	 * @param visited Array whose first entry the number of nodes visited is added to, or null
+	 * @return Number of elements below e
+	 */
+	private int countBelow(E e, boolean inclusive, int[] visited) {
+		int count = 0;
+		Node<E> curRoot = root;
+		while(curRoot != null) {
+			if(visited != null)
+				visited[0]++;
+			int comp = e.compareTo(curRoot.data);
+			if(comp == 0) { //found it, so its left subtree is all that's left to count
+				count += sizeOf(curRoot.left);
+				if(inclusive)
+					count++;
+				return count;
+			}
+			if(comp > 0) {
+				//this node and its whole left subtree are less than e
+				count += sizeOf(curRoot.left) + 1;
+				curRoot = curRoot.right;
+			} else {
+				curRoot = curRoot.left;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Private method to maintain nodes' subtrees' size records
+	 * Updates given nodes' sizes by summing the sizes of their
+	 * children and adding 1 (because it's inclusive), along with
+	 * their summaries if the tree is augmented
+	 * 
+	 * @param n Node to update
+	 */
+	private void updateNodeSize(Node<E> n) {
+		if(n.left == null && n.right == null)
+			n.size = 1; //base case: if no children, zero size
+		
+		int s = 0; //helper var 
+		if(n.left != null)
+			s += n.left.size; //if a left node exists, add its size to s
+		if(n.right != null)
+			s += n.right.size; //if a right node exists, add its size to s
+		
+		n.size = s + 1; //size is sum of left and right sizes plus one
+		updateAggregate(n);
+	}
+	
+	/**
+	 * Private method that recomputes the summary of the given node's subtree from its
+	 * element and its children's summaries, if this tree is augmented
+	 * 
+	 * @param n Node to update
+	 */
+	private void updateAggregate(Node<E> n) {
+		Aggregator<? super E, Object> a = aggregator;
+		if(a == null)
+			return;
+		Object summary = a.lift(n.data);
+		if(n.left != null)
+			summary = a.combine(n.left.aggregate, summary);
+		if(n.right != null)
+			summary = a.combine(summary, n.right.aggregate);
+		n.aggregate = summary;
+	}
+	
+	/**
+	 * Adds all of the elements in the specified collection to this tree.
+	 * 
+	 * @param collection to be added
+	 * @return true if this set changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null or
+	 * 		if any element of the collection is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public boolean addAll(Collection<? extends E> collection) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		boolean changed = false;
+		for(E item : collection) {
+			changed |= add(item);
+		}
+		return changed;
+	}
+	
+	/**
+	 * Adds all of the elements in the specified collection to this tree, spreading the work
+	 * over the common ForkJoinPool. The elements are sorted with Arrays.parallelSort, and
+	 * duplicates and elements already in this tree are dropped, so if none are new the tree
+	 * and its live iterators are left untouched. A perfectly balanced subtree is then built
+	 * out of the rest in parallel and merged into this tree. In a balanced tree the merge is
+	 * the join-based union of addAll(BST), whose halves run in parallel as well; without
+	 * balancing both trees are merged in O(n + m) time. For large collections this is much faster than
+	 * addAll(Collection), which adds the elements one at a time on the calling thread.
+	 * 
+	 * @param collection to be added
+	 * @return true if this set changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null or
+	 * 		if any element of the collection is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean parallelAddAll(Collection<? extends E> collection) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(collection == null) //null check
+			throw new NullPointerException("Given collection cannot be null");
+		Object[] sorted = collection.toArray();
+		if(sorted.length == 0)
+			return false;
+		//null check before sorting, since the comparator can't tell which item was null
+		if(Arrays.stream(sorted).parallel().anyMatch(Objects::isNull))
+			throw new NullPointerException("Given collection cannot contain null items");
+		
+		Arrays.parallelSort(sorted, (a, b) -> ((E) a).compareTo((E) b));
+		int n = removeDuplicates(sorted, sorted.length);
+		//drop what the tree already has, so it is left untouched if nothing is new
+		Object[] missing = Arrays.stream(sorted, 0, n).parallel().filter(e -> !has((E) e)).toArray();
+		if(missing.length == 0)
+			return false;
+		Node<E> added = ForkJoinPool.commonPool().invoke(new BuildTask(missing, 0, missing.length - 1));
+		
+		if(root == null) {
+			root = added;
+		} else if(balanced) {
+			root = ForkJoinPool.commonPool().invoke(new UnionTask(root, added));
+		} else {
+			root = merge(toArray(), missing, UNION);
+		}
+		size += missing.length;
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Private method that returns true if the tree has the given element, without recording
+	 * metrics, so that it can be called from many threads at once
+	 * 
+	 * @param e Element to look for
+	 * @return true if the tree has it
+	 */
+	private boolean has(E e) {
+		Node<E> curRoot = root;
+		while(curRoot != null) {
+			int comp = curRoot.data.compareTo(e);
+			if(comp == 0)
+				return true;
+			curRoot = (comp < 0) ? curRoot.right : curRoot.left;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns true if this set contains the specified element.
+	 * More formally, returns true if and only if this set contains
+	 * an element e such that Objects.equals(o, e).
+	 * 
+	 * @param o Object to look for
+	 * @return true if the tree already contains the object
+	 * @throws ClassCastException if the specified object cannot be compared
+	 * 		with the elements currently in the set
+	 * @throws NullPointerException if the specified element is null and this
+	 * 		set uses natural ordering, or its comparator does not permit null elements
+	 */
+	public boolean contains(Object o) throws ClassCastException, NullPointerException {
+		//null check
+		if(o == null)
+			throw new NullPointerException("Given item cannot be null");
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 0;
+		boolean found = false;
+		Node<E> curRoot = root;
+		while(curRoot != null) {
+			visited++;
+			@SuppressWarnings("unchecked")
+			int comp = curRoot.data.compareTo((E) o); //one comparison per node
+			if(comp == 0) { //if we find the element
+				found = true;
+				break;
+			}
+			curRoot = (comp < 0) ? curRoot.right : curRoot.left; //keep looking down
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.CONTAINS, start, visited, visited);
+		return found; //if we fell off the tree, it isn't here
+	}
+	
+	/**
+	 * Returns true if this collection contains all of the elements in the specified
+	 * collection. This implementation iterates over the specified collection, checking each
+	 * element returned by the iterator in turn to see if it's contained in this tree. If all
+	 * elements are so contained true is returned, otherwise false.
+	 * 
+	 * @param c Collection to compare
+	 * @return true if this tree contains all of the elements in the specified collection
+	 * @throws NullPointerException if the specified collection contains one or more null elements
+	 * 		and this collection does not permit null elements, or if the specified collection is null.
+	 */
+	public boolean containsAll(Collection<?> c) throws NullPointerException {
+		if(c == null) //null check
+			throw new NullPointerException("Given collection cannot be null");
+		
+		for(Object item : c) { //iterate through each item in given array
+			if(item == null) //null check each item
+				throw new NullPointerException("Given collection cannot contain null items");
+			if(contains(item) == false) //check for containment
+				return false; //if any of them are not contained, return false
+		}
+		return true; //otherwise, return true is reached
+	}
+	
+	/**
+	 * Removes all of the elements from this set. The set will be empty
+	 * after this call returns.
+	 * 
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public void clear() throws UnsupportedOperationException {
+		checkWritable();
+		size = 0;
+		root = null;
+		modCount++;
+	}
+	
+	/**
+	 * Returns an immutable snapshot of this tree in O(1). The snapshot shares its nodes with
+	 * this tree, which never changes them again since it is persistent, so the snapshot keeps
+	 * its contents no matter how this tree changes afterwards. It supports every query this
+	 * tree does, including iteration, get(int) and getRange, and can be read from any number
+	 * of threads without locking once it has been handed to them (for example through a lock
+	 * or a volatile field), even while this tree keeps changing. Nodes that are no longer in
+	 * this tree are collected as soon as no snapshot refers to them anymore.
+	 * 
+	 * @return an immutable snapshot of this tree, whose changing methods throw
+	 * 		UnsupportedOperationException
+	 * @throws IllegalStateException if this tree is not persistent
+	 */
+	public BST<E> snapshot() throws IllegalStateException {
+		if(!persistent)
+			throw new IllegalStateException("Only persistent trees can take snapshots");
+		if(readOnly) //a snapshot can't change, so it is its own snapshot
+			return this;
+		return new BST<E>(this, true);
+	}
+	
+	/**
+	 * Splits this tree at the given element: every element greater than or equal to e is
+	 * removed from this tree and returned in a new tree with the same settings, and the
+	 * elements less than e stay in this tree. This operation is O(H), and a balanced tree
+	 * stays balanced on both sides of the split.
+	 * 
+	 * @param e Element to split at
+	 * @return a new tree holding the elements of this tree that are greater than or equal to e
+	 * @throws NullPointerException if the specified element is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public BST<E> split(E e) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		Node<E>[] parts = newNodeArray(3);
+		split(root, e, parts);
+		BST<E> result = new BST<E>(balanced, persistent);
+		result.aggregator = aggregator;
+		root = parts[0];
+		size = sizeOf(root);
+		modCount++;
+		//an element equal to e belongs on the right side, where it is the smallest
+		result.root = (parts[1] == null) ? parts[2] : join(null, own(parts[1]), parts[2]);
+		result.size = sizeOf(result.root);
+		return result;
+	}
+	
+	/**
+	 * Private method that splits the given subtree at e into the nodes less than e
+	 * (parts[0]), the node equal to e if there is one (parts[1], whose children are
+	 * stale) and the nodes greater than e (parts[2])
+	 * 
+	 * @param n Root of the subtree to split
+	 * @param e Element to split at
+	 * @param parts Array of length three that receives the results
+	 */
+	private void split(Node<E> n, E e, Node<E>[] parts) {
+		if(balanced) {
+			splitBalanced(n, e, parts);
+			return;
+		}
+		
+		//without balancing there is no height bound to recurse on, so walk down once,
+		//hanging each node on the right edge of the left part or the left edge of the
+		//right part, and remember the nodes so their metadata can be fixed bottom-up
+		Node<E> leftRoot = null, leftEdge = null;
+		Node<E> rightRoot = null, rightEdge = null;
+		Node<E> found = null;
+		int depth = 0;
+		while(n != null) {
+			int comp = e.compareTo(n.data);
+			if(comp == 0) {
+				found = n;
+				break;
+			}
+			n = own(n);
+			pushPath(depth++, n, comp < 0);
+			if(comp > 0) { //n is less than e, so it goes left and we continue in its right subtree
+				if(leftEdge == null)
+					leftRoot = n;
+				else
+					leftEdge.right = n;
+				leftEdge = n;
+				n = n.right;
+			} else { //n is greater than e, so it goes right and we continue in its left subtree
+				if(rightEdge == null)
+					rightRoot = n;
+				else
+					rightEdge.left = n;
+				rightEdge = n;
+				n = n.left;
+			}
+		}
+		
+		//whatever is left below the split point closes off both edges
+		Node<E> leftRest = (found == null) ? n : found.left;
+		Node<E> rightRest = (found == null) ? n : found.right;
+		if(leftEdge == null)
+			leftRoot = leftRest;
+		else
+			leftEdge.right = leftRest;
+		if(rightEdge == null)
+			rightRoot = rightRest;
+		else
+			rightEdge.left = rightRest;
+		
+		for(int i = depth - 1; i >= 0; i--) { //each node's children are final by the time we reach it
+			updateHeight(path[i]);
+			updateNodeSize(path[i]);
+			path[i] = null;
+		}
+		parts[0] = leftRoot;
+		parts[1] = found;
+		parts[2] = rightRoot;
+	}
+	
+	//recursive, splits an AVL balanced subtree, joining the pieces back up on the way out
+	private void splitBalanced(Node<E> n, E e, Node<E>[] parts) {
+		if(n == null) { //base case: nothing to split
+			parts[0] = parts[1] = parts[2] = null;
+			return;
+		}
+		
+		int comp = e.compareTo(n.data);
+		if(comp == 0) {
+			parts[0] = n.left;
+			parts[1] = n;
+			parts[2] = n.right;
+		} else if(comp < 0) { //n and its right subtree go right
+			Node<E> right = n.right;
+			splitBalanced(n.left, e, parts);
+			parts[2] = join(parts[2], own(n), right);
+		} else { //n and its left subtree go left
+			Node<E> left = n.left;
+			splitBalanced(n.right, e, parts);
+			parts[0] = join(left, own(n), parts[0]);
+		}
+	}
+	
+	/**
+	 * Joins two trees and a pivot element into a new tree in O(H), given that every element
+	 * of left is less than the pivot and every element of right is greater than it. Both
+	 * trees are left empty, and must have the same balancing and persistence settings and
+	 * the same aggregator, which the new tree gets as well. A balanced result is balanced as well.
+	 * 
+	 * @param <E> Type of the elements
+	 * @param left Tree of elements less than the pivot
+	 * @param pivot Element between the two trees
+	 * @param right Tree of elements greater than the pivot
+	 * @return a new tree holding the elements of both trees and the pivot
+	 * @throws NullPointerException if either tree or the pivot is null
+	 * @throws IllegalArgumentException if the trees are the same tree, have different
+	 * 		settings, or are not ordered around the pivot
+	 * @throws UnsupportedOperationException if either tree is a snapshot
+	 */
+	public static <E extends Comparable<E>> BST<E> join(BST<E> left, E pivot, BST<E> right) throws NullPointerException, IllegalArgumentException, UnsupportedOperationException {
+		if(left == null || right == null) //null check
+			throw new NullPointerException("Given trees cannot be null");
+		if(pivot == null)
+			throw new NullPointerException("Given element cannot be null");
+		left.checkWritable();
+		right.checkWritable();
+		if(left == right)
+			throw new IllegalArgumentException("Cannot join a tree with itself");
+		if(left.balanced != right.balanced || left.persistent != right.persistent || left.aggregator != right.aggregator)
+			throw new IllegalArgumentException("Given trees must have the same settings");
+		if((!left.isEmpty() && left.last().compareTo(pivot) >= 0) || (!right.isEmpty() && pivot.compareTo(right.first()) >= 0))
+			throw new IllegalArgumentException("Every element of left must be less than pivot, and pivot less than every element of right");
+		
+		BST<E> result = new BST<E>(left.balanced, left.persistent);
+		result.aggregator = left.aggregator;
+		result.root = result.join(left.root, new Node<E>(pivot), right.root);
+		result.size = left.size + right.size + 1;
+		left.root = null;
+		left.size = 0;
+		left.modCount++;
+		right.root = null;
+		right.size = 0;
+		right.modCount++;
+		return result;
+	}
+	
+	/**
+	 * Private method that joins the subtree l, the single node k and the subtree r, whose
+	 * elements must be in that order. In a balanced tree, if one side is more than one
+	 * level taller, k is joined in along the inner edge of the taller side, rebalancing
+	 * on the way back up; otherwise k simply becomes the root.
+	 * 
+	 * @param l Subtree of smaller elements, may be null
+	 * @param k Node to join, which must be one that can be changed
+	 * @param r Subtree of larger elements, may be null
+	 * @return Root of the joined subtree
+	 */
+	private Node<E> join(Node<E> l, Node<E> k, Node<E> r) {
+		if(balanced) {
+			if(heightOf(l) > heightOf(r) + 1) { //recursive, down the right edge of l
+				Node<E> n = own(l);
+				n.right = join(n.right, k, r);
+				updateHeight(n);
+				updateNodeSize(n);
+				return rebalance(n);
+			}
+			if(heightOf(r) > heightOf(l) + 1) { //recursive, down the left edge of r
+				Node<E> n = own(r);
+				n.left = join(l, k, n.left);
+				updateHeight(n);
+				updateNodeSize(n);
+				return rebalance(n);
+			}
+		}
+		k.left = l;
+		k.right = r;
+		updateHeight(k);
+		updateNodeSize(k);
+		return k;
+	}
+	
+	/**
+	 * Private method that joins two AVL balanced subtrees, every element of l being less
+	 * than every element of r, by taking the last node of l out to use as the pivot
+	 * 
+	 * @param l Subtree of smaller elements, may be null
+	 * @param r Subtree of larger elements, may be null
+	 * @param scratch Array whose first entry can be used to hand back the last node
+	 * @return Root of the joined subtree
+	 */
+	private Node<E> join(Node<E> l, Node<E> r, Node<E>[] scratch) {
+		if(l == null)
+			return r;
+		if(r == null)
+			return l;
+		Node<E> rest = removeLast(l, scratch);
+		return join(rest, own(scratch[0]), r);
+	}
+	
+	//recursive, removes the last node of an AVL balanced subtree, which is put in last[0]
+	private Node<E> removeLast(Node<E> n, Node<E>[] last) {
+		if(n.right == null) { //base case: this is the last node
+			last[0] = n;
+			return n.left;
+		}
+		Node<E> o = own(n);
+		o.right = removeLast(n.right, last);
+		updateHeight(o);
+		updateNodeSize(o);
+		return rebalance(o);
+	}
+	
+	/**
+	 * Adds every element of the specified tree to this tree, leaving the other tree unchanged.
+	 * In a balanced tree this splits this tree at each element of the smaller other tree's
+	 * root and joins the results back together, which takes O(m log(n/m + 1)) time for a tree
+	 * of m elements, instead of O(m log n) for adding them one by one. Without balancing,
+	 * where there is no height bound, both trees are merged in O(n + m) time instead, which
+	 * also leaves this tree perfectly balanced.
+	 * 
+	 * @param other Tree whose elements are added
+	 * @return true if this tree changed as a result of the call
+	 * @throws NullPointerException if the specified tree is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public boolean addAll(BST<E> other) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(other == null) //null check
+			throw new NullPointerException("Given tree cannot be null");
+		if(other == this || other.root == null)
+			return false;
+		
+		int oldSize = size;
+		if(balanced) {
+			//nodes of the other tree can only be shared if neither tree will change them,
+			//and if they hold the summaries this tree keeps
+			boolean share = persistent && other.persistent && other.aggregator == aggregator;
+			Node<E> otherRoot = other.root;
+			if(!other.balanced) { //recursing over an unbalanced tree could go arbitrarily deep
+				otherRoot = buildBalanced(other.toArray(), 0, other.size - 1);
+				share = true; //these nodes are our own
+			}
+			root = union(root, otherRoot, share, newNodeArray(3));
+		} else {
+			root = merge(toArray(), other.toArray(), UNION);
+		}
+		size = sizeOf(root);
+		modCount++;
+		return size != oldSize;
+	}
+	
+	//recursive, t1 belongs to this tree and may be taken apart, t2 is only read;
+	//parts is scratch space for the splits, which is free again once they are read
+	private Node<E> union(Node<E> t1, Node<E> t2, boolean share, Node<E>[] parts) {
+		if(t2 == null)
+			return t1;
+		if(t1 == null)
+			return share ? t2 : copyOf(t2);
+		
+		splitBalanced(t1, t2.data, parts);
+		Node<E> found = parts[1];
+		Node<E> right = parts[2];
+		Node<E> l = union(parts[0], t2.left, share, parts);
+		Node<E> r = union(right, t2.right, share, parts);
+		//keep our own node for an element both trees have
+		return join(l, (found != null) ? own(found) : new Node<E>(t2.data), r);
+	}
+	
+	//recursive, copies an AVL balanced subtree of another tree
+	private Node<E> copyOf(Node<E> n) {
+		if(n == null) //base case: empty subtree
+			return null;
+		
+		Node<E> copy = new Node<E>(n.data, copyOf(n.left), copyOf(n.right));
+		copy.height = n.height;
+		copy.size = n.size;
+		updateAggregate(copy); //the other tree may keep different summaries, or none
+		return copy;
+	}
+	
+	/**
+	 * Removes from this tree every element that is not in the specified tree, leaving the
+	 * other tree unchanged. Like addAll(BST), this takes O(m log(n/m + 1)) time in a balanced
+	 * tree, and O(n + m) time otherwise.
+	 * 
+	 * @param other Tree whose elements are kept
+	 * @return true if this tree changed as a result of the call
+	 * @throws NullPointerException if the specified tree is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public boolean retainAll(BST<E> other) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(other == null) //null check
+			throw new NullPointerException("Given tree cannot be null");
+		if(other == this)
+			return false;
+		
+		int oldSize = size;
+		if(balanced) {
+			Node<E> otherRoot = other.balanced ? other.root : buildBalanced(other.toArray(), 0, other.size - 1);
+			root = intersection(root, otherRoot, newNodeArray(3));
+		} else {
+			root = merge(toArray(), other.toArray(), INTERSECTION);
+		}
+		size = sizeOf(root);
+		modCount++;
+		return size != oldSize;
+	}
+	
+	//recursive, t1 belongs to this tree and may be taken apart, t2 is only read;
+	//parts is scratch space for the splits, which is free again once they are read
+	private Node<E> intersection(Node<E> t1, Node<E> t2, Node<E>[] parts) {
+		if(t1 == null || t2 == null)
+			return null;
+		
+		splitBalanced(t1, t2.data, parts);
+		Node<E> found = parts[1];
+		Node<E> right = parts[2];
+		Node<E> l = intersection(parts[0], t2.left, parts);
+		Node<E> r = intersection(right, t2.right, parts);
+		return (found != null) ? join(l, own(found), r) : join(l, r, parts);
+	}
+	
+	/**
+	 * Removes from this tree every element that is in the specified tree, leaving the
+	 * other tree unchanged. Like addAll(BST), this takes O(m log(n/m + 1)) time in a balanced
+	 * tree, and O(n + m) time otherwise.
+	 * 
+	 * @param other Tree whose elements are removed
+	 * @return true if this tree changed as a result of the call
+	 * @throws NullPointerException if the specified tree is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public boolean removeAll(BST<E> other) throws NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(other == null) //null check
+			throw new NullPointerException("Given tree cannot be null");
+		if(other.root == null)
+			return false;
+		
+		int oldSize = size;
+		if(other == this) {
+			root = null;
+		} else if(balanced) {
+			Node<E> otherRoot = other.balanced ? other.root : buildBalanced(other.toArray(), 0, other.size - 1);
+			root = difference(root, otherRoot, newNodeArray(3));
+		} else {
+			root = merge(toArray(), other.toArray(), DIFFERENCE);
+		}
+		size = sizeOf(root);
+		modCount++;
+		return size != oldSize;
+	}
+	
+	//recursive, t1 belongs to this tree and may be taken apart, t2 is only read;
+	//parts is scratch space for the splits, which is free again once they are read
+	private Node<E> difference(Node<E> t1, Node<E> t2, Node<E>[] parts) {
+		if(t1 == null || t2 == null)
+			return t1;
+		
+		splitBalanced(t1, t2.data, parts);
+		Node<E> right = parts[2];
+		Node<E> l = difference(parts[0], t2.left, parts);
+		Node<E> r = difference(right, t2.right, parts);
+		return join(l, r, parts); //the node equal to t2's root, if any, is dropped
+	}
+	
+	/**
+	 * Private method that merges two sorted arrays of distinct elements, keeping the
+	 * elements that the given set operation keeps, into a perfectly balanced subtree
+	 * 
+	 * @param a Elements of this tree, in ascending order
+	 * @param b Elements of the other tree, in ascending order
+	 * @param operation UNION, INTERSECTION or DIFFERENCE
+	 * @return Root of the new subtree
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<E> merge(Object[] a, Object[] b, int operation) {
+		Object[] merged = new Object[(operation == UNION) ? a.length + b.length : a.length];
+		int i = 0, j = 0, n = 0;
+		while(i < a.length && j < b.length) {
+			int comp = ((E) a[i]).compareTo((E) b[j]);
+			if(comp < 0) { //only in a
+				if(operation != INTERSECTION)
+					merged[n++] = a[i];
+				i++;
+			} else if(comp > 0) { //only in b
+				if(operation == UNION)
+					merged[n++] = b[j];
+				j++;
+			} else { //in both
+				if(operation != DIFFERENCE)
+					merged[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		while(i < a.length && operation != INTERSECTION) {
+			merged[n++] = a[i++];
+		}
+		while(j < b.length && operation == UNION) {
+			merged[n++] = b[j++];
+		}
+		return buildBalanced(merged, 0, n - 1);
+	}
+	
+	/**
+	 * Returns a new tree, with the same settings as this one, holding every element that is
+	 * in this tree or the specified tree. Neither tree is changed. For a persistent tree the
+	 * new tree starts out sharing this tree's nodes, so this costs the same as addAll(BST);
+	 * otherwise this tree is copied first in O(n) time.
+	 * 
+	 * @param other Tree to take the union with
+	 * @return a new tree holding the union of both trees
+	 * @throws NullPointerException if the specified tree is null
+	 */
+	public BST<E> union(BST<E> other) throws NullPointerException {
+		BST<E> result = copy();
+		result.addAll(other);
+		return result;
+	}
+	
+	/**
+	 * Returns a new tree, with the same settings as this one, holding every element that is
+	 * in both this tree and the specified tree. Neither tree is changed. For a persistent tree
+	 * this costs the same as retainAll(BST); otherwise this tree is copied first in O(n) time.
+	 * 
+	 * @param other Tree to take the intersection with
+	 * @return a new tree holding the intersection of both trees
+	 * @throws NullPointerException if the specified tree is null
+	 */
+	public BST<E> intersection(BST<E> other) throws NullPointerException {
+		BST<E> result = copy();
+		result.retainAll(other);
+		return result;
+	}
+	
+	/**
+	 * Returns a new tree, with the same settings as this one, holding every element that is
+	 * in this tree but not in the specified tree. Neither tree is changed. For a persistent tree
+	 * this costs the same as removeAll(BST); otherwise this tree is copied first in O(n) time.
+	 * 
+	 * @param other Tree whose elements are left out
+	 * @return a new tree holding the difference of both trees
+	 * @throws NullPointerException if the specified tree is null
+	 */
+	public BST<E> difference(BST<E> other) throws NullPointerException {
+		BST<E> result = copy();
+		result.removeAll(other);
+		return result;
+	}
+	
+	/**
+	 * Private method that returns a writable copy of this tree with the same settings: in
+	 * O(1) for a persistent tree, by sharing its nodes, and otherwise in O(n), as a perfectly
+	 * balanced tree built from its elements
+	 * 
+	 * @return a copy of this tree
+	 */
+	private BST<E> copy() {
+		if(persistent)
+			return new BST<E>(this, false);
+		BST<E> result = new BST<E>(balanced, false);
+		result.aggregator = aggregator;
+		result.root = buildBalanced(toArray(), 0, size - 1);
+		result.size = size;
+		return result;
+	}
+	
+	/**
+	 * Removes the specified element from this tree if it is present. More formally,
+	 * removes an element e such that Objects.equals(o, e), if this tree contains such
+	 * an element. Returns true if this tree contained the element (or equivalently, if
+	 * this tree changed as a result of the call). (This tree will not contain the
+	 * element once the call returns.)
+	 * 
+	 * @param o Object to be removed
+	 * @return true if item is removed
+	 * @throws ClassCastException if the specified object cannot be compared with the
+	 * 		elements currently in this tree
+	 * @throws NullPointerException if the specified element is null
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public boolean remove(Object o) throws ClassCastException, NullPointerException, UnsupportedOperationException {
+		checkWritable();
+		if(o == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		//walk down to the target, remembering the path
+		int depth = 0;
+		Node<E> curRoot = root;
+		try {
+			while(curRoot != null) {
+				@SuppressWarnings("unchecked")
+				int comp = curRoot.data.compareTo((E) o);
+				if(comp == 0) { //if we've found the target object
+					removeNode(depth, curRoot);
+					if(m != null)
+						m.record(BSTMetrics.Operation.REMOVE, start, depth + 1, depth + 1);
+					return true;
+				}
+				pushPath(depth++, curRoot, comp > 0);
+				curRoot = (comp > 0) ? curRoot.left : curRoot.right;
+			}
+		} catch(RuntimeException | Error ex) { //compareTo or the aggregator threw, so let go of the nodes passed so far
+			clearPath(depth);
+			throw ex;
+		}
+		clearPath(depth);
+		if(m != null)
+			m.record(BSTMetrics.Operation.REMOVE, start, depth, depth);
+		return false; //if we've fallen off the tree, the element isn't here
+	}
+	
+	/**
+	 * Private method that removes the given node from the tree. The path buffer
+	 * must hold the path from the root to the node's parent.
+	 * 
+	 * @param depth Number of nodes in the path (the depth of the target node)
+	 * @param target Node to remove
+	 */
+	private void removeNode(int depth, Node<E> target) {
+		Node<E> replacement; //subtree that takes the removed node's place
+		
+		if(target.left != null && target.right != null) {
+			//if it's a node with two children, replace the target node's data with its
+			//predecessor (the rightmost node of the left subtree) and remove the predecessor instead
+			target = own(target); //its data changes, so a persistent tree needs a copy first
+			pushPath(depth++, target, true); //go left one
+			Node<E> predecessor = target.left;
+			while(predecessor.right != null) {
+				pushPath(depth++, predecessor, false); //go right until you can't anymore
+				predecessor = predecessor.right;
+			}
+			target.data = predecessor.data;
+			replacement = predecessor.left; //the predecessor has no right child
+		} else if(target.left != null) {
+			replacement = target.left; //if it only has a left child, that child takes its place
+		} else {
+			replacement = target.right; //otherwise its right child (or null, for a leaf) does
+		}
+		
+		size--;
+		modCount++;
+		rebuildPath(depth, replacement);
+	}
+	
+	/**
+	 * Private method that restores the AVL balancing requirements at the given node,
+	 * assuming both of its subtrees are already balanced and its metadata is up to date.
+	 * Performs a single or double rotation if the heights of its subtrees differ by more
+	 * than one. The given node must be one that can be changed (see own).
+	 * 
+	 * @param n Root of the subtree to balance
+	 * @return New root of the subtree
+	 */
+	private Node<E> rebalance(Node<E> n) {
+		int balance = heightOf(n.left) - heightOf(n.right);
+		
+		if(balance > 1) { //left heavy
+			//left-right case: the left child leans right, so rotate it left first
+			if(heightOf(n.left.left) < heightOf(n.left.right))
+				n.left = rotateLeft(own(n.left));
+			return rotateRight(n);
+		}
+		if(balance < -1) { //right heavy
+			//right-left case: the right child leans left, so rotate it right first
+			if(heightOf(n.right.right) < heightOf(n.right.left))
+				n.right = rotateRight(own(n.right));
+			return rotateLeft(n);
+		}
+		return n; //already balanced
+	}
+	
+	/**
+	 * Private method that rotates the given subtree to the right, making
+	 * its left child the new root of the subtree. The given node must be
+	 * one that can be changed; its child is copied if the tree is persistent.
+	 * 
+	 * @param n Root of the subtree to rotate
+	 * @return New root of the subtree
+	 */
+	private Node<E> rotateRight(Node<E> n) {
+		Node<E> pivot = own(n.left);
+		n.left = pivot.right; //pivot's right subtree moves under n
+		pivot.right = n; //and n moves under pivot
+		
+		//n is now the child, so it has to be updated first
+		updateHeight(n);
+		updateNodeSize(n);
+		updateHeight(pivot);
+		updateNodeSize(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Private method that rotates the given subtree to the left, making
+	 * its right child the new root of the subtree. The given node must be
+	 * one that can be changed; its child is copied if the tree is persistent.
+	 * 
+	 * @param n Root of the subtree to rotate
+	 * @return New root of the subtree
+	 */
+	private Node<E> rotateLeft(Node<E> n) {
+		Node<E> pivot = own(n.right);
+		n.right = pivot.left; //pivot's left subtree moves under n
+		pivot.left = n; //and n moves under pivot
+		
+		//n is now the child, so it has to be updated first
+		updateHeight(n);
+		updateNodeSize(n);
+		updateHeight(pivot);
+		updateNodeSize(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Private method that returns the height of the given node, treating
+	 * an empty subtree as a height of zero
+	 * 
+	 * @param n Node to check
+	 * @return Height of the node, or zero if it is null
+	 */
+	private static int heightOf(Node<?> n) {
+		if(n == null)
+			return 0;
+		return n.height;
+	}
+	
+	/**
+	 * Private method that returns the size of the subtree rooted at the
+	 * given node, treating an empty subtree as a size of zero
+	 * 
+	 * @param n Node to check
+	 * @return Size of the node's subtree, or zero if it is null
+	 */
+	private static int sizeOf(Node<?> n) {
+		if(n == null)
+			return 0;
+		return n.size;
+	}
+	
+	/**
+	 * Private method that updates heights of individual nodes
+	 * 
+	 * @param n Node to be updated
+ 	 */
+	private void updateHeight(Node<E> n) {
+		//if a leaf
+		if(n.left == null && n.right == null)
+			n.height = 1;
+		
+		int heightLeft;
+		int heightRight;
+		//use helper variables to have height so we don't have to risk trying to access nulls
+		if(n.left == null) {
+			heightLeft = 0;
+		} else {
+			heightLeft = n.left.height;
+		}
+		if(n.right == null) {
+			heightRight = 0;
+		} else {
+			heightRight = n.right.height;
+		}
+		//simply set the height to the maximum child height + 1
+		n.height = Math.max(heightLeft, heightRight) + 1;
+	}
+	
+	/**
+	 * Package-private method that returns the root node of this tree, for ConcurrentBST
+	 * to run its optimistic searches on
+	 * 
+	 * @return Root node of this tree, or null if the tree is empty
+	 */
+	Node<E> rootNode() {
+		return root;
+	}
+	
+	/**
+	 * Turns on metrics for this tree: from now on add, contains, remove, removeAt, get(int),
+	 * the neighbour searches, the rank queries and the range queries count their calls,
+	 * comparisons and visited nodes and record their latency in the returned object, which
+	 * can be registered as a JMX MBean. Calling this again returns the same object. While metrics are off, each of those operations
+	 * only pays for a null check.
+	 * 
+	 * @return the metrics of this tree
+	 */
+	public BSTMetrics enableMetrics() {
+		if(metrics == null)
+			metrics = new BSTMetrics(this);
+		return metrics;
+	}
+	
+	/**
+	 * Turns off metrics for this tree. The metrics object keeps the numbers recorded so far,
+	 * and stays registered with JMX until it is unregistered.
+	 */
+	public void disableMetrics() {
+		metrics = null;
+	}
+	
+	/**
+	 * Returns the metrics of this tree, if they are turned on.
+	 * 
+	 * @return the metrics of this tree, or null if they are turned off
+	 */
+	public BSTMetrics metrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Augments this tree with the given aggregator: every node keeps the summary of its
+	 * subtree, which add, remove, the rotations and every other change to the tree keep up
+	 * to date along with the subtree sizes, so that aggregate can reduce any range of the
+	 * tree in O(H). The summaries of the current elements are computed right away, in O(n).
+	 * Passing null turns the augmentation off. Trees made from this one by split, join,
+	 * union, intersection and difference keep the same aggregator, and snapshots keep the
+	 * one this tree had when they were taken. Since a persistent tree replaces its nodes
+	 * with updated copies, live iterators, cursors and spliterators fail fast afterwards.
+	 * 
+	 * @param aggregator Aggregator whose summaries to keep, or null for none
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	@SuppressWarnings("unchecked")
+	public void augment(Aggregator<? super E, ?> aggregator) throws UnsupportedOperationException {
+		checkWritable();
+		modCount++; //the nodes may be replaced, so views of the old ones must not go on
+		this.aggregator = (Aggregator<? super E, Object>) aggregator;
+		if(aggregator != null)
+			root = reaggregate(root);
+	}
+	
+	/**
+	 * Private method that recomputes the summary of every node of the given subtree,
+	 * children first. In a persistent tree every node is copied first, since the nodes
+	 * may be shared with snapshots that keep other summaries.
+	 * 
+	 * @param n Root of the subtree
+	 * @return Root of the updated subtree
+	 */
+	private Node<E> reaggregate(Node<E> n) {
+		//postorder with a stack, since an unbalanced tree can be too deep to recurse over
+		Node<E>[] stack = newNodeArray(heightOf(n)); //nodes whose subtrees are being updated
+		Node<E>[] done = newNodeArray(heightOf(n) + 1); //updated subtrees waiting for their parent
+		int top = 0, finished = 0;
+		Node<E> curRoot = n;
+		Node<E> last = null; //last node whose subtree was updated
+		while(curRoot != null || top > 0) {
+			while(curRoot != null) { //go left as far as possible, remembering the way
+				stack[top++] = curRoot;
+				curRoot = curRoot.left;
+			}
+			Node<E> next = stack[top - 1];
+			if(next.right != null && next.right != last) { //do the right subtree first
+				curRoot = next.right;
+				continue;
+			}
+			top--;
+			//the updated children are on top of done, the right one above the left one
+			Node<E> right = (next.right != null) ? done[--finished] : null;
+			Node<E> left = (next.left != null) ? done[--finished] : null;
+			Node<E> o = own(next);
+			o.left = left;
+			o.right = right;
+			updateAggregate(o);
+			done[finished++] = o;
+			last = next;
+		}
+		return (finished == 0) ? null : done[0];
+	}
+	
+	/**
+	 * Returns the summary of the elements of this tree from fromElement, inclusive, to
+	 * toElement, inclusive, combined in ascending order, or the identity if there are none.
+	 * The tree must have been augmented with the given aggregator. Only the summaries of
+	 * the subtrees along the two paths to the ends of the range are combined, so this
+	 * operation is O(H) no matter how many elements are in the range.
+	 * 
+	 * @param <A> Type of the summaries
+	 * @param aggregator Aggregator this tree is augmented with
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @return the summary of the elements in the range
+	 * @throws NullPointerException if the aggregator, fromElement or toElement are null
+	 * @throws IllegalArgumentException if this tree is not augmented with the given
+	 * 		aggregator, or if fromElement is larger than toElement
+	 */
+	@SuppressWarnings("unchecked")
+	public <A> A aggregate(Aggregator<? super E, A> aggregator, E fromElement, E toElement) throws NullPointerException, IllegalArgumentException {
+		checkAggregator(aggregator);
+		//null check
+		if(fromElement == null || toElement == null)
+			throw new NullPointerException("fromElement and toElement cannot be null");
+		if(fromElement.compareTo(toElement) > 0)
+			throw new IllegalArgumentException("fromElement cannot be larger than toElement");
+		
+		//find the highest node in the range, where the paths to its two ends split
+		Node<E> split = root;
+		while(split != null) {
+			if(split.data.compareTo(fromElement) < 0)
+				split = split.right;
+			else if(split.data.compareTo(toElement) > 0)
+				split = split.left;
+			else
+				break;
+		}
+		if(split == null) //nothing in the range
+			return aggregator.identity();
+		
+		//left of the split, every node at or above fromElement is in the range along with
+		//its right subtree, and comes before everything collected so far
+		A lower = aggregator.identity();
+		Node<E> curRoot = split.left;
+		while(curRoot != null) {
+			if(curRoot.data.compareTo(fromElement) >= 0) {
+				A part = aggregator.lift(curRoot.data);
+				if(curRoot.right != null)
+					part = aggregator.combine(part, (A) curRoot.right.aggregate);
+				lower = aggregator.combine(part, lower);
+				curRoot = curRoot.left;
+			} else {
+				curRoot = curRoot.right;
+			}
+		}
+		
+		//right of the split, every node at or below toElement is in the range along with
+		//its left subtree, and comes after everything collected so far
+		A upper = aggregator.identity();
+		curRoot = split.right;
+		while(curRoot != null) {
+			if(curRoot.data.compareTo(toElement) <= 0) {
+				A part = aggregator.lift(curRoot.data);
+				if(curRoot.left != null)
+					part = aggregator.combine((A) curRoot.left.aggregate, part);
+				upper = aggregator.combine(upper, part);
+				curRoot = curRoot.right;
+			} else {
+				curRoot = curRoot.left;
+			}
+		}
+		return aggregator.combine(aggregator.combine(lower, aggregator.lift(split.data)), upper);
+	}
+	
+	/**
+	 * Returns the summary of every element of this tree, combined in ascending order, or
+	 * the identity if the tree is empty. The tree must have been augmented with the given
+	 * aggregator. This operation is O(1).
+	 * 
+	 * @param <A> Type of the summaries
+	 * @param aggregator Aggregator this tree is augmented with
+	 * @return the summary of the whole tree
+	 * @throws NullPointerException if the aggregator is null
+	 * @throws IllegalArgumentException if this tree is not augmented with the given aggregator
+	 */
+	@SuppressWarnings("unchecked")
+	public <A> A aggregate(Aggregator<? super E, A> aggregator) throws NullPointerException, IllegalArgumentException {
+		checkAggregator(aggregator);
+		return (root == null) ? aggregator.identity() : (A) root.aggregate;
+	}
+	
+	/**
+	 * Private method that checks that the aggregate queries were given the aggregator
+	 * this tree is augmented with
+	 * 
+	 * @param aggregator Aggregator that was given
+	 * @throws NullPointerException if the aggregator is null
+	 * @throws IllegalArgumentException if this tree is not augmented with it
+	 */
+	private void checkAggregator(Aggregator<?, ?> aggregator) throws NullPointerException, IllegalArgumentException {
+		if(aggregator == null) //null check
+			throw new NullPointerException("Given aggregator cannot be null");
+		if(aggregator != this.aggregator)
+			throw new IllegalArgumentException("Tree is not augmented with the given aggregator");
+	}
+	
+	/**
+	 * Writes every element of this tree to the given stream in ascending order, so that
+	 * readFrom can load the tree again. The format is a header with the tree's settings and
+	 * size, the elements as written by the codec, and a CRC32 checksum of everything before
+	 * it. Output is buffered, and the stream is flushed but not closed.
+	 * 
+	 * @param out Stream to write to
+	 * @param codec Codec that writes each element
+	 * @throws NullPointerException if the stream or codec is null
+	 * @throws IOException if writing to the stream fails
+	 * @throws ConcurrentModificationException if the tree is changed while it is written
+	 */
+	public void writeTo(OutputStream out, Codec<? super E> codec) throws NullPointerException, IOException, ConcurrentModificationException {
+		if(out == null || codec == null) //null check
+			throw new NullPointerException("Given stream and codec cannot be null");
+		
+		CRC32 crc = new CRC32();
+		DataOutputStream data = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), crc));
+		data.writeInt(MAGIC);
+		data.writeBoolean(balanced);
+		data.writeBoolean(persistent);
+		data.writeInt(size);
+		for(E e : this) {
+			codec.write(e, data);
+		}
+		data.writeInt((int) crc.getValue()); //DataOutputStream doesn't buffer, so the checksum is up to date
+		data.flush();
+	}
+	
+	/**
+	 * Writes every element of this tree to the given channel in ascending order, in the same
+	 * format as writeTo(OutputStream, Codec). The channel is not closed.
+	 * 
+	 * @param channel Channel to write to
+	 * @param codec Codec that writes each element
+	 * @throws NullPointerException if the channel or codec is null
+	 * @throws IOException if writing to the channel fails
+	 * @throws ConcurrentModificationException if the tree is changed while it is written
+	 */
+	public void writeTo(WritableByteChannel channel, Codec<? super E> codec) throws NullPointerException, IOException, ConcurrentModificationException {
+		if(channel == null) //null check
+			throw new NullPointerException("Given channel cannot be null");
+		writeTo(Channels.newOutputStream(channel), codec);
+	}
+	
+	/**
+	 * Reads a tree written by writeTo from the given stream. The elements are already sorted,
+	 * so the tree is built perfectly balanced in O(n) time without comparing them, and gets
+	 * the settings of the tree that was written. Input is buffered, so the stream may be read
+	 * past the end of the tree; it is not closed.
+	 * 
+	 * @param <E> Type of the elements
+	 * @param in Stream to read from
+	 * @param codec Codec that reads each element
+	 * @return the tree that was read
+	 * @throws NullPointerException if the stream or codec is null, or the codec returns null
+	 * @throws IOException if reading from the stream fails or it ends early
+	 * @throws StreamCorruptedException if the stream does not hold a tree, or the checksum
+	 * 		does not match
+	 */
+	public static <E extends Comparable<E>> BST<E> readFrom(InputStream in, Codec<? extends E> codec) throws NullPointerException, IOException, StreamCorruptedException {
+		if(in == null || codec == null) //null check
+			throw new NullPointerException("Given stream and codec cannot be null");
+		
+		CRC32 crc = new CRC32();
+		DataInputStream data = new DataInputStream(new CheckedInputStream(new BufferedInputStream(in, BUFFER_SIZE), crc));
+		if(data.readInt() != MAGIC)
+			throw new StreamCorruptedException("Stream does not hold a saved tree");
+		boolean balanced = data.readBoolean();
+		boolean persistent = data.readBoolean();
+		int n = data.readInt();
+		if(n < 0)
+			throw new StreamCorruptedException("Negative tree size " + n);
+		
+		//grow the array as elements arrive, so a corrupt size can't allocate a huge array
+		Object[] sorted = new Object[Math.min(n, BUFFER_SIZE)];
+		for(int i = 0; i < n; i++) {
+			if(i == sorted.length)
+				sorted = Arrays.copyOf(sorted, (int) Math.min(n, 2L * i));
+			E e = codec.read(data);
+			if(e == null)
+				throw new NullPointerException("Codec cannot return null elements");
+			sorted[i] = e;
+		}
+		int expected = (int) crc.getValue(); //taken before the stored checksum goes through it
+		if(data.readInt() != expected)
+			throw new StreamCorruptedException("Checksum does not match");
+		
+		BST<E> tree = new BST<E>(balanced, persistent);
+		tree.root = tree.buildBalanced(sorted, 0, n - 1);
+		tree.size = n;
+		return tree;
+	}
+	
+	/**
+	 * Reads a tree written by writeTo from the given channel, like readFrom(InputStream, Codec).
+	 * The channel is not closed.
+	 * 
+	 * @param <E> Type of the elements
+	 * @param channel Channel to read from
+	 * @param codec Codec that reads each element
+	 * @return the tree that was read
+	 * @throws NullPointerException if the channel or codec is null, or the codec returns null
+	 * @throws IOException if reading from the channel fails or it ends early
+	 * @throws StreamCorruptedException if the channel does not hold a tree, or the checksum
+	 * 		does not match
+	 */
+	public static <E extends Comparable<E>> BST<E> readFrom(ReadableByteChannel channel, Codec<? extends E> codec) throws NullPointerException, IOException, StreamCorruptedException {
+		if(channel == null) //null check
+			throw new NullPointerException("Given channel cannot be null");
+		return readFrom(Channels.newInputStream(channel), codec);
+	}
+	
+	/**
+	 * Returns the number of elements in this tree.
+	 * 
+	 * @return number of elements in this tree
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the height of this tree. The height of a leaf is 1. The height of
+	 * the tree is the height of its root node.
+	 * 
+	 * @return the height of this tree or zero if the tree is empty
+	 */
+	public int height() {
+		return heightOf(root); //height of root is height of tree, zero if there is none
+	}
+	
+	/**
+	 * Returns true if this set contains no elements.
+	 * 
+	 * @return true if this set contains no elements.
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+	
+	/**
+	 * Returns true if this tree is a full tree (i.e., a binary
+	 * tree in which each node has either two children or is a leaf).
+	 * 
+	 * @return true if this tree is a full tree
+	 */
+	public boolean isFull() {
+		if(isEmpty())
+			return true;
+		return isFull(root);
+	}
+	//recursive
+	private boolean isFull(Node<E> curRoot) {
+		if(curRoot.height == 1) {
+			return true; //if it's a leaf, return true
+		} else if(curRoot.left != null  && curRoot.right != null) {
+			//if the left and right nodes are both not null
+			if(isFull(curRoot.left) && isFull(curRoot.right))
+				return true; //recurse onto left and then right nodes
+		}
+		return false; //else return false
+	}
+	
+	/**
+	 * Returns true if this tree is balanced based on the AVL tree balancing requirements
+	 * (i.e., for every node, the difference in height between its two sub-trees is at most 1).
+	 * 
+	 * @return true if this tree is balanced
+	 */
+	public boolean isBalanced() {
+		if(isEmpty())
+			return true;
+		return isBalanced(root);
+	}
+	//recursive
+	private boolean isBalanced(Node<E> curRoot) {
+		
+		if(curRoot == null) //if we've reached a leaf
+			return true;
+		
+		//helper variables so we can safely fall off the tree
+		int leftChildHeight;
+		int rightChildHeight;
+		
+		//null check the children and update the helper variables so we can
+		//get left and right height even if left or right subtrees are empty
+		//(which we treat as a height of zero)
+		if(curRoot.left == null) {
+			leftChildHeight = 0;
+		} else {
+			leftChildHeight = curRoot.left.height;
+		}
+		
+		if(curRoot.right == null) {
+			rightChildHeight = 0;
+		} else {
+			rightChildHeight = curRoot.right.height;
+		}
+		
+		//ensure we are only checking full nodes
+		//this node is balanced if the difference between left height and right height is one or 
+		boolean thisNodeBalanced = !(Math.abs(leftChildHeight - rightChildHeight) > 1);
+		//return true if both children are also balanced, false if any of them aren't
+		return (isBalanced(curRoot.left) == true && isBalanced(curRoot.right) == true && thisNodeBalanced == true);
+		//} else {
+			//return true; //reached if leaf or has only one child, in which case it is balanced
+		//}
+	}
+	
+	/**
+	 * Compares the specified object with this tree for equality. Returns true if the
+	 * given object is also a tree, the two trees have the same size, and every member
+	 * of the given tree is contained in this tree.
+	 * 
+	 * @return true if the specified object is equal to this tree
+	 */
+	public boolean equals(Object obj) {
+		//if given object is not a BST
+		if(!(obj instanceof BST<?>))
+			return false;
+		
+		//cast given object as a BST
+		@SuppressWarnings("unchecked")
+		BST<E> treeObj = (BST<E>) obj;
+		//check size for equality
+		if(treeObj.size() != this.size())
+			return false;
+		//check each node for equality
+		if(!compareTreeNodes(root, treeObj.root))
+			return false;
+		//if we reach this point, everything works, return true
+		return true;
+	}
+	/**
+	 * Private method for equals(Object obj) that returns true if a tree's
+	 * objects are identical to another given tree
+	 * 
+	 * @param n1 Root of tree 1
+	 * @param n2 Root of tree 2
+	 * @return True if both trees have identical elements
+	 */
+	private boolean compareTreeNodes(Node<E> n1, Node<E> n2) {
+		//if both nodes are null, true
+		if(n1 == null && n2 == null)
+			return true;
+		//else, compare: if they're both non-null (we haven't fallen off the tree)
+		//and they have matching data, recurse left and then right and do the same
+		//and if all children are equal, return true.
+		return (n1 != null && n2 != null) && (n1.data.equals(n2.data)) &&
+				compareTreeNodes(n1.left, n2.left) &&
+				compareTreeNodes(n1.right, n2.right);
+	}
+	
+	/**
+	 * Returns the first (lowest) element currently in this tree.
+	 * 
+	 * @return the first (lowest) element in this tree
+	 * @throw NoSuchElementException if tree is empty
+	 */
+	public E first() throws NoSuchElementException {
+		if(isEmpty()) //empty check
+			throw new NoSuchElementException("Tree is empty"); //recurse
+		
+		Node<E> curRoot = root;
+		while(curRoot.left != null) { //go as left as possible
+			curRoot = curRoot.left;
+		}
+		return curRoot.data;
+	}
+	
+	/**
+	 * Returns the last (highest) element currently in this tree.
+	 * 
+	 * @return last (highest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E last() throws NoSuchElementException {
+		if(isEmpty()) //empty check
+			throw new NoSuchElementException("Tree is empty");
+		
+		Node<E> curRoot = root;
+		while(curRoot.right != null) { //go as right as possible
+			curRoot = curRoot.right;
+		}
+		return curRoot.data;
+	}
+	
+	/**
+	 * Returns the greatest element in this set strictly less than the
+	 * given element, or null if there is no such element.
+	 * 
+	 * @param e the value to match
+	 * @return the greatest element less than e, or null if there is no such element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the set
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E lower(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 0;
+		E result = null; //closest candidate found so far
+		Node<E> curRoot = root;
+		while(curRoot != null) { //if we fall off the tree, the last candidate is the answer
+			visited++;
+			if(e.compareTo(curRoot.data) > 0) {
+				//node is less than e, so it's a candidate; look for a closer one to the right
+				result = curRoot.data;
+				curRoot = curRoot.right;
+			} else { //node is greater than or equal to e, so we go left
+				curRoot = curRoot.left;
+			}
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.NEIGHBOR, start, visited, visited);
+		return result;
+	}
+	
+	/**
+	 * Returns the least element in this tree strictly greater than the given element,
+	 * or null if there is no such element.
+	 * 
+	 * @param e the value to match
+	 * @return the least element greater than e, or null if there is no such element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the set
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E higher(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 0;
+		E result = null; //closest candidate found so far
+		Node<E> curRoot = root;
+		while(curRoot != null) { //if we fall off the tree, the last candidate is the answer
+			visited++;
+			if(e.compareTo(curRoot.data) < 0) {
+				//node is greater than e, so it's a candidate; look for a closer one to the left
+				result = curRoot.data;
+				curRoot = curRoot.left;
+			} else { //node is less than or equal to e, so we go right
+				curRoot = curRoot.right;
+			}
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.NEIGHBOR, start, visited, visited);
+		return result;
+	}
+	
+	/**
+	 * Returns the least element in this tree greater than or equal to the given element,
+	 * or null if there is no such element.
+	 * 
+	 * @param e element to compare
+	 * @return the least element in this tree greater than or equal to the given element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the set
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E ceiling(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 0;
+		E result = null; //closest candidate found so far
+		Node<E> curRoot = root;
+		while(curRoot != null) { //if we fall off the tree, the last candidate is the answer
+			visited++;
+			int comp = e.compareTo(curRoot.data);
+			if(comp == 0) { //if we found a match, we have our ceiling
+				result = curRoot.data;
+				break;
+			}
+			if(comp < 0) {
+				//node is greater than e, so it's a candidate; look for a closer one to the left
+				result = curRoot.data;
+				curRoot = curRoot.left;
+			} else { //node is less than e, so we go right
+				curRoot = curRoot.right;
+			}
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.NEIGHBOR, start, visited, visited);
+		return result;
+	}
+	
+	/**
+	 * Returns the greatest element in this set less than or equal to the given
+	 * element, or null if there is no such element.
+	 * 
+	 * @param e element to compare
+	 * @return the greatest element less than or equal to e, or null if there is no such element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the set
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E floor(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		BSTMetrics m = metrics;
+		long start = (m != null) ? System.nanoTime() : 0;
+		
+		int visited = 0;
+		E result = null; //closest candidate found so far
+		Node<E> curRoot = root;
+		while(curRoot != null) { //if we fall off the tree, the last candidate is the answer
+			visited++;
+			int comp = e.compareTo(curRoot.data);
+			if(comp == 0) { //if we found a match, we have our floor
+				result = curRoot.data;
+				break;
+			}
+			if(comp > 0) {
+				//node is less than e, so it's a candidate; look for a closer one to the right
+				result = curRoot.data;
+				curRoot = curRoot.right;
+			} else { //node is greater than e, so we go left
+				curRoot = curRoot.left;
+			}
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.NEIGHBOR, start, visited, visited);
+		return result;
+	}
+	
+	/**
+	 * Checks every element of the given sorted array for containment at once, and returns
+	 * a BitSet with bit i set if probes[i] is in this tree. Instead of searching from the
+	 * root for each probe, this descends the tree once, splitting the probes between the two
+	 * subtrees of every node it visits with a binary search, so neighbouring probes share
+	 * the nodes on their common path, and a node is only compared against the probes that
+	 * reach it. For k probes this takes O(k log(n/k + 1)) comparisons instead of O(k log n),
+	 * and nothing is allocated per probe. The descent keeps its own stack instead of
+	 * recursing, so it works on unbalanced trees of any height.
+	 * 
+	 * @param probes Elements to look for, in ascending order, duplicates allowed
+	 * @return BitSet of the probes that are contained in this tree
+	 * @throws NullPointerException if the array or any of its elements is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order
+	 */
+	public BitSet containsBatch(E[] probes) throws NullPointerException, IllegalArgumentException {
+		checkProbes(probes);
+		BitSet found = new BitSet(probes.length);
+		//a probe is found when its floor and ceiling are the same element
+		searchBatch(probes, (i, floor, ceiling) -> {
+			if(floor != null && floor == ceiling)
+				found.set(i);
+		});
+		return found;
+	}
+	
+	/**
+	 * Finds the floor of every element of the given sorted array at once, as floor(E) would,
+	 * and stores the floor of probes[i] in results[i], or null if it has none. Like
+	 * containsBatch, this descends the tree once for all of the probes.
+	 * 
+	 * @param probes Elements to compare, in ascending order, duplicates allowed
+	 * @param results Array to fill, at least as long as probes; may be probes itself
+	 * @return the number of probes that have a floor
+	 * @throws NullPointerException if either array or any of the probes is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order, or results is too short
+	 */
+	public int floorBatch(E[] probes, E[] results) throws NullPointerException, IllegalArgumentException {
+		checkProbes(probes);
+		checkResults(results, probes.length);
+		int[] count = new int[1];
+		searchBatch(probes, (i, floor, ceiling) -> {
+			results[i] = floor;
+			if(floor != null)
+				count[0]++;
+		});
+		return count[0];
+	}
+	
+	/**
+	 * Finds the ceiling of every element of the given sorted array at once, as ceiling(E)
+	 * would, and stores the ceiling of probes[i] in results[i], or null if it has none. Like
+	 * containsBatch, this descends the tree once for all of the probes.
+	 * 
+	 * @param probes Elements to compare, in ascending order, duplicates allowed
+	 * @param results Array to fill, at least as long as probes; may be probes itself
+	 * @return the number of probes that have a ceiling
+	 * @throws NullPointerException if either array or any of the probes is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order, or results is too short
+	 */
+	public int ceilingBatch(E[] probes, E[] results) throws NullPointerException, IllegalArgumentException {
+		checkProbes(probes);
+		checkResults(results, probes.length);
+		int[] count = new int[1];
+		searchBatch(probes, (i, floor, ceiling) -> {
+			results[i] = ceiling;
+			if(ceiling != null)
+				count[0]++;
+		});
+		return count[0];
+	}
+	
+	/**
+	 * Private method that checks that the given probes are non-null and in ascending order
+	 * 
+	 * @param probes Probes of a batch search
+	 * @throws NullPointerException if the array or any of its elements is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order
+	 */
+	private void checkProbes(E[] probes) throws NullPointerException, IllegalArgumentException {
+		if(probes == null) //null check
+			throw new NullPointerException("Given array cannot be null");
+		
+		for(int i = 0; i < probes.length; i++) {
+			if(probes[i] == null) //null check each item
+				throw new NullPointerException("Given array cannot contain null items");
+			if(i > 0 && probes[i - 1].compareTo(probes[i]) > 0)
+				throw new IllegalArgumentException("Given array must be in ascending order");
+		}
+	}
+	
+	/**
+	 * Private method that checks that the given result array can hold a batch's results
+	 * 
+	 * @param results Array to fill
+	 * @param length Number of results
+	 * @throws NullPointerException if the array is null
+	 * @throws IllegalArgumentException if the array is too short
+	 */
+	private static void checkResults(Object[] results, int length) throws NullPointerException, IllegalArgumentException {
+		if(results == null) //null check
+			throw new NullPointerException("Given result array cannot be null");
+		if(results.length < length)
+			throw new IllegalArgumentException("Given result array is shorter than the batch");
+	}
+	
+	/**
+	 * Private method that finds the floor and ceiling of every probe and passes them to the
+	 * sink. Each frame on the stack is a subtree with the probes between from and to, which
+	 * all lie in it, and the closest ancestors on either side of it. The probes equal to the
+	 * node are answered by it, and the rest are split between its subtrees by a binary
+	 * search. When a subtree is empty, the closest ancestors on either side are the floor
+	 * and ceiling of every probe left.
+	 * 
+	 * @param probes Sorted probes
+	 * @param sink Receives the index, floor and ceiling of every probe
+	 */
+	//iterative
+	private void searchBatch(E[] probes, BatchSink<E> sink) {
+		if(probes.length == 0)
+			return;
+		
+		//like a preorder traversal, at most one frame per level waits, plus the current one
+		int capacity = heightOf(root) + 1;
+		Node<E>[] nodes = newNodeArray(capacity);
+		int[] froms = new int[capacity];
+		int[] tos = new int[capacity];
+		Node<E>[] belows = newNodeArray(capacity); //greatest ancestor less than the subtree
+		Node<E>[] aboves = newNodeArray(capacity); //least ancestor greater than the subtree
+		int top = 0;
+		nodes[top] = root;
+		froms[top] = 0;
+		tos[top++] = probes.length;
+		while(top > 0) {
+			Node<E> curRoot = nodes[--top];
+			int from = froms[top];
+			int to = tos[top];
+			Node<E> below = belows[top];
+			Node<E> above = aboves[top];
+			if(curRoot == null) { //fell off the tree, so the ancestors on either side are the answers
+				E floor = (below == null) ? null : below.data;
+				E ceiling = (above == null) ? null : above.data;
+				for(int i = from; i < to; i++) {
+					sink.accept(i, floor, ceiling);
+				}
+				continue;
+			}
+			
+			//probes less than the node go left, equal ones are found, and greater ones go right
+			int lo = searchProbes(probes, from, to, curRoot.data, false);
+			int hi = searchProbes(probes, lo, to, curRoot.data, true);
+			for(int i = lo; i < hi; i++) {
+				sink.accept(i, curRoot.data, curRoot.data);
+			}
+			if(hi < to) { //only subtrees that probes reach get a frame
+				nodes[top] = curRoot.right;
+				froms[top] = hi;
+				tos[top] = to;
+				belows[top] = curRoot;
+				aboves[top++] = above;
+			}
+			if(from < lo) {
+				nodes[top] = curRoot.left;
+				froms[top] = from;
+				tos[top] = lo;
+				belows[top] = below;
+				aboves[top++] = curRoot;
+			}
+		}
+	}
+	
+	/**
+	 * Private method that binary searches the sorted probes between from and to for the
+	 * first one greater than, or greater than or equal to, the given element
+	 * 
+	 * @param probes Sorted probes
+	 * @param from First probe to search
+	 * @param to One past the last probe to search
+	 * @param e Element to compare against
+	 * @param inclusive True to skip the probes equal to e as well
+	 * @return Index of the first probe past e, or to if there is none
+	 */
+	private static <E extends Comparable<E>> int searchProbes(E[] probes, int from, int to, E e, boolean inclusive) {
+		while(from < to) {
+			int mid = (from + to) >>> 1;
+			int comp = probes[mid].compareTo(e);
+			if(comp < 0 || (inclusive && comp == 0))
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+	
+	/**
+	 * Private interface that receives the answers of a batch search
+	 * 
+	 * @param <E> Type of the elements
+	 */
+	private interface BatchSink<E> {
+		void accept(int index, E floor, E ceiling);
+	}
+	
+	/**
+	 * Returns the elements at every one of the given sorted positions at once, as get(int)
+	 * would, storing the element at indices[i] in results[i]. Instead of descending from the
+	 * root for each index, this descends the tree once, splitting the indices between the
+	 * subtrees of every node by the subtree sizes, so neighbouring indices share the nodes
+	 * on their common path. Like containsBatch, it keeps its own stack instead of recursing.
+	 * 
+	 * @param indices Positions of the elements to return, in ascending order, duplicates allowed
+	 * @param results Array to fill, at least as long as indices
+	 * @throws NullPointerException if either array is null
+	 * @throws IllegalArgumentException if the indices are not in ascending order, or results is too short
+	 * @throws IndexOutOfBoundsException if any index is negative or not less than the tree size
+	 */
+	public void getBatch(int[] indices, E[] results) throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException {
+		if(indices == null) //null check
+			throw new NullPointerException("Given array cannot be null");
+		checkResults(results, indices.length);
+		for(int i = 0; i < indices.length; i++) {
+			if(i > 0 && indices[i - 1] > indices[i])
+				throw new IllegalArgumentException("Given array must be in ascending order");
+		}
+		if(indices.length > 0 && (indices[0] < 0 || indices[indices.length - 1] >= size)) //range check
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		walkBatch(indices, results);
+	}
+	
+	/**
+	 * Private method that fills in the elements at the given indices. Each frame on the stack
+	 * is a subtree, the index of its first element in the whole tree, and the indices between
+	 * from and to, which all lie in it.
+	 * 
+	 * @param indices Sorted indices, all within the tree
+	 * @param results Array to fill
+	 */
+	//iterative
+	private void walkBatch(int[] indices, E[] results) {
+		if(indices.length == 0)
+			return;
+		
+		//like a preorder traversal, at most one frame per level waits, plus the current one
+		int capacity = heightOf(root) + 1;
+		Node<E>[] nodes = newNodeArray(capacity);
+		int[] offsets = new int[capacity];
+		int[] froms = new int[capacity];
+		int[] tos = new int[capacity];
+		int top = 0;
+		nodes[top] = root;
+		offsets[top] = 0;
+		froms[top] = 0;
+		tos[top++] = indices.length;
+		while(top > 0) {
+			Node<E> curRoot = nodes[--top]; //never null, since every index is within the tree
+			int offset = offsets[top];
+			int from = froms[top];
+			int to = tos[top];
+			
+			int position = offset + sizeOf(curRoot.left); //index of this node
+			//indices before the node go left, equal ones are found, and later ones go right
+			int lo = Arrays.binarySearch(indices, from, to, position);
+			if(lo < 0) //not found, so it's where the node would go
+				lo = -lo - 1;
+			while(lo > from && indices[lo - 1] == position) { //binarySearch may land on any of the duplicates
+				lo--;
+			}
+			int hi = lo;
+			while(hi < to && indices[hi] == position) {
+				results[hi++] = curRoot.data;
+			}
+			if(hi < to) { //only subtrees that indices reach get a frame
+				nodes[top] = curRoot.right;
+				offsets[top] = position + 1;
+				froms[top] = hi;
+				tos[top++] = to;
+			}
+			if(from < lo) {
+				nodes[top] = curRoot.left;
+				offsets[top] = offset;
+				froms[top] = from;
+				tos[top++] = lo;
+			}
+		}
+	}
+	
+	/**
+	 * Returns a frozen copy of this tree, which holds the same elements in a read-only,
+	 * perfectly balanced array layout that searches with far fewer cache misses than
+	 * following Node references. Later changes to this tree do not affect the copy.
+	 * This operation is O(n).
+	 * 
+	 * @return a frozen copy of this tree
+	 */
+	public FrozenBST<E> freeze() {
+		return new FrozenBST<E>(toArray());
+	}
+	
+	/**
+	 * This function returns an array containing all the elements returned by this tree's iterator,
+	 * in the same order, stored in consecutive elements of the array, starting with index 0.
+	 * The length of the returned array is equal to the number of elements returned by the iterator.
+	 * 
+	 * @return an array, whose runtime component type is Object, containing all of the elements in this tree
+	 */
+	public Object[] toArray() {
+		
+		//make array of tree size
+		Object[] arr = new Object[size];
+		//get in order iterator
+		Iterator<E> itr = iterator();
+		int i = 0;
+		
+		while(itr.hasNext()) {
+			arr[i] = itr.next();
+			i++;
+		}
+		
+		return arr;
+	}
+	
+	/**
+	 * Returns a collection whose elements range from fromElement, inclusive, to toElement,
+	 * inclusive. The returned collection/list is backed by this tree, so changes in the
+	 * returned list are reflected in this tree, and vice-versa (i.e., the two structures
+	 * share elements. The returned collection should be organized according to the natural
+	 * ordering of the elements (i.e., it should be sorted).
+	 * 
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @return a collection containing a portion of this tree whose elements range from
+	 * 		fromElement, inclusive, to toElement, inclusive
+	 * @throws NullPointerException if either fromElement or toElement are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public ArrayList<E> getRange(E fromElement, E toElement) throws NullPointerException, IllegalArgumentException {
+		ArrayList<E> list = new ArrayList<E>();
+		getRange(fromElement, toElement, 0, Integer.MAX_VALUE, list::add);
+		return list;
+	}
+	
+	/**
+	 * Passes every element of this tree from fromElement, inclusive, to toElement, inclusive,
+	 * to the given action in ascending order, without building an intermediate list.
+	 * This operation is O(H + M) where M is the number of elements in the range.
+	 * 
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param action Action to perform on each element in the range
+	 * @return the number of elements in the range
+	 * @throws NullPointerException if fromElement, toElement or action are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public int forEachInRange(E fromElement, E toElement, Consumer<? super E> action) throws NullPointerException, IllegalArgumentException {
+		if(action == null)
+			throw new NullPointerException("Given action cannot be null");
+		return getRange(fromElement, toElement, 0, Integer.MAX_VALUE, action);
+	}
+	
+	/**
+	 * Adds every element of this tree from fromElement, inclusive, to toElement, inclusive,
+	 * to the given collection in ascending order, without building an intermediate list.
+	 * This operation is O(H + M) where M is the number of elements in the range.
+	 * 
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param collection Collection to add the elements in the range to
+	 * @return the number of elements in the range
+	 * @throws NullPointerException if fromElement, toElement or collection are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public int getRange(E fromElement, E toElement, Collection<? super E> collection) throws NullPointerException, IllegalArgumentException {
+		if(collection == null)
+			throw new NullPointerException("Given collection cannot be null");
+		return getRange(fromElement, toElement, 0, Integer.MAX_VALUE, collection::add);
+	}
+	
+	/**
+	 * Returns one page of the elements of this tree from fromElement, inclusive, to toElement,
+	 * inclusive: the first limit elements after skipping the first offset elements of the range,
+	 * in ascending order. The skipped elements are never visited, so this operation is O(H + L)
+	 * where L is the number of items returned, no matter how large the offset is.
+	 * 
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param offset Number of elements of the range to skip
+	 * @param limit Maximum number of elements to return
+	 * @return a list containing the requested page of the range
+	 * @throws NullPointerException if either fromElement or toElement are null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement, or if
+	 * 		offset or limit are negative
+	 */
+	public ArrayList<E> getRange(E fromElement, E toElement, int offset, int limit) throws NullPointerException, IllegalArgumentException {
+		if(offset < 0 || limit < 0)
+			throw new IllegalArgumentException("offset and limit cannot be negative");
+		
+		//size the list for the page, which counting the range finds in O(H), not for the whole tree
+		int count = countRange(fromElement, true, toElement, true);
+		ArrayList<E> list = new ArrayList<E>(Math.min(limit, Math.max(0, count - offset)));
+		getRange(fromElement, toElement, offset, limit, list::add);
+		return list;
+	}
+	
+	/**
+	 * Private method for the getRange methods that performs an inorder walk over the given
+	 * range. It uses the subtree sizes to jump straight to the first element to report, then
+	 * continues with a stack of the nodes whose right subtrees are still to be visited.
+	 * 
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param offset Number of elements of the range to skip
+	 * @param limit Maximum number of elements to report
+	 * @param action Action to perform on each reported element
+	 * @return Number of elements reported
+	 */
+	private int getRange(E fromElement, E toElement, int offset, int limit, Consumer<? super E> action) {
+		//null check
+		if(fromElement == null || toElement == null)
+			throw new NullPointerException("fromElement and toElement cannot be null");
+		//comparing variable, >0 if fromElement is larger than toElement
+		int elementComp = fromElement.compareTo(toElement);
+		if(elementComp > 0)
+			throw new IllegalArgumentException("fromElement cannot be larger than toElement");
+		BSTMetrics m = metrics;
+		long startNanos = (m != null) ? System.nanoTime() : 0;
+		
+		//index of the first element to report: everything below fromElement comes first, then the offset
+		long start = (long) countBelow(fromElement, false, null) + offset;
+		if(start >= size || limit == 0) {
+			if(m != null)
+				m.record(BSTMetrics.Operation.RANGE, startNanos, 0, 1);
+			return 0;
+		}
+		
+		//walk down to that index like get(int) does, stacking the nodes we pass on their left
+		//side since they come after it
+		Node<E>[] stack = newNodeArray(heightOf(root));
+		int top = 0;
+		int index = (int) start;
+		int visited = 0;
+		Node<E> curRoot = root;
+		while(true) {
+			visited++;
+			int leftSize = sizeOf(curRoot.left);
+			if(index < leftSize) {
+				stack[top++] = curRoot;
+				curRoot = curRoot.left;
+			} else if(index > leftSize) {
+				index -= leftSize + 1;
+				curRoot = curRoot.right;
+			} else {
+				stack[top++] = curRoot;
+				break;
+			}
+		}
+		
+		//everything from here on is at least fromElement, so only toElement has to be checked
+		int count = 0;
+		int comparisons = 1; //fromElement against toElement
+		while(top > 0 && count < limit) {
+			Node<E> n = stack[--top];
+			comparisons++;
+			if(toElement.compareTo(n.data) < 0) //we're above the higher bound, so we're done
+				break;
+			action.accept(n.data);
+			count++;
+			
+			curRoot = n.right; //the right subtree comes next, starting with its leftmost node
+			while(curRoot != null) {
+				stack[top++] = curRoot;
+				curRoot = curRoot.left;
+				visited++;
+			}
+		}
+		if(m != null)
+			m.record(BSTMetrics.Operation.RANGE, startNanos, visited, comparisons);
+		return count;
+	}
+	
+	/**
+	 * Returns a string representation of this tree. The string representation consists of a list of the tree's
+	 * elements in the order they are returned by its iterator (inorder traversal), enclosed in square brackets
+	 * ("[]"). Adjacent elements are separated by the characters ", " (comma and space). Elements are converted
+	 * to strings as by String.valueOf(Object).
+	 * 
+	 * @return String representation of this tree, inorder
+	 */
+	@Override
+	public String toString() {
+		return renderString(this::renderInorder);
+	}
+	
+	/**
+	 * Appends the string representation of this tree, as returned by toString(), to the given
+	 * output, writing each element straight to it without building the whole string first.
+	 * At most limit elements are written; if there are more, ", ..." is written in place of
+	 * the rest. This operation is O(limit) plus O(H) to find the first element.
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to, such as a StringBuilder or Writer
+	 * @param limit Largest number of elements to write
+	 * @return the given output
+	 * @throws NullPointerException if the output is null
+	 * @throws IllegalArgumentException if the limit is negative
+	 * @throws IOException if the output fails
+	 */
+	public <A extends Appendable> A appendTo(A out, int limit) throws NullPointerException, IllegalArgumentException, IOException {
+		checkRender(out, limit);
+		return renderInorder(out, limit);
+	}
+	
+	/**
+	 * Private method that writes the inorder string representation of this tree, with at
+	 * most limit elements.
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to
+	 * @param limit Largest number of elements to write
+	 * @return the given output
+	 * @throws IOException if the output fails
+	 */
+	//iterative
+	private <A extends Appendable> A renderInorder(A out, int limit) throws IOException {
+		out.append('[');
+		Node<E>[] stack = newNodeArray(heightOf(root)); //nodes still waiting for their turn
+		int top = 0;
+		int written = 0;
+		Node<E> curRoot = root;
+		while(curRoot != null || top > 0) {
+			while(curRoot != null) { //go left as far as possible, remembering the way
+				stack[top++] = curRoot;
+				curRoot = curRoot.left;
+			}
+			Node<E> n = stack[--top];
+			if(written > 0) //separate from the previous item
+				out.append(", ");
+			if(written == limit) { //more elements than we may write
+				out.append("...");
+				break;
+			}
+			out.append(String.valueOf(n.data)); //add this node in between left and right
+			written++;
+			curRoot = n.right; //then move on to the right subtree
+		}
+		out.append(']');
+		return out;
+	}
+	
+	/**
+	 * Produces a string representation of this tree that contains, one per line,
+	 * every path from the root of this tree to a leaf node in the tree. The order of
+	 * the paths should be from left to right. In each path, the values in the nodes
+	 * should be separated by a comma and a single space. The following multi-line string
+	 *  K, D, B, A
+	 *  K, D, J
+	 *  K, P, M, L
+	 *  K, P, M, O, N
+	 * is a string representation of this tree:
+	 *            K
+	 *         /     \
+	 *       D        P
+	 *     /   \     /
+	 *    B     J   M
+	 *    /        /   \
+	 *   A        L     O
+	 *                 /
+	 *                N
+	 *
+	 * @return string containing all root-leaf paths of this tree
+	 */
+	public String toStringAllPaths() {
+		return renderString((out, limit) -> renderPaths(out, limit, false));
+	}
+	
+	/**
+	 * Appends the string representation of this tree returned by toStringAllPaths() to the
+	 * given output. At most limit paths are written; if there are more, a line holding
+	 * "..." is written in place of the rest. Each element is converted to a string only
+	 * once, into a path buffer that is reused by every path through it, so this operation
+	 * is linear in the length of the output.
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to, such as a StringBuilder or Writer
+	 * @param limit Largest number of paths to write
+	 * @return the given output
+	 * @throws NullPointerException if the output is null
+	 * @throws IllegalArgumentException if the limit is negative
+	 * @throws IOException if the output fails
+	 */
+	public <A extends Appendable> A appendAllPathsTo(A out, int limit) throws NullPointerException, IllegalArgumentException, IOException {
+		checkRender(out, limit);
+		return renderPaths(out, limit, false);
+	}
+	
+	/**
+	 * Produces a string representation of this tree that contains, one per line,
+	 * every path from the root of this tree to a leaf node in the tree whose length
+	 * is maximal (i.e., whose length matches the height of the tree). The order of
+	 * the paths should be from left to right. In each path, the values in the nodes
+	 * should be separated by a comma and a single space.
+	 * 
+	 * @return string containing all maximal root-leaf paths of this tree.
+	 */
+	public String toStringAllMaxPaths() {
+		return renderString((out, limit) -> renderPaths(out, limit, true));
+	}
+	
+	/**
+	 * Appends the string representation of this tree returned by toStringAllMaxPaths() to
+	 * the given output. At most limit paths are written; if there are more, a line holding
+	 * "..." is written in place of the rest. Subtrees that are too low to hold a maximal
+	 * path are skipped using the node heights, so this operation is linear in the length
+	 * of the output.
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to, such as a StringBuilder or Writer
+	 * @param limit Largest number of paths to write
+	 * @return the given output
+	 * @throws NullPointerException if the output is null
+	 * @throws IllegalArgumentException if the limit is negative
+	 * @throws IOException if the output fails
+	 */
+	public <A extends Appendable> A appendAllMaxPathsTo(A out, int limit) throws NullPointerException, IllegalArgumentException, IOException {
+		checkRender(out, limit);
+		return renderPaths(out, limit, true);
+	}
+	
+	/**
+	 * Private method that writes every root-leaf path, or only the maximal ones, with at
+	 * most limit paths. The path down to the current node is kept in a single buffer that
+	 * is cut back to the length recorded for a node whenever the traversal returns to it.
+	 *
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to
+	 * @param limit Largest number of paths to write
+	 * @param maxOnly True to only write the paths as long as the height of the tree
+	 * @return the given output
+	 * @throws IOException if the output fails
+	 */
+	//iterative
+	private <A extends Appendable> A renderPaths(A out, int limit, boolean maxOnly) throws IOException {
+		if(root == null)
+			return out;
+		
+		int height = root.height;
+		StringBuilder path = new StringBuilder(); //elements from the root down to the current node
+		Node<E>[] stack = newNodeArray(height + 1); //preorder, so never more than H + 1 waiting
+		int[] lengths = new int[height + 1]; //length of the path above each waiting node
+		int top = 0;
+		int written = 0;
+		stack[top] = root;
+		lengths[top++] = 0;
+		while(top > 0) {
+			Node<E> n = stack[--top];
+			path.setLength(lengths[top]);
+			if(n.left == null && n.right == null) { //a leaf ends a path
+				if(written == limit) {
+					out.append("...\n");
+					break;
+				}
+				out.append(path).append(String.valueOf(n.data)).append('\n');
+				written++;
+				continue;
+			}
+			
+			path.append(String.valueOf(n.data)).append(", ");
+			//push right first so the left subtree is written first; a child is only on a
+			//maximal path if it is exactly as high as the levels left below this node
+			int below = n.height - 1;
+			if(n.right != null && (!maxOnly || n.right.height == below)) {
+				stack[top] = n.right;
+				lengths[top++] = path.length();
+			}
+			if(n.left != null && (!maxOnly || n.left.height == below)) {
+				stack[top] = n.left;
+				lengths[top++] = path.length();
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Produces tree like string representation of this tree. Returns a string representation of
+	 * this tree in a tree-like format. The string representation consists of a tree-like
+	 * representation of this tree. Each node is shown in its own line with the indentation showing
+	 * the depth of the node in this tree. The root is printed on the first line, followed by its
+	 * left subtree, followed by its right subtree.
+	 * 
+	 * @return string containing tree-like representation of this tree.
+	 */
+	public String toStringTreeFormat() {
+		return renderString(this::renderTreeFormat);
+	}
+	
+	/**
+	 * Appends the string representation of this tree returned by toStringTreeFormat() to
+	 * the given output. At most limit lines are written; if there are more, a line holding
+	 * "..." is written in place of the rest. This operation is linear in the length of the
+	 * output.
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to, such as a StringBuilder or Writer
+	 * @param limit Largest number of lines to write
+	 * @return the given output
+	 * @throws NullPointerException if the output is null
+	 * @throws IllegalArgumentException if the limit is negative
+	 * @throws IOException if the output fails
+	 */
+	public <A extends Appendable> A appendTreeFormatTo(A out, int limit) throws NullPointerException, IllegalArgumentException, IOException {
+		checkRender(out, limit);
+		return renderTreeFormat(out, limit);
+	}
+	
+	/**
+	 * Private method that writes the tree-like representation of this tree, with at most
+	 * limit lines. Missing children of a node are written as null.
+	 * 
+	 * @param <A> Type of the output
+	 * @param out Output to append to
+	 * @param limit Largest number of lines to write
+	 * @return the given output
+	 * @throws IOException if the output fails
+	 */
+	//iterative
+	private <A extends Appendable> A renderTreeFormat(A out, int limit) throws IOException {
+		if(root == null) //empty string if tree is empty
+			return out;
+		
+		//preorder over the nodes and the nulls below them, so never more than H + 1 waiting
+		Node<E>[] stack = newNodeArray(root.height + 1);
+		int[] indents = new int[root.height + 1];
+		int top = 0;
+		int written = 0;
+		stack[top] = root;
+		indents[top++] = 0;
+		while(top > 0) {
+			Node<E> n = stack[--top];
+			int indent = indents[top];
+			if(written == limit) {
+				out.append("...\n");
+				break;
+			}
+			//adds filler, indent - 1 so that "|--" gets a head start
+			for(int i = 0; i < indent - 1; i++) {
+				out.append("   ");
+			}
+			if(indent != 0) //skips root, but is placed after filler on every subsequent node
+				out.append("|--");
+			written++;
+			
+			if(n == null) { //missing children are printed as null
+				out.append("null\n");
+				continue;
+			}
+			out.append(String.valueOf(n.data)).append('\n');
+			stack[top] = n.right; //right first, so the left subtree comes out first
+			indents[top++] = indent + 1;
+			stack[top] = n.left;
+			indents[top++] = indent + 1;
+		}
+		return out;
+	}
+	
+	/**
+	 * Private method that returns the whole string representation the given renderer writes,
+	 * through a StringBuilder, which never throws an IOException
+	 * 
+	 * @param renderer Renderer of the representation
+	 * @return the string representation
+	 */
+	private String renderString(Renderer renderer) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			renderer.render(sb, Integer.MAX_VALUE);
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex); //unreachable, since StringBuilder doesn't throw
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Private interface for the methods that write a string representation of this tree
+	 */
+	private interface Renderer {
+		void render(Appendable out, int limit) throws IOException;
+	}
+	
+	/**
+	 * Private method that checks the arguments of the append methods
+	 * 
+	 * @param out Output to append to
+	 * @param limit Largest number of elements or lines to write
+	 * @throws NullPointerException if the output is null
+	 * @throws IllegalArgumentException if the limit is negative
+	 */
+	private static void checkRender(Appendable out, int limit) throws NullPointerException, IllegalArgumentException {
+		if(out == null) //null check
+			throw new NullPointerException("Given output cannot be null");
+		if(limit < 0)
+			throw new IllegalArgumentException("Limit cannot be negative");
+	}
+	
+
+	/**
+	 * Returns an iterator over the elements in this tree in ascending order.
+	 * The iterator supports remove(), and is fail-fast: if the tree is changed
+	 * in any way other than through the iterator's own remove(), the iterator
+	 * throws a ConcurrentModificationException.
+	 * 
+	 * @return an iterator over the elements in this set in ascending order
+	 */
+	@Override
+	public Iterator<E> iterator() { //in-order iterator
+		return new inorderIterator(this); //return inorder iterator
+	}
+	
+	/**
+	 * Returns a spliterator over the elements in this tree in ascending order. It reports
+	 * SIZED, SUBSIZED, SORTED, ORDERED, DISTINCT and NONNULL, and splits its range of
+	 * positions in half, finding where each half starts in O(H) from the subtree sizes,
+	 * so parallel streams divide the work evenly. It binds to the tree on first use
+	 * and is fail-fast, like the iterator.
+	 * 
+	 * @return a spliterator over the elements in this tree in ascending order
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new inorderSpliterator(0, -1);
+	}
+	
+	/**
+	 * Returns a sequential stream over the elements in this tree in ascending order.
+	 * 
+	 * @return a sequential stream over the elements in this tree
+	 */
+	public Stream<E> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Returns a parallel stream over the elements in this tree in ascending order.
+	 * The tree must not be changed while the stream is running.
+	 * 
+	 * @return a parallel stream over the elements in this tree
+	 */
+	public Stream<E> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Returns an iterator over the elements in this tree in order of the
+	 * preorder traversal.
+	 * The iterator is fail-fast and does not support remove().
+	 * 
+	 * @return an iterator over the elements in this tree in order of the
+	 *		preorder traversal
+	 */
+	public Iterator<E> preorderIterator() {
+		return new preorderIterator(this);
+	}
+	
+	/**
+	 * Returns an iterator over the elements in this tree in order of
+	 * the postorder traversal.
+	 * The iterator is fail-fast and does not support remove().
+	 * 
+	 * @return an iterator over the elements in this tree in order of
+	 * 		the postorder traversal
+	 */
+	public Iterator<E> postorderIterator() {
+		return new postorderIterator(this);
+	}
+	
+	/**
+	 * Returns a cursor over this tree, positioned before the first element. A cursor remembers
+	 * the path to its element, so moving it to a nearby element only climbs as far as the
+	 * lowest ancestor of both, instead of searching again from the root: a sweep over the
+	 * tree with next() or prev() costs amortized O(1) per element, and a seek to an element
+	 * d positions further along usually costs about O(log d) comparisons in a balanced tree.
+	 * This makes sweeps that alternate between trees, such as merging or intersecting them
+	 * with a cursor on each, close to linear in the number of elements visited.
+	 * 
+	 * @return a cursor over this tree
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+	
+	/**
+	 * Node class
+	 * Contains local field for height and size of subtree. It is static so that it doesn't
+	 * carry a hidden reference to the tree, and the size of its left subtree is read from
+	 * its left child, which keeps every node at 32 bytes with compressed references.
+	 * It is package-private so that ConcurrentBST can search the tree without locking.
+	 */
+	static final class Node<E> {
+		E data;
+		Node<E> left;
+		Node<E> right;
+		int height = 1;
+		int size = 1;
+		Object aggregate; //summary of the subtree, if the tree is augmented
+		
+		//constructor with just data
+		public Node(E data) {
+			this.data = data;
+		}
+		
+		//constructor with data, left and right
+		public Node(E data, Node<E> left, Node<E> right) {
+			this.data = data;
+			this.left = left;
+			this.right = right;
+		}
+		
+	}
+	
+	/**
+	 * Task that builds a perfectly balanced subtree out of a range of a sorted array of
+	 * distinct elements, in the same shape as buildBalanced, forking off the left half
+	 * of large ranges
+	 */
+	private final class BuildTask extends RecursiveTask<Node<E>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		final Object[] sorted; //elements to build the subtree out of
+		final int lo; //first index of the range, inclusive
+		final int hi; //last index of the range, inclusive
+		
+		/**
+		 * Constructs a task for the given range
+		 * 
+		 * @param sorted Sorted array of distinct elements
+		 * @param lo First index of the range, inclusive
+		 * @param hi Last index of the range, inclusive
+		 */
+		BuildTask(Object[] sorted, int lo, int hi) {
+			this.sorted = sorted;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		
+		/**
+		 * Builds the subtree
+		 * 
+		 * @return Root of the subtree, or null if the range is empty
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		protected Node<E> compute() {
+			if(hi - lo < PARALLEL_THRESHOLD) //small enough to build here
+				return buildBalanced(sorted, lo, hi);
+			
+			int mid = (lo + hi) >>> 1;
+			BuildTask leftTask = new BuildTask(sorted, lo, mid - 1);
+			leftTask.fork();
+			Node<E> right = new BuildTask(sorted, mid + 1, hi).compute();
+			Node<E> n = new Node<E>((E) sorted[mid], leftTask.join(), right);
+			updateHeight(n);
+			updateNodeSize(n);
+			return n;
+		}
+	}
+	
+	/**
+	 * Task that merges a subtree of this tree with a subtree built by parallelAddAll, like
+	 * union does, but forking off the union of the left halves when the subtrees are large.
+	 * The two halves share no nodes, so they can safely be taken apart at the same time.
+	 */
+	private final class UnionTask extends RecursiveTask<Node<E>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		final Node<E> t1; //subtree of this tree, which may be taken apart
+		final Node<E> t2; //built subtree, whose nodes can be shared
+		
+		/**
+		 * Constructs a task for the given subtrees
+		 * 
+		 * @param t1 Subtree of this tree
+		 * @param t2 Subtree built out of the new elements
+		 */
+		UnionTask(Node<E> t1, Node<E> t2) {
+			this.t1 = t1;
+			this.t2 = t2;
+		}
+		
+		/**
+		 * Merges the subtrees
+		 * 
+		 * @return Root of the merged subtree
+		 */
+		@Override
+		protected Node<E> compute() {
+			if(t1 == null || t2 == null || sizeOf(t1) + t2.size < PARALLEL_THRESHOLD)
+				return union(t1, t2, true, newNodeArray(3));
+			
+			Node<E>[] parts = newNodeArray(3);
+			splitBalanced(t1, t2.data, parts);
+			UnionTask leftTask = new UnionTask(parts[0], t2.left);
+			leftTask.fork();
+			Node<E> r = new UnionTask(parts[2], t2.right).compute();
+			Node<E> l = leftTask.join();
+			//keep our own node for an element both trees have
+			return BST.this.join(l, (parts[1] != null) ? own(parts[1]) : new Node<E>(t2.data), r);
+		}
+	}
+	
+	/**
+	 * Position in the tree that can move back and forth between elements, and search, add
+	 * and remove starting from where it is. It keeps the path from the root to its current
+	 * element, and is either on an element, before the first one or after the last one.
+	 * A cursor is fail-fast: if the tree is changed other than through the cursor itself,
+	 * its next move throws a ConcurrentModificationException.
+	 */
+	public final class Cursor {
+		
+		private Node<E>[] path = newNodeArray(Math.max(heightOf(root), 1)); //path from the root to the current node
+		private int depth = 0; //amount of nodes in the path, zero when not on an element
+		private boolean afterLast = false; //if not on an element, true if past the last one
+		private int[] turns = new int[path.length]; //scratch space for seek, depths of the ancestors that bound e
+		private int expectedModCount = modCount; //modCount of the tree when we last saw it
+		
+		/**
+		 * Private constructor, since cursors are made by BST.cursor()
+		 */
+		private Cursor() {
+		}
+		
+		/**
+		 * Returns the element the cursor is on.
+		 * 
+		 * @return the current element, or null if the cursor is before the first element
+		 * 		or after the last one
+		 */
+		public E current() {
+			return (depth == 0) ? null : path[depth - 1].data;
+		}
+		
+		/**
+		 * Moves the cursor to the least element greater than or equal to the given element,
+		 * climbing from the current element only as far as the lowest ancestor whose subtree
+		 * holds that element, and returns it. If there is no such element, the cursor ends
+		 * up after the last element.
+		 * 
+		 * @param e Element to look for
+		 * @return the least element greater than or equal to e, or null if there is none
+		 * @throws NullPointerException if the specified element is null
+		 * @throws ConcurrentModificationException if the tree was changed other than
+		 * 		through this cursor
+		 */
+		public E seek(E e) throws NullPointerException, ConcurrentModificationException {
+			if(e == null) //null check
+				throw new NullPointerException("Given element cannot be null");
+			checkForComodification();
+			if(root == null) {
+				afterLast = true;
+				return null;
+			}
+			
+			Node<E> curRoot = root; //node to search down from
+			int start = 0; //its depth in the path
+			int candidate = 0; //depth of the least node known to be greater than e, zero for none
+			if(depth > 0) {
+				int comp = e.compareTo(path[depth - 1].data);
+				if(comp == 0)
+					return path[depth - 1].data;
+				boolean forward = comp > 0;
+				
+				//the ancestors the path turned towards the current node from, on the side e lies,
+				//each bound the subtree below them, more tightly the deeper they are; list them
+				//from the deepest up, and gallop up the list to the deepest one e is inside of
+				if(turns.length < depth)
+					turns = new int[path.length];
+				int count = 0;
+				for(int j = depth - 2; j >= 0; j--) {
+					if((path[j + 1] == path[j].left) == forward)
+						turns[count++] = j;
+				}
+				int i = firstInside(count, e, forward);
+				
+				//below that bound, the path only turns away from e until the next turn in the
+				//list, so the search for e would follow the path down to there and can start there
+				start = (i == 0) ? depth - 1 : turns[i - 1];
+				curRoot = path[start];
+				if(forward && i < count) //the bound itself is greater than e
+					candidate = turns[i] + 1;
+			}
+			
+			depth = start;
+			while(curRoot != null) {
+				push(curRoot);
+				int comp = e.compareTo(curRoot.data);
+				if(comp == 0) { //found e itself
+					candidate = depth;
+					break;
+				}
+				if(comp < 0) { //node is greater than e, so it's a candidate; look for a closer one to the left
+					candidate = depth;
+					curRoot = curRoot.left;
+				} else {
+					curRoot = curRoot.right;
+				}
+			}
+			depth = candidate;
+			afterLast = (candidate == 0);
+			return current();
+		}
+		
+		/**
+		 * Private method for seek that gallops over the listed turns, which are ordered so that
+		 * e is outside of the first ones and inside of the rest, and returns the first one e
+		 * is inside of. Checking turns 0, 1, 3, 7 and so on before searching between the last
+		 * two takes O(log i) comparisons to find turn i, so short moves stay cheap.
+		 * 
+		 * @param count Number of turns
+		 * @param e Element being looked for
+		 * @param forward True if e is greater than the current element
+		 * @return Index of the first turn e is inside of, or count if there is none
+		 */
+		private int firstInside(int count, E e, boolean forward) {
+			int lo = 0;
+			int probe = 0;
+			while(probe < count && !inside(turns[probe], e, forward)) {
+				lo = probe + 1;
+				probe = 2 * probe + 1;
+			}
+			int hi = Math.min(probe, count); //the answer is between lo and hi
+			while(lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if(inside(turns[mid], e, forward))
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			return lo;
+		}
+		
+		/**
+		 * Private method that returns true if e is strictly on the side of the node at the
+		 * given depth that the path went down
+		 * 
+		 * @param j Depth of the node
+		 * @param e Element being looked for
+		 * @param forward True if the path went left there, so inside means less
+		 * @return true if e is inside the subtree the path went down
+		 */
+		private boolean inside(int j, E e, boolean forward) {
+			int comp = e.compareTo(path[j].data);
+			return forward ? comp < 0 : comp > 0;
+		}
+		
+		/**
+		 * Moves the cursor to the next element in ascending order and returns it. From before
+		 * the first element this is the first element. This costs amortized O(1) over a sweep.
+		 * 
+		 * @return the next element, or null if the cursor moved past the last element
+		 * @throws ConcurrentModificationException if the tree was changed other than
+		 * 		through this cursor
+		 */
+		public E next() throws ConcurrentModificationException {
+			checkForComodification();
+			Node<E> curRoot;
+			if(depth == 0) {
+				if(afterLast)
+					return null;
+				curRoot = root; //start from the first element
+			} else if(path[depth - 1].right != null) { //next node is the leftmost one of the right subtree
+				curRoot = path[depth - 1].right;
+			} else {
+				//otherwise go back up until we come from a left child; that parent is next
+				Node<E> child = path[--depth];
+				while(depth > 0 && path[depth - 1].right == child) {
+					child = path[--depth];
+				}
+				afterLast = (depth == 0);
+				return current();
+			}
+			
+			while(curRoot != null) { //go left as far as possible, remembering the way
+				push(curRoot);
+				curRoot = curRoot.left;
+			}
+			afterLast = (depth == 0); //only if the tree is empty
+			return current();
+		}
+		
+		/**
+		 * Moves the cursor to the previous element in ascending order and returns it. From
+		 * after the last element this is the last element. This costs amortized O(1) over a sweep.
+		 * 
+		 * @return the previous element, or null if the cursor moved before the first element
+		 * @throws ConcurrentModificationException if the tree was changed other than
+		 * 		through this cursor
+		 */
+		public E prev() throws ConcurrentModificationException {
+			checkForComodification();
+			Node<E> curRoot;
+			if(depth == 0) {
+				if(!afterLast)
+					return null;
+				curRoot = root; //start from the last element
+			} else if(path[depth - 1].left != null) { //previous node is the rightmost one of the left subtree
+				curRoot = path[depth - 1].left;
+			} else {
+				//otherwise go back up until we come from a right child; that parent is previous
+				Node<E> child = path[--depth];
+				while(depth > 0 && path[depth - 1].left == child) {
+					child = path[--depth];
+				}
+				afterLast = false;
+				return current();
+			}
+			
+			while(curRoot != null) { //go right as far as possible, remembering the way
+				push(curRoot);
+				curRoot = curRoot.right;
+			}
+			afterLast = false;
+			return current();
+		}
+		
+		/**
+		 * Adds the given element to the tree if it is not already present, finding its place
+		 * by seeking from the current element, and moves the cursor to it. Linking in the new
+		 * node still updates every ancestor up to the root, so this is O(H).
+		 * 
+		 * @param e Element to add
+		 * @return true if the tree did not already contain the element
+		 * @throws NullPointerException if the specified element is null
+		 * @throws UnsupportedOperationException if the tree is a snapshot
+		 * @throws ConcurrentModificationException if the tree was changed other than
+		 * 		through this cursor
+		 */
+		public boolean insert(E e) throws NullPointerException, UnsupportedOperationException, ConcurrentModificationException {
+			checkWritable();
+			E found = seek(e);
+			if(found != null && found.compareTo(e) == 0) //already in the tree
+				return false;
+			
+			//the new leaf goes left of the ceiling if it has no left child, and otherwise right
+			//of the rightmost node of the ceiling's left subtree; with no ceiling, it goes right
+			//of the last node of the tree
+			Node<E> curRoot = (depth == 0) ? root : path[depth - 1].left;
+			while(curRoot != null) {
+				push(curRoot);
+				curRoot = curRoot.right;
+			}
+			for(int i = 0; i < depth; i++) { //hand the path to the tree, with the direction taken from each node
+				boolean left = (i + 1 < depth) ? path[i + 1] == path[i].left : e.compareTo(path[i].data) < 0;
+				pushPath(i, path[i], left);
+			}
+			addLeaf(depth, e);
+			expectedModCount = modCount;
+			resync(e); //nodes on the path may have been copied or rotated
+			return true;
+		}
+		
+		/**
+		 * Removes the element the cursor is on from the tree and moves the cursor to the
+		 * next element. This is O(H), since every ancestor of the removed node is updated.
+		 * 
+		 * @return the removed element
+		 * @throws IllegalStateException if the cursor is not on an element
+		 * @throws UnsupportedOperationException if the tree is a snapshot
+		 * @throws ConcurrentModificationException if the tree was changed other than
+		 * 		through this cursor
+		 */
+		public E remove() throws IllegalStateException, UnsupportedOperationException, ConcurrentModificationException {
+			checkWritable();
+			checkForComodification();
+			if(depth == 0)
+				throw new IllegalStateException("Cursor is not on an element");
+			
+			E removed = path[depth - 1].data;
+			for(int i = 0; i < depth - 1; i++) { //hand the path to the parent over to the tree
+				pushPath(i, path[i], path[i + 1] == path[i].left);
+			}
+			removeNode(depth - 1, path[depth - 1]);
+			expectedModCount = modCount;
+			resync(removed); //lands on the next element, since the removed one is gone
+			return removed;
+		}
+		
+		/**
+		 * Private method that finds the path to the least element greater than or equal to
+		 * the given one again from the root, after the tree changed under the path
+		 * 
+		 * @param e Element to find
+		 */
+		private void resync(E e) {
+			depth = 0;
+			afterLast = false;
+			seek(e);
+		}
+		
+		/**
+		 * Private method that adds a node to the end of the path, growing the path if
+		 * the tree is deeper than it can hold
+		 * 
+		 * @param n Node to add
+		 */
+		private void push(Node<E> n) {
+			if(depth == path.length)
+				path = Arrays.copyOf(path, depth * 2);
+			path[depth++] = n;
+		}
+		
+		/**
+		 * Private method that throws if the tree was changed other than through this cursor
+		 * 
+		 * @throws ConcurrentModificationException if the tree was changed
+		 */
+		private void checkForComodification() throws ConcurrentModificationException {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+	
+	/**
+	 * Inorder iterator
+	 * Iterates through the tree with inorder traversal, keeping the path
+	 * from the root to the last returned node
+	 */
+	private class inorderIterator implements Iterator<E> {
+		
+		BST<E> bst;
+		Node<E>[] path; //path from the root to the last returned node, bounded by the tree height
+		int depth; //amount of nodes in the path
+		int remaining; //amount of elements left to return
+		int expectedModCount; //modCount of the tree when we last saw it
+		boolean canRemove; //true if the last returned element can be removed
+		E resumeAfter; //last removed element, if the path has to be found again before moving on
+		
+		/**
+		 * Default constructor, generates iterator in O(1)
+		 */
+		public inorderIterator(BST<E> inBST) {
+			this.bst = inBST;
+			path = newNodeArray(heightOf(root));
+			depth = 0;
+			remaining = size;
+			expectedModCount = modCount;
+		}
+		
+		//moves the path to the node that comes after the last returned one (or to the first node)
+		private void advance() {
+			if(resumeAfter != null)
+				seekBefore(resumeAfter); //the path was broken by a removal
+			
+			Node<E> curRoot;
+			if(depth == 0) { //nothing returned yet, so start from the root
+				curRoot = root;
+			} else if(path[depth - 1].right != null) { //next node is the leftmost one of the right subtree
+				curRoot = path[depth - 1].right;
+			} else {
+				//otherwise go back up until we come from a left child; that parent is next
+				Node<E> child = path[--depth];
+				while(path[depth - 1].right == child) {
+					child = path[--depth];
+				}
+				return;
+			}
+			
+			while(curRoot != null) { //go left as far as possible, remembering the way
+				path[depth++] = curRoot;
+				curRoot = curRoot.left;
+			}
+		}
+		
+		//rebuilds the path to the greatest element smaller than e (or empties it if there is none)
+		private void seekBefore(E e) {
+			resumeAfter = null;
+			int keep = 0; //depth of the last node smaller than e
+			depth = 0;
+			Node<E> curRoot = root;
+			while(curRoot != null) {
+				path[depth++] = curRoot;
+				if(e.compareTo(curRoot.data) > 0) {
+					keep = depth;
+					curRoot = curRoot.right;
+				} else {
+					curRoot = curRoot.left;
+				}
+			}
+			Arrays.fill(path, keep, depth, null);
+			depth = keep;
+		}
+		
+		/**
+		 * Checks if there are any elements left to be iterated over
+		 * 
+		 * @return True if there are elements left to return
+		 */
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+		
+		/**
+		 * Returns next element
+		 * 
+		 * @return The next element in the iteration
+		 * @throws NoSuchElementException if there are no elements left
+		 * @throws ConcurrentModificationException if the tree was changed other
+		 * 		than through this iterator
+		 */
+		@Override
+		public E next() throws NoSuchElementException, ConcurrentModificationException {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			//check to make sure there are items left
+			if(!hasNext())
+				throw new NoSuchElementException("No elements left");
+			
+			advance();
+			remaining--;
+			canRemove = true;
+			return path[depth - 1].data;
+		}
+		
+		/**
+		 * Removes the last element returned by this iterator from the tree in O(H),
+		 * using the path the iterator already holds instead of searching for it
+		 * 
+		 * @throws IllegalStateException if next() has not been called yet, or remove()
+		 * 		has already been called after the last call to next()
+		 * @throws ConcurrentModificationException if the tree was changed other
+		 * 		than through this iterator
+		 * @throws UnsupportedOperationException if this tree is a snapshot
+		 */
+		@Override
+		public void remove() throws IllegalStateException, ConcurrentModificationException, UnsupportedOperationException {
+			checkWritable();
+			if(!canRemove)
+				throw new IllegalStateException("No element to remove");
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			
+			//hand our path over to the tree, which needs to know which way it goes at each node
+			Node<E> target = path[depth - 1];
+			for(int i = 0; i < depth - 1; i++) {
+				pushPath(i, path[i], path[i].left == path[i + 1]);
+			}
+			resumeAfter = target.data; //has to be saved before the node's data is replaced
+			removeNode(depth - 1, target);
+			
+			//rotations may have moved the nodes around, so the path is found again on the next step
+			Arrays.fill(path, 0, depth, null);
+			depth = 0;
+			expectedModCount = modCount;
+			canRemove = false;
+		}
+		
+		/**
+		 * Performs the given action for each remaining element
+		 * 
+		 * @param action The action to be performed for each element
+		 * @throws NullPointerException if the given action is null
+		 * @throws ConcurrentModificationException if the tree was changed other
+		 * 		than through this iterator
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) throws NullPointerException, ConcurrentModificationException {
+			if(action == null)
+				throw new NullPointerException("Given action cannot be null");
+			
+			while(remaining > 0) {
+				if(modCount != expectedModCount)
+					throw new ConcurrentModificationException("Tree was changed during iteration");
+				advance();
+				remaining--;
+				canRemove = true;
+				action.accept(path[depth - 1].data);
+			}
+		}
+	}
+	
+	/**
+	 * Inorder spliterator
+	 * Covers the elements at a range of positions of the tree, keeping a stack of the
+	 * nodes whose elements are next in order, which is filled in from the root when
+	 * the spliterator starts and again after each split
+	 */
+	private class inorderSpliterator implements Spliterator<E> {
+		
+		Node<E> curRoot; //root of the tree when this spliterator was bound
+		int index; //position of the next element to return
+		int fence; //position after the last element to return, or -1 until bound
+		int expectedModCount; //modCount of the tree when this spliterator was bound
+		Node<E>[] stack; //next node on top, then the ancestors still to be returned, or null until used
+		int top; //amount of nodes in the stack
+		
+		/**
+		 * Constructs a spliterator over the given range of positions, which binds to the
+		 * tree on first use
+		 * 
+		 * @param index Position of the first element, inclusive
+		 * @param fence Position after the last element, or -1 to cover the whole tree
+		 * 		once it is first used
+		 */
+		inorderSpliterator(int index, int fence) {
+			this.index = index;
+			this.fence = fence;
+		}
+		
+		/**
+		 * Constructs a spliterator split off a bound one, which stays bound to the same
+		 * root and modCount, so that a change to the tree since the split is still detected
+		 * 
+		 * @param curRoot Root the splitting spliterator is bound to
+		 * @param index Position of the first element, inclusive
+		 * @param fence Position after the last element
+		 * @param expectedModCount modCount the splitting spliterator expects
+		 */
+		inorderSpliterator(Node<E> curRoot, int index, int fence, int expectedModCount) {
+			this.curRoot = curRoot;
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		/**
+		 * Private method that binds this spliterator to the tree on first use
+		 * 
+		 * @return Position after the last element to return
+		 */
+		private int getFence() {
+			if(fence < 0) {
+				curRoot = root;
+				fence = size;
+				expectedModCount = modCount;
+			}
+			return fence;
+		}
+		
+		/**
+		 * Private method that fills the stack with the path from the root to the
+		 * element at the current position, keeping only the nodes we went left from
+		 */
+		private void seek() {
+			stack = newNodeArray(heightOf(curRoot));
+			top = 0;
+			Node<E> n = curRoot;
+			int i = index;
+			while(true) {
+				int leftSize = sizeOf(n.left);
+				if(i < leftSize) { //returned after everything on the left
+					stack[top++] = n;
+					n = n.left;
+				} else if(i > leftSize) { //already behind us
+					i -= leftSize + 1;
+					n = n.right;
+				} else {
+					stack[top++] = n;
+					return;
+				}
+			}
+		}
+		
+		/**
+		 * Private method that pops the next node off the stack, pushing the left
+		 * spine of its right subtree in its place
+		 * 
+		 * @return The next node in order
+		 */
+		private Node<E> pop() {
+			Node<E> n = stack[--top];
+			stack[top] = null;
+			for(Node<E> m = n.right; m != null; m = m.left) {
+				stack[top++] = m;
+			}
+			return n;
+		}
+		
+		/**
+		 * Splits off the first half of the remaining elements
+		 * 
+		 * @return a spliterator over the first half, or null if there are too few elements
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			int hi = getFence();
+			int mid = (index + hi) >>> 1;
+			if(index >= mid) //too small to split
+				return null;
+			Spliterator<E> prefix = new inorderSpliterator(curRoot, index, mid, expectedModCount);
+			index = mid;
+			stack = null; //we have to start again from the root
+			return prefix;
+		}
+		
+		/**
+		 * Performs the given action on the next element, if there is one
+		 * 
+		 * @param action The action to be performed
+		 * @return false if there were no elements left
+		 * @throws NullPointerException if the given action is null
+		 * @throws ConcurrentModificationException if the tree was changed since
+		 * 		this spliterator was bound
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) throws NullPointerException, ConcurrentModificationException {
+			if(action == null)
+				throw new NullPointerException("Given action cannot be null");
+			if(index >= getFence())
+				return false;
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			
+			if(stack == null)
+				seek();
+			index++;
+			action.accept(pop().data);
+			return true;
+		}
+		
+		/**
+		 * Performs the given action on each remaining element
+		 * 
+		 * @param action The action to be performed for each element
+		 * @throws NullPointerException if the given action is null
+		 * @throws ConcurrentModificationException if the tree was changed since
+		 * 		this spliterator was bound
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) throws NullPointerException, ConcurrentModificationException {
+			if(action == null)
+				throw new NullPointerException("Given action cannot be null");
+			int hi = getFence();
+			if(index >= hi)
+				return;
+			if(modCount != expectedModCount) //check before seek walks a tree that may have changed
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			if(stack == null)
+				seek();
+			while(index < hi) {
+				if(modCount != expectedModCount)
+					throw new ConcurrentModificationException("Tree was changed during iteration");
+				index++;
+				action.accept(pop().data);
+			}
+		}
+		
+		/**
+		 * Returns the exact number of elements left
+		 * 
+		 * @return Number of elements left
+		 */
+		@Override
+		public long estimateSize() {
+			return getFence() - index;
+		}
+		
+		/**
+		 * Returns the characteristics of this spliterator
+		 * 
+		 * @return SIZED, SUBSIZED, SORTED, ORDERED, DISTINCT and NONNULL
+		 */
+		@Override
+		public int characteristics() {
+			return SIZED | SUBSIZED | SORTED | ORDERED | DISTINCT | NONNULL;
+		}
+		
+		/**
+		 * Returns null, since the elements are in their natural order
+		 * 
+		 * @return null
+		 */
+		@Override
+		public Comparator<? super E> getComparator() {
+			return null;
+		}
+	}
+	
+	/**
+	 * Preorder iterator
+	 * Iterates through the tree with a preorder traversal
+	 */
+	private class preorderIterator implements Iterator<E> {
+
+		BST<E> bst;
+		Node<E>[] stack; //nodes still to be returned, bounded by the tree height
+		int top; //amount of nodes in the stack
+		int expectedModCount; //modCount of the tree when the iterator was created
+		
+		/**
+		 * Default constructor, generates iterator in O(1)
+		 */
+		public preorderIterator(BST<E> inBST) {
+			this.bst = inBST;
+			stack = newNodeArray(heightOf(root) + 1);
+			top = 0;
+			expectedModCount = modCount;
+			
+			if(root != null)
+				stack[top++] = root; //the root comes first
+		}
+		
+		/**
+		 * Checks if there are any elements left to be iterated over
+		 * 
+		 * @return True if there are elements left to return
+		 */
+		@Override
+		public boolean hasNext() {
+			//if the stack is empty, there's nothing left
+			return top > 0;
+		}
+		
+		/**
+		 * Returns next element
+		 * 
+		 * @return The next element in the iteration
+		 * @throws NoSuchElementException if there are no elements left
+		 * @throws ConcurrentModificationException if the tree was changed during iteration
+		 */
+		@Override
+		public E next() throws NoSuchElementException, ConcurrentModificationException {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			if(top == 0)
+				throw new NoSuchElementException("No elements left");
+			
+			Node<E> n = stack[--top]; //this node,
+			if(n.right != null)
+				stack[top++] = n.right; //and finally, right
+			if(n.left != null)
+				stack[top++] = n.left; //go left (pushed last so it comes out first),
+			return n.data;
+		}
+		
+		/**
+		 * Performs the given action for each remaining element
+		 * 
+		 * @param action The action to be performed for each element
+		 * @throws NullPointerException if the given action is null
+		 * @throws ConcurrentModificationException if the tree was changed during iteration
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) throws NullPointerException, ConcurrentModificationException {
+			if(action == null)
+				throw new NullPointerException("Given action cannot be null");
+			
+			while(top > 0) {
+				if(modCount != expectedModCount)
+					throw new ConcurrentModificationException("Tree was changed during iteration");
+				Node<E> n = stack[--top];
+				if(n.right != null)
+					stack[top++] = n.right;
+				if(n.left != null)
+					stack[top++] = n.left;
+				action.accept(n.data);
+			}
+		}
+	}
+	
+	/**
+	 * Postorder iterator
+	 * Iterates through the tree with a postorder traversal
+	 */
+	private class postorderIterator implements Iterator<E> {
+
+		BST<E> bst;
+		Node<E>[] stack; //path from the root to the next node to return, bounded by the tree height
+		int top; //amount of nodes in the stack
+		int expectedModCount; //modCount of the tree when the iterator was created
+		
+		/**
+		 * Default constructor, generates iterator in O(H)
+		 */
+		public postorderIterator(BST<E> inBST) {
+			this.bst = inBST;
+			stack = newNodeArray(heightOf(root));
+			top = 0;
+			expectedModCount = modCount;
+			
+			descend(root); //the first node is the first leaf
+		}
+		
+		//goes down to the first leaf in postorder, going left whenever we can and right otherwise
+		private void descend(Node<E> curRoot) {
+			while(curRoot != null) {
+				stack[top++] = curRoot;
+				curRoot = (curRoot.left != null) ? curRoot.left : curRoot.right;
+			}
+		}
+		
+		/**
+		 * Checks if there are any elements left to be iterated over
+		 * 
+		 * @return True if there are elements left to return
+		 */
+		@Override
+		public boolean hasNext() {
+			//if the stack is empty, there's nothing left
+			return top > 0;
+		}
+		
+		/**
+		 * Returns next element
+		 * 
+		 * @return The next element in the iteration
+		 * @throws NoSuchElementException if there are no elements left
+		 * @throws ConcurrentModificationException if the tree was changed during iteration
+		 */
+		@Override
+		public E next() throws NoSuchElementException, ConcurrentModificationException {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			if(top == 0)
+				throw new NoSuchElementException("No elements left");
+			
+			Node<E> n = stack[--top];
+			//if we came up from the parent's left side, its right subtree goes next
+			if(top > 0 && stack[top - 1].left == n)
+				descend(stack[top - 1].right);
+			return n.data;
+		}
+		
+		/**
+		 * Performs the given action for each remaining element
+		 * 
+		 * @param action The action to be performed for each element
+		 * @throws NullPointerException if the given action is null
+		 * @throws ConcurrentModificationException if the tree was changed during iteration
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) throws NullPointerException, ConcurrentModificationException {
+			if(action == null)
+				throw new NullPointerException("Given action cannot be null");
+			
+			while(top > 0) {
+				if(modCount != expectedModCount)
+					throw new ConcurrentModificationException("Tree was changed during iteration");
+				Node<E> n = stack[--top];
+				if(top > 0 && stack[top - 1].left == n)
+					descend(stack[top - 1].right);
+				action.accept(n.data);
+			}
+		}
+	}
 }
\ No newline at end of file
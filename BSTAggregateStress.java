@@ -0,0 +1,160 @@
+/**
+ * Check for the subtree aggregates of BST, comparing aggregate with a sum over the same
+ * range of a TreeSet. It runs two phases and exits with status 1 on the first mismatch:
+ *
+ * 1. Balanced, unbalanced and persistent trees are augmented with a sum aggregator and
+ *    then changed at random, checking random ranges and the whole tree after every change.
+ * 2. For every kind of tree, an iterator, a cursor and a spliterator are created before
+ *    augment is called, and each must then fail with ConcurrentModificationException
+ *    instead of going on over nodes without summaries.
+ *
+ * Usage: java project4.BSTAggregateStress [operations]
+ */
+
+package project4;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+
+public class BSTAggregateStress {
+	
+	private static final int KEY_RANGE = 2000;
+	
+	//sum of the keys, as a long so that it cannot overflow
+	private static final Aggregator<Integer, Long> SUM = Aggregator.of(0L, e -> (long) e, Long::sum);
+	
+	/**
+	 * Runs the check.
+	 *
+	 * @param args Optional number of random operations per tree
+	 */
+	public static void main(String[] args) {
+		int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 20_000;
+		
+		for(int kind = 0; kind < 3; kind++) {
+			random(newTree(kind), operations, new Random(kind));
+		}
+		System.out.println("random changes: ok");
+		for(int kind = 0; kind < 3; kind++) {
+			failFast(kind);
+		}
+		System.out.println("fail-fast after augment: ok");
+	}
+	
+	/**
+	 * Private method that returns an empty tree of the given kind
+	 *
+	 * @param kind 0 for unbalanced, 1 for balanced, 2 for balanced and persistent
+	 * @return the tree
+	 */
+	private static BST<Integer> newTree(int kind) {
+		return new BST<Integer>(kind > 0, kind == 2);
+	}
+	
+	/**
+	 * Private method for the first phase, changing a tree at random and checking its sums
+	 *
+	 * @param tree Empty tree to change
+	 * @param operations Number of random changes
+	 * @param random Source of the keys
+	 */
+	private static void random(BST<Integer> tree, int operations, Random random) {
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		for(int i = 0; i < KEY_RANGE / 2; i++) { //some elements before augmenting, to check the first pass
+			Integer key = random.nextInt(KEY_RANGE);
+			tree.add(key);
+			expected.add(key);
+		}
+		tree.augment(SUM);
+		
+		for(int i = 0; i < operations; i++) {
+			Integer key = random.nextInt(KEY_RANGE);
+			if(random.nextBoolean()) {
+				check(tree.add(key), expected.add(key), "add", key);
+			} else {
+				check(tree.remove(key), expected.remove(key), "remove", key);
+			}
+			int from = random.nextInt(KEY_RANGE);
+			int to = from + random.nextInt(KEY_RANGE / 4);
+			check(tree.aggregate(SUM, from, to), sum(expected.subSet(from, true, to, true)), "aggregate", from);
+			check(tree.aggregate(SUM), sum(expected), "aggregate", "all");
+		}
+	}
+	
+	/**
+	 * Private method for the second phase, checking that views created before augment fail fast
+	 *
+	 * @param kind Kind of tree, as for newTree
+	 */
+	private static void failFast(int kind) {
+		BST<Integer> tree = newTree(kind);
+		for(int i = 0; i < 100; i++) {
+			tree.add(i);
+		}
+		Iterator<Integer> iterator = tree.iterator();
+		BST<Integer>.Cursor cursor = tree.cursor();
+		Spliterator<Integer> spliterator = tree.spliterator();
+		spliterator.estimateSize(); //binds it to the tree
+		tree.augment(SUM);
+		
+		expectFailure(() -> {
+			iterator.next();
+			iterator.remove();
+		}, "iterator", kind);
+		expectFailure(() -> cursor.next(), "cursor", kind);
+		expectFailure(() -> spliterator.tryAdvance(e -> { }), "spliterator", kind);
+	}
+	
+	/**
+	 * Private method that exits with status 1 unless the given action throws
+	 * ConcurrentModificationException
+	 *
+	 * @param action Action on a view created before augment
+	 * @param view Name of the view
+	 * @param kind Kind of tree, as for newTree
+	 */
+	private static void expectFailure(Runnable action, String view, int kind) {
+		try {
+			action.run();
+		} catch(ConcurrentModificationException ex) {
+			return;
+		} catch(RuntimeException ex) {
+			System.out.println("FAILED: " + view + " of tree kind " + kind + " threw " + ex);
+			System.exit(1);
+		}
+		System.out.println("FAILED: " + view + " of tree kind " + kind + " went on after augment");
+		System.exit(1);
+	}
+	
+	/**
+	 * Private method that sums the given keys
+	 *
+	 * @param keys Keys to sum
+	 * @return the sum
+	 */
+	private static long sum(Iterable<Integer> keys) {
+		long sum = 0;
+		for(Integer key : keys) {
+			sum += key;
+		}
+		return sum;
+	}
+	
+	/**
+	 * Private method that exits with status 1 if a result differs from the expected one
+	 *
+	 * @param actual Result of the tree
+	 * @param expected Result of the set
+	 * @param operation Name of the operation
+	 * @param key Key or range the operation was given
+	 */
+	private static void check(Object actual, Object expected, String operation, Object key) {
+		if(!actual.equals(expected)) {
+			System.out.println("FAILED: " + operation + "(" + key + ") returned " + actual + ", expected " + expected);
+			System.exit(1);
+		}
+	}
+}
\ No newline at end of file
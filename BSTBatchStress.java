@@ -0,0 +1,144 @@
+/**
+ * Check for the batch lookups of BST, comparing every answer of containsBatch, floorBatch,
+ * ceilingBatch and getBatch with a TreeSet holding the same elements. It runs two phases and exits with
+ * status 1 on the first mismatch:
+ *
+ * 1. Random balanced and unbalanced trees are probed with random sorted batches, including
+ *    duplicates and probes outside the range of the tree.
+ * 2. Unbalanced trees built from ascending and descending keys, which are chains as deep as
+ *    they are large, are probed with every key and every position, on a thread with the
+ *    default stack size, to check that the batch lookups don't run out of stack.
+ *
+ * Usage: java project4.BSTBatchStress [chainLength]
+ */
+
+package project4;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class BSTBatchStress {
+	
+	/**
+	 * Runs the check.
+	 *
+	 * @param args Optional number of elements in the chains of the second phase
+	 */
+	public static void main(String[] args) {
+		int chain = (args.length > 0) ? Integer.parseInt(args[0]) : 20_000;
+		
+		random(new Random(11));
+		System.out.println("random trees: ok");
+		deep(chain, true);
+		deep(chain, false);
+		System.out.println("chains of " + chain + ": ok");
+	}
+	
+	/**
+	 * Private method for the first phase, probing random trees of several sizes
+	 *
+	 * @param random Source of the keys and probes
+	 */
+	private static void random(Random random) {
+		for(boolean balanced : new boolean[] {false, true}) {
+			for(int size : new int[] {0, 1, 2, 10, 1000, 50_000}) {
+				BST<Integer> tree = new BST<Integer>(balanced);
+				TreeSet<Integer> expected = new TreeSet<Integer>();
+				for(int i = 0; i < size; i++) {
+					Integer key = random.nextInt(3 * size + 1);
+					tree.add(key);
+					expected.add(key);
+				}
+				Integer[] probes = new Integer[4096];
+				for(int i = 0; i < probes.length; i++) {
+					probes[i] = random.nextInt(3 * size + 3) - 1;
+				}
+				Arrays.sort(probes);
+				int[] indices = new int[(tree.size() == 0) ? 0 : 4096];
+				for(int i = 0; i < indices.length; i++) {
+					indices[i] = random.nextInt(tree.size());
+				}
+				Arrays.sort(indices);
+				check(tree, expected, probes, indices);
+			}
+		}
+	}
+	
+	/**
+	 * Private method for the second phase, probing a chain with every key and position
+	 *
+	 * @param length Number of elements in the chain
+	 * @param ascending True to build the chain from ascending keys, so it leans right
+	 */
+	private static void deep(int length, boolean ascending) {
+		BST<Integer> tree = new BST<Integer>(false);
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		for(int i = 0; i < length; i++) {
+			Integer key = ascending ? 2 * i : 2 * (length - 1 - i); //even keys, so odd probes miss
+			tree.add(key);
+			expected.add(key);
+		}
+		if(tree.height() != length) {
+			System.out.println("FAILED: chain of " + length + " has height " + tree.height());
+			System.exit(1);
+		}
+		
+		Integer[] probes = new Integer[2 * length + 1];
+		for(int i = 0; i < probes.length; i++) {
+			probes[i] = i - 1;
+		}
+		int[] indices = new int[length];
+		for(int i = 0; i < length; i++) {
+			indices[i] = i;
+		}
+		check(tree, expected, probes, indices);
+	}
+	
+	/**
+	 * Private method that runs every batch lookup and compares each answer with the set.
+	 * The single lookups of an unbalanced tree would take O(n) each on a chain, so the set
+	 * gives the expected answers instead.
+	 *
+	 * @param tree Tree to probe
+	 * @param expected Set holding the same elements
+	 * @param probes Sorted probes
+	 * @param indices Sorted positions within the tree
+	 */
+	private static void check(BST<Integer> tree, TreeSet<Integer> expected, Integer[] probes, int[] indices) {
+		BitSet contained = tree.containsBatch(probes);
+		Integer[] floors = new Integer[probes.length];
+		Integer[] ceilings = new Integer[probes.length];
+		tree.floorBatch(probes, floors);
+		tree.ceilingBatch(probes, ceilings);
+		for(int i = 0; i < probes.length; i++) {
+			check(contained.get(i), expected.contains(probes[i]), "containsBatch", probes[i]);
+			check(floors[i], expected.floor(probes[i]), "floorBatch", probes[i]);
+			check(ceilings[i], expected.ceiling(probes[i]), "ceilingBatch", probes[i]);
+		}
+		
+		Integer[] elements = new Integer[indices.length];
+		tree.getBatch(indices, elements);
+		Object[] sorted = expected.toArray();
+		for(int i = 0; i < indices.length; i++) {
+			check(elements[i], sorted[indices[i]], "getBatch", indices[i]);
+		}
+	}
+	
+	/**
+	 * Private method that exits with status 1 if a batch answer differs from the expected one
+	 *
+	 * @param actual Answer of the batch lookup
+	 * @param expected Answer the set gives
+	 * @param operation Name of the batch lookup
+	 * @param key Probe or position that was looked up
+	 */
+	private static void check(Object actual, Object expected, String operation, Object key) {
+		if(!Objects.equals(actual, expected)) {
+			System.out.println("FAILED: " + operation + "(" + key + ") returned " + actual + ", expected " + expected);
+			System.exit(1);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,404 @@
+/**
+ * Measures the time and allocation per operation of BST, without and with balancing,
+ * against java.util.TreeSet as a baseline. Every operation is run on trees of each of the
+ * given sizes, built by inserting the keys in each of four orders: random, ascending,
+ * descending, and zig-zag (smallest, largest, second smallest, second largest, ...).
+ *
+ * Each measurement is warmed up first, then repeated for the given time. Times are in
+ * nanoseconds per operation, per probe for the batch lookups, or per element for the
+ * traversals, and allocations are in
+ * bytes per operation as counted by the JVM for the benchmark thread, so a change that
+ * makes an operation slower, or makes it allocate where it didn't before, shows up in
+ * the same table. A dash marks operations TreeSet doesn't have, and unbalanced trees
+ * built from sorted orders above DEGENERATE_LIMIT elements, which degrade to O(n)
+ * per operation and would take hours to build.
+ *
+ * Usage: java project4.BSTBenchmark [sizes] [millisPerOperation]
+ * where sizes is a comma separated list, such as 1000,100000,10000000
+ */
+
+package project4;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.IntToLongFunction;
+
+public class BSTBenchmark {
+	
+	//largest unbalanced tree that is built from a sorted order, since those are linked lists
+	private static final int DEGENERATE_LIMIT = 10_000;
+	
+	//largest tree toString is measured on, since the string takes about 20 bytes per element
+	private static final int TO_STRING_LIMIT = 1_000_000;
+	
+	//length of the ranges passed to forEachInRange and countRange
+	private static final int RANGE = 100;
+	
+	//number of sorted probes or positions passed to each call of the batch lookups
+	private static final int BATCH = 64;
+	
+	private static final String[] OPERATIONS = {
+		"add", "contains", "remove+add", "removeAt+add", "get(int)", "lower", "higher", "floor",
+		"ceiling", "rank", "countRange(100)", "forEachInRange(100)", "containsBatch(64)",
+		"floorBatch(64)", "ceilingBatch(64)", "getBatch(64)", "iterator", "preorderIterator",
+		"postorderIterator", "stream", "toString"
+	};
+	
+	//position of the first batch lookup in OPERATIONS; each of them counts as BATCH operations
+	private static final int FIRST_BATCH = 12;
+	
+	//position of the first traversal in OPERATIONS; every operation from there on visits every element
+	private static final int FIRST_TRAVERSAL = 16;
+	
+	//written at the end of every measurement, so the JIT can't drop the results
+	static volatile long blackhole;
+	
+	/**
+	 * Orders in which the keys are inserted
+	 */
+	private enum Order { RANDOM, ASCENDING, DESCENDING, ZIGZAG }
+	
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args Optional comma separated tree sizes and length of each measurement in milliseconds
+	 */
+	public static void main(String[] args) {
+		String[] sizes = ((args.length > 0) ? args[0] : "1000,100000,1000000").split(",");
+		long millis = (args.length > 1) ? Long.parseLong(args[1]) : 200;
+		
+		for(String s : sizes) {
+			int size = Integer.parseInt(s.trim());
+			for(Order order : Order.values()) {
+				System.out.println();
+				System.out.println("size=" + size + ", order=" + order + ", " + millis + " ms per operation");
+				System.out.printf("%-18s %14s %10s %14s %10s %14s %10s%n", "operation",
+						"BST ns", "B", "balanced ns", "B", "TreeSet ns", "B");
+				run(size, order, millis);
+			}
+		}
+	}
+	
+	/**
+	 * Private method that measures every operation on the three trees for one size and
+	 * insertion order, and prints a line for each operation
+	 *
+	 * @param size Number of elements in the trees
+	 * @param order Order in which the elements are inserted
+	 * @param millis Length of each measurement in milliseconds
+	 */
+	private static void run(int size, Order order, long millis) {
+		//the trees hold the even numbers below 2 * size, and probes are drawn from all
+		//numbers below 2 * size, so about half of the lookups hit
+		Integer[] inserts = keys(size, order);
+		Random random = new Random(42);
+		Integer[] probes = new Integer[1 << 16];
+		int[] indexes = new int[probes.length];
+		for(int i = 0; i < probes.length; i++) {
+			probes[i] = random.nextInt(2 * size);
+			indexes[i] = random.nextInt(size);
+		}
+		//the batch lookups take the same probes and positions in sorted runs of BATCH
+		Integer[][] probeBatches = new Integer[probes.length / BATCH][];
+		int[][] indexBatches = new int[probes.length / BATCH][];
+		for(int b = 0; b < probeBatches.length; b++) {
+			probeBatches[b] = Arrays.copyOfRange(probes, b * BATCH, (b + 1) * BATCH);
+			Arrays.sort(probeBatches[b]);
+			indexBatches[b] = Arrays.copyOfRange(indexes, b * BATCH, (b + 1) * BATCH);
+			Arrays.sort(indexBatches[b]);
+		}
+		
+		boolean degenerate = (order != Order.RANDOM && size > DEGENERATE_LIMIT);
+		IntToLongFunction[] plain = degenerate ? new IntToLongFunction[OPERATIONS.length] : bstOperations(false, inserts, probes, indexes, probeBatches, indexBatches);
+		IntToLongFunction[] balanced = bstOperations(true, inserts, probes, indexes, probeBatches, indexBatches);
+		IntToLongFunction[] treeSet = treeSetOperations(inserts, probes, indexes, probeBatches);
+		
+		for(int i = 0; i < OPERATIONS.length; i++) {
+			//traversals visit every element once per call, so they are reported per element,
+			//and batch lookups are reported per probe
+			int perCall = (i >= FIRST_TRAVERSAL) ? size : (i >= FIRST_BATCH) ? BATCH : 1;
+			boolean skip = OPERATIONS[i].equals("toString") && size > TO_STRING_LIMIT;
+			String[] cells = new String[6];
+			IntToLongFunction[][] targets = {plain, balanced, treeSet};
+			for(int t = 0; t < targets.length; t++) {
+				IntToLongFunction op = targets[t][i];
+				if(op == null || skip) {
+					cells[2 * t] = "-";
+					cells[2 * t + 1] = "-";
+				} else {
+					double[] result = measure(op, millis, perCall);
+					cells[2 * t] = String.format("%.1f", result[0]);
+					cells[2 * t + 1] = (result[1] < 0) ? "?" : String.format("%.1f", result[1]);
+				}
+			}
+			System.out.printf("%-18s %14s %10s %14s %10s %14s %10s%n", OPERATIONS[i],
+					cells[0], cells[1], cells[2], cells[3], cells[4], cells[5]);
+		}
+	}
+	
+	/**
+	 * Private method that returns the even numbers below 2 * size in the given order
+	 *
+	 * @param size Number of keys
+	 * @param order Order of the keys
+	 * @return Array of keys
+	 */
+	private static Integer[] keys(int size, Order order) {
+		Integer[] keys = new Integer[size];
+		switch(order) {
+			case RANDOM:
+				for(int i = 0; i < size; i++) {
+					keys[i] = 2 * i;
+				}
+				Random random = new Random(7);
+				for(int i = size - 1; i > 0; i--) { //Fisher-Yates shuffle
+					int j = random.nextInt(i + 1);
+					Integer swap = keys[i];
+					keys[i] = keys[j];
+					keys[j] = swap;
+				}
+				break;
+			case ASCENDING:
+				for(int i = 0; i < size; i++) {
+					keys[i] = 2 * i;
+				}
+				break;
+			case DESCENDING:
+				for(int i = 0; i < size; i++) {
+					keys[i] = 2 * (size - 1 - i);
+				}
+				break;
+			default: //zig-zag between the two ends
+				for(int i = 0; i < size; i++) {
+					keys[i] = 2 * ((i % 2 == 0) ? i / 2 : size - 1 - i / 2);
+				}
+		}
+		return keys;
+	}
+	
+	/**
+	 * Private method that builds a tree out of the given keys and returns every operation on
+	 * it, in the order of OPERATIONS. Each operation takes the number of the call, which picks
+	 * the probe to use, and returns a value derived from its result.
+	 *
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @param inserts Keys in insertion order
+	 * @param probes Random keys to look up
+	 * @param indexes Random positions to look up
+	 * @param probeBatches Sorted runs of random keys for the batch lookups
+	 * @param indexBatches Sorted runs of random positions for getBatch
+	 * @return Array of operations
+	 */
+	private static IntToLongFunction[] bstOperations(boolean balanced, Integer[] inserts, Integer[] probes, int[] indexes,
+			Integer[][] probeBatches, int[][] indexBatches) {
+		BST<Integer> tree = new BST<Integer>(balanced);
+		for(Integer key : inserts) {
+			tree.add(key);
+		}
+		int mask = probes.length - 1;
+		int batchMask = probeBatches.length - 1;
+		int size = inserts.length;
+		Holder<BST<Integer>> fresh = new Holder<BST<Integer>>();
+		Integer[] results = new Integer[BATCH];
+		
+		return new IntToLongFunction[] {
+			i -> { //add, building a new tree every size calls
+				if(i % size == 0)
+					fresh.value = new BST<Integer>(balanced);
+				return fresh.value.add(inserts[i % size]) ? 1 : 0;
+			},
+			i -> tree.contains(probes[i & mask]) ? 1 : 0,
+			i -> { //remove an element and put it back, so the tree stays the same size
+				Integer key = inserts[indexes[i & mask]];
+				return (tree.remove(key) ? 1 : 0) + (tree.add(key) ? 1 : 0);
+			},
+			i -> { //remove by position and put it back
+				Integer removed = tree.removeAt(indexes[i & mask]);
+				return removed + (tree.add(removed) ? 1 : 0);
+			},
+			i -> tree.get(indexes[i & mask]),
+			i -> valueOf(tree.lower(probes[i & mask])),
+			i -> valueOf(tree.higher(probes[i & mask])),
+			i -> valueOf(tree.floor(probes[i & mask])),
+			i -> valueOf(tree.ceiling(probes[i & mask])),
+			i -> tree.rank(probes[i & mask]),
+			i -> {
+				Integer from = probes[i & mask];
+				return tree.countRange(from, true, from + 2 * RANGE, true);
+			},
+			i -> {
+				Integer from = probes[i & mask];
+				return tree.forEachInRange(from, from + 2 * RANGE, e -> { });
+			},
+			i -> tree.containsBatch(probeBatches[i & batchMask]).cardinality(),
+			i -> tree.floorBatch(probeBatches[i & batchMask], results),
+			i -> tree.ceilingBatch(probeBatches[i & batchMask], results),
+			i -> {
+				tree.getBatch(indexBatches[i & batchMask], results);
+				return results[0];
+			},
+			i -> sum(tree.iterator()),
+			i -> sum(tree.preorderIterator()),
+			i -> sum(tree.postorderIterator()),
+			i -> tree.stream().mapToLong(Integer::longValue).sum(),
+			i -> tree.toString().length()
+		};
+	}
+	
+	/**
+	 * Private method that returns every operation on a TreeSet filled with the given keys,
+	 * in the order of OPERATIONS, with null for the operations TreeSet doesn't have
+	 *
+	 * @param inserts Keys in insertion order
+	 * @param probes Random keys to look up
+	 * @param indexes Random positions of keys to remove and add back
+	 * @param probeBatches Sorted runs of random keys, looked up one at a time for the batch lookups
+	 * @return Array of operations
+	 */
+	private static IntToLongFunction[] treeSetOperations(Integer[] inserts, Integer[] probes, int[] indexes, Integer[][] probeBatches) {
+		TreeSet<Integer> set = new TreeSet<Integer>();
+		for(Integer key : inserts) {
+			set.add(key);
+		}
+		int mask = probes.length - 1;
+		int batchMask = probeBatches.length - 1;
+		int size = inserts.length;
+		Holder<TreeSet<Integer>> fresh = new Holder<TreeSet<Integer>>();
+		
+		return new IntToLongFunction[] {
+			i -> {
+				if(i % size == 0)
+					fresh.value = new TreeSet<Integer>();
+				return fresh.value.add(inserts[i % size]) ? 1 : 0;
+			},
+			i -> set.contains(probes[i & mask]) ? 1 : 0,
+			i -> {
+				Integer key = inserts[indexes[i & mask]];
+				return (set.remove(key) ? 1 : 0) + (set.add(key) ? 1 : 0);
+			},
+			null,
+			null,
+			i -> valueOf(set.lower(probes[i & mask])),
+			i -> valueOf(set.higher(probes[i & mask])),
+			i -> valueOf(set.floor(probes[i & mask])),
+			i -> valueOf(set.ceiling(probes[i & mask])),
+			i -> set.headSet(probes[i & mask]).size(), //O(n) in a TreeSet, shown for comparison
+			i -> { //O(M) in a TreeSet, which counts by walking the range
+				Integer from = probes[i & mask];
+				return set.subSet(from, true, from + 2 * RANGE, true).size();
+			},
+			i -> {
+				Integer from = probes[i & mask];
+				return set.subSet(from, true, from + 2 * RANGE, true).size();
+			},
+			i -> { //the batch lookups, one probe at a time
+				long found = 0;
+				for(Integer probe : probeBatches[i & batchMask]) {
+					found += set.contains(probe) ? 1 : 0;
+				}
+				return found;
+			},
+			i -> {
+				long sum = 0;
+				for(Integer probe : probeBatches[i & batchMask]) {
+					sum += valueOf(set.floor(probe));
+				}
+				return sum;
+			},
+			i -> {
+				long sum = 0;
+				for(Integer probe : probeBatches[i & batchMask]) {
+					sum += valueOf(set.ceiling(probe));
+				}
+				return sum;
+			},
+			null,
+			i -> sum(set.iterator()),
+			null,
+			null,
+			i -> set.stream().mapToLong(Integer::longValue).sum(),
+			i -> set.toString().length()
+		};
+	}
+	
+	/**
+	 * Runs the given operation, first to warm it up and then for the given time, and
+	 * returns the time and allocation per operation. BPlusTreeBenchmark measures with it too.
+	 *
+	 * @param op Operation to measure
+	 * @param millis Length of the measurement in milliseconds
+	 * @param perCall Number of operations each call counts as
+	 * @return Nanoseconds per operation, and bytes allocated per operation or -1 if the
+	 * 		JVM can't count allocations
+	 */
+	static double[] measure(IntToLongFunction op, long millis, int perCall) {
+		long sink = 0;
+		int call = 0;
+		long warmup = System.nanoTime() + millis * 500_000L; //half as long as the measurement
+		while(System.nanoTime() < warmup) {
+			sink += op.applyAsLong(call++ & Integer.MAX_VALUE);
+		}
+		
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		long deadline = start + millis * 1_000_000L;
+		long calls = 0;
+		long now;
+		do {
+			sink += op.applyAsLong(call++ & Integer.MAX_VALUE);
+			calls++;
+		} while((now = System.nanoTime()) < deadline);
+		long bytes = allocatedBytes() - allocated;
+		blackhole = sink;
+		
+		double ops = (double) calls * perCall;
+		return new double[] {(now - start) / ops, (allocated < 0) ? -1 : bytes / ops};
+	}
+	
+	/**
+	 * Private method that returns the number of bytes the current thread has allocated
+	 *
+	 * @return Number of bytes allocated, or -1 if the JVM can't count them
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+	
+	/**
+	 * Walks the given iterator to the end
+	 *
+	 * @param it Iterator to walk
+	 * @return Sum of the elements
+	 */
+	static long sum(Iterator<Integer> it) {
+		long sum = 0;
+		while(it.hasNext()) {
+			sum += it.next();
+		}
+		return sum;
+	}
+	
+	/**
+	 * Turns a lookup result into a number
+	 *
+	 * @param e Result of the lookup, may be null
+	 * @return The result, or -1 if it was null
+	 */
+	static long valueOf(Integer e) {
+		return (e == null) ? -1 : e;
+	}
+	
+	/**
+	 * Mutable reference that the operations can replace their tree through
+	 */
+	static final class Holder<T> {
+		T value;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,657 @@
+/**
+ * This is a durable binary search tree. It keeps a balanced, persistent BST in memory and
+ * appends every change that succeeds to a write-ahead journal through a FileChannel, so
+ * that the tree can be recovered after a crash by loading the last snapshot and replaying
+ * the journal on top of it.
+ *
+ * Forcing the journal to disk after every change is slow, so changes can be committed in
+ * groups: the journal is forced once groupSize changes are pending, and, if groupMillis is
+ * positive, by a background thread at least every groupMillis milliseconds. With a group
+ * size of one, every change is on disk before the call that made it returns; otherwise a
+ * crash can lose the changes of the last group, but never leaves the tree half changed.
+ * sync() forces the pending changes at any time.
+ *
+ * The directory holds numbered generations of files: journal-g holds the changes made after
+ * the state saved in snapshot-g. compact() starts a new generation and saves a snapshot of
+ * the tree into it. The tree is persistent, so the snapshot is taken in O(1) and written
+ * out while writers go on changing the tree, after which the older generations are deleted.
+ *
+ * Each journal starts with a four byte header, followed by records made of a type byte, the
+ * length of the encoded element, the element and a CRC32 of all three. A record cut short
+ * or failing its checksum at the end of the newest journal is taken to be a write that a
+ * crash interrupted, and the journal is truncated before it when the tree is opened.
+ *
+ * @param <E> Type of the elements
+ */
+
+package project4;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class BSTJournal<E extends Comparable<E>> implements Closeable {
+	
+	//first four bytes of a journal: "BJN" and the format version
+	private static final int MAGIC = 0x424A4E01;
+	
+	//types of the records in a journal
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte CLEAR = 3;
+	
+	//bytes of a record around the element: type, length and checksum
+	private static final int HEADER_SIZE = 5;
+	private static final int RECORD_OVERHEAD = HEADER_SIZE + 4;
+	
+	private static final String JOURNAL = "journal-";
+	private static final String SNAPSHOT = "snapshot-";
+	
+	private final Path directory;
+	private final Codec<E> codec;
+	private final int groupSize;
+	private final BST<E> tree; //balanced and persistent, so snapshots are O(1)
+	
+	private FileChannel journal; //journal of the current generation, positioned at its end
+	private long generation;
+	private final RecordBuffer pending = new RecordBuffer(); //records not yet written to the journal
+	private final DataOutputStream pendingOut = new DataOutputStream(pending);
+	private int pendingCount = 0;
+	private IOException failure = null; //set once writing the journal fails
+	private boolean closed = false;
+	
+	private final ScheduledExecutorService timer; //forces the journal every groupMillis, or null
+	private final Object compacting = new Object(); //held by compact, so only one runs at a time
+	
+	
+	/**
+	 * Private constructor that takes over a recovered tree and the journal to append to
+	 *
+	 * @param directory Directory holding the files
+	 * @param codec Codec of the elements
+	 * @param groupSize Number of changes to commit together
+	 * @param groupMillis Longest time between commits, or zero for no limit
+	 * @param tree Recovered tree
+	 * @param journal Journal of the newest generation, positioned at its end
+	 * @param generation Number of the newest generation
+	 */
+	private BSTJournal(Path directory, Codec<E> codec, int groupSize, long groupMillis, BST<E> tree, FileChannel journal, long generation) {
+		this.directory = directory;
+		this.codec = codec;
+		this.groupSize = groupSize;
+		this.tree = tree;
+		this.journal = journal;
+		this.generation = generation;
+		
+		if(groupMillis > 0) {
+			timer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "BSTJournal group commit");
+				thread.setDaemon(true); //don't keep the JVM alive for a journal nobody closed
+				return thread;
+			});
+			timer.scheduleWithFixedDelay(this::commitQuietly, groupMillis, groupMillis, TimeUnit.MILLISECONDS);
+		} else {
+			timer = null;
+		}
+	}
+	
+	/**
+	 * Opens the tree kept in the given directory, creating the directory if needed, and
+	 * recovers it from its snapshot and journals. Every change is forced to disk before the
+	 * call that made it returns.
+	 *
+	 * @param <E> Type of the elements
+	 * @param directory Directory holding the files
+	 * @param codec Codec that writes and reads the elements
+	 * @return the recovered tree
+	 * @throws NullPointerException if the directory or codec is null
+	 * @throws IOException if the files cannot be read or written
+	 * @throws StreamCorruptedException if a snapshot or journal is corrupt other than at the
+	 * 		end of the newest journal
+	 */
+	public static <E extends Comparable<E>> BSTJournal<E> open(Path directory, Codec<E> codec) throws NullPointerException, IOException, StreamCorruptedException {
+		return open(directory, codec, 1, 0);
+	}
+	
+	/**
+	 * Opens the tree kept in the given directory, creating the directory if needed, and
+	 * recovers it from its snapshot and journals. Changes are forced to disk in groups of
+	 * groupSize, and, if groupMillis is positive, at least every groupMillis milliseconds.
+	 *
+	 * @param <E> Type of the elements
+	 * @param directory Directory holding the files
+	 * @param codec Codec that writes and reads the elements
+	 * @param groupSize Number of changes to commit together, one to commit each change
+	 * @param groupMillis Longest time in milliseconds that a change waits to be committed,
+	 * 		or zero to only commit full groups
+	 * @return the recovered tree
+	 * @throws NullPointerException if the directory or codec is null
+	 * @throws IllegalArgumentException if groupSize is less than one or groupMillis is negative
+	 * @throws IOException if the files cannot be read or written
+	 * @throws StreamCorruptedException if a snapshot or journal is corrupt other than at the
+	 * 		end of the newest journal
+	 */
+	public static <E extends Comparable<E>> BSTJournal<E> open(Path directory, Codec<E> codec, int groupSize, long groupMillis) throws NullPointerException, IllegalArgumentException, IOException, StreamCorruptedException {
+		if(directory == null || codec == null) //null check
+			throw new NullPointerException("Given directory and codec cannot be null");
+		if(groupSize < 1 || groupMillis < 0)
+			throw new IllegalArgumentException("Group size must be positive and group time cannot be negative");
+		Files.createDirectories(directory);
+		
+		//find the newest snapshot and every journal
+		long newest = -1;
+		TreeMap<Long, Path> journals = new TreeMap<Long, Path>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for(Path file : files) {
+				String name = file.getFileName().toString();
+				if(name.startsWith(SNAPSHOT) && name.endsWith(".tmp")) { //left by a compaction that crashed
+					Files.delete(file);
+				} else if(name.startsWith(SNAPSHOT)) {
+					newest = Math.max(newest, generationOf(name, SNAPSHOT));
+				} else if(name.startsWith(JOURNAL)) {
+					journals.put(generationOf(name, JOURNAL), file);
+				}
+			}
+		}
+		
+		//load the snapshot, then replay every journal from its generation on, in order
+		BST<E> tree;
+		if(newest < 0) {
+			tree = new BST<E>(true, true);
+		} else {
+			try(FileChannel in = FileChannel.open(directory.resolve(SNAPSHOT + newest), StandardOpenOption.READ)) {
+				tree = BST.readFrom(in, codec);
+			}
+		}
+		long generation = Math.max(newest, 0);
+		for(Long g : journals.tailMap(generation).keySet()) {
+			boolean last = g.equals(journals.lastKey());
+			replay(journals.get(g), tree, codec, last);
+			generation = g;
+		}
+		
+		FileChannel journal;
+		if(journals.containsKey(generation)) {
+			journal = FileChannel.open(journals.get(generation), StandardOpenOption.WRITE);
+			journal.position(journal.size());
+		} else {
+			journal = createJournal(directory, generation);
+		}
+		return new BSTJournal<E>(directory, codec, groupSize, groupMillis, tree, journal, generation);
+	}
+	
+	/**
+	 * Private method that returns the generation in the name of a snapshot or journal
+	 *
+	 * @param name Name of the file
+	 * @param prefix Prefix of the name before the generation
+	 * @return the generation
+	 * @throws StreamCorruptedException if the rest of the name is not a generation
+	 */
+	private static long generationOf(String name, String prefix) throws StreamCorruptedException {
+		try {
+			return Long.parseLong(name.substring(prefix.length()));
+		} catch(NumberFormatException ex) {
+			throw new StreamCorruptedException("Unexpected file " + name);
+		}
+	}
+	
+	/**
+	 * Private method that applies every record of the given journal to the tree. If the
+	 * journal is the newest one and its last record, the one whose declared length reaches
+	 * or passes the end of the file, is cut short or fails its checksum, it was being written
+	 * when the tree was last closed or crashed, so the journal is truncated before it. A bad
+	 * record anywhere else means the journal is damaged, and nothing is truncated.
+	 *
+	 * @param <E> Type of the elements
+	 * @param file Journal to replay
+	 * @param tree Tree to apply the records to
+	 * @param codec Codec that reads the elements
+	 * @param last True if this is the newest journal
+	 * @throws IOException if the journal cannot be read or truncated, or the codec cannot
+	 * 		read an element whose record is intact
+	 * @throws StreamCorruptedException if the journal is not a journal, or holds a bad record
+	 * 		other than the last record of the newest journal
+	 */
+	private static <E extends Comparable<E>> void replay(Path file, BST<E> tree, Codec<E> codec, boolean last) throws IOException, StreamCorruptedException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+			if(size < 4 || in.readInt() != MAGIC) {
+				if(last && size < 4) { //crashed while creating it
+					channel.truncate(0);
+					writeHeader(channel);
+					return;
+				}
+				throw new StreamCorruptedException(file + " is not a journal");
+			}
+			
+			long position = 4; //end of the last good record
+			byte[] header = new byte[HEADER_SIZE];
+			CRC32 crc = new CRC32();
+			while(position < size) {
+				long remaining = size - position;
+				long end = size + 1; //end of the record; a header cut short runs past the end of the file
+				byte[] element = null;
+				if(remaining >= HEADER_SIZE) {
+					in.readFully(header);
+					int length = ByteBuffer.wrap(header, 1, 4).getInt();
+					end = position; //a negative length gives no end, so the record can't be told to be the last
+					if(length >= 0) {
+						end = position + RECORD_OVERHEAD + length;
+						if(end <= size) { //the whole record is there, so check it
+							byte[] bytes = new byte[length];
+							in.readFully(bytes);
+							crc.reset();
+							crc.update(header);
+							crc.update(bytes);
+							if(in.readInt() == (int) crc.getValue())
+								element = bytes;
+						}
+					}
+				}
+				
+				if(element == null) {
+					//a crash can only tear the last record, which reaches the end of the file;
+					//a bad record with good ones after it means the journal itself is damaged
+					if(!last || end < size)
+						throw new StreamCorruptedException(file + " has a bad record at byte " + position);
+					channel.truncate(position);
+					channel.force(true);
+					return;
+				}
+				apply(header[0], element, tree, codec);
+				position = end;
+			}
+		}
+	}
+	
+	/**
+	 * Private method that applies one record to the tree
+	 *
+	 * @param <E> Type of the elements
+	 * @param type Type of the record
+	 * @param element Encoded element of the record
+	 * @param tree Tree to apply it to
+	 * @param codec Codec that reads the element
+	 * @throws IOException if the codec cannot read the element
+	 * @throws StreamCorruptedException if the type is unknown, since the checksum passed
+	 */
+	private static <E extends Comparable<E>> void apply(byte type, byte[] element, BST<E> tree, Codec<E> codec) throws IOException, StreamCorruptedException {
+		if(type == CLEAR) {
+			tree.clear();
+			return;
+		}
+		E e = codec.read(new DataInputStream(new ByteArrayInputStream(element)));
+		if(type == ADD) {
+			tree.add(e);
+		} else if(type == REMOVE) {
+			tree.remove(e);
+		} else {
+			throw new StreamCorruptedException("Unknown record type " + type);
+		}
+	}
+	
+	/**
+	 * Private method that creates the journal of the given generation, with its header on disk
+	 *
+	 * @param directory Directory holding the files
+	 * @param generation Generation of the journal
+	 * @return the new journal, positioned after its header
+	 * @throws IOException if the journal cannot be created
+	 */
+	private static FileChannel createJournal(Path directory, long generation) throws IOException {
+		FileChannel channel = FileChannel.open(directory.resolve(JOURNAL + generation),
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		writeHeader(channel);
+		syncDirectory(directory);
+		return channel;
+	}
+	
+	/**
+	 * Private method that writes the header of a journal and forces it to disk
+	 *
+	 * @param channel Empty journal
+	 * @throws IOException if writing fails
+	 */
+	private static void writeHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4).putInt(MAGIC);
+		header.flip();
+		while(header.hasRemaining()) {
+			channel.write(header);
+		}
+		channel.force(true);
+	}
+	
+	/**
+	 * Private method that forces the entries of the directory to disk, so that files created,
+	 * renamed or deleted in it stay that way after a crash. Not every platform can open a
+	 * directory, in which case this does nothing.
+	 *
+	 * @param directory Directory to force
+	 */
+	private static void syncDirectory(Path directory) {
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch(IOException ex) {
+			//the platform doesn't support it, and renames there are durable on their own
+		}
+	}
+	
+	/**
+	 * Adds the specified element to this tree if it is not already present, and journals
+	 * the change.
+	 *
+	 * @param e element to be added to this tree
+	 * @return true if this tree did not already contain the specified element
+	 * @throws NullPointerException if the specified element is null
+	 * @throws IOException if the journal cannot be written, or failed before
+	 */
+	public synchronized boolean add(E e) throws NullPointerException, IOException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		int start = appendRecord(ADD, e);
+		if(!tree.add(e)) { //nothing changed, so there is nothing to journal
+			pending.truncate(start);
+			return false;
+		}
+		recorded();
+		return true;
+	}
+	
+	/**
+	 * Removes the specified element from this tree if it is present, and journals the change.
+	 *
+	 * @param e element to be removed from this tree
+	 * @return true if this tree contained the specified element
+	 * @throws NullPointerException if the specified element is null
+	 * @throws IOException if the journal cannot be written, or failed before
+	 */
+	public synchronized boolean remove(E e) throws NullPointerException, IOException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		int start = appendRecord(REMOVE, e);
+		if(!tree.remove(e)) {
+			pending.truncate(start);
+			return false;
+		}
+		recorded();
+		return true;
+	}
+	
+	/**
+	 * Removes all of the elements from this tree, and journals the change.
+	 *
+	 * @throws IOException if the journal cannot be written, or failed before
+	 */
+	public synchronized void clear() throws IOException {
+		appendRecord(CLEAR, null);
+		tree.clear();
+		recorded();
+	}
+	
+	/**
+	 * Private method that encodes a record at the end of the pending records. The element
+	 * is encoded before the tree is changed, so a codec that fails leaves both unchanged.
+	 *
+	 * @param type Type of the record
+	 * @param e Element of the record, or null for none
+	 * @return Position of the record in the pending records, to take it back
+	 * @throws IOException if the journal failed before, or the codec fails
+	 */
+	private int appendRecord(byte type, E e) throws IOException {
+		checkUsable();
+		int start = pending.size();
+		try {
+			pendingOut.writeByte(type);
+			pendingOut.writeInt(0); //length, filled in once the element is written
+			if(e != null)
+				codec.write(e, pendingOut);
+		} catch(IOException | RuntimeException ex) {
+			pending.truncate(start);
+			throw ex;
+		}
+		pending.finishRecord(start);
+		return start;
+	}
+	
+	/**
+	 * Private method that counts a pending record, and commits the group once it is full
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	private void recorded() throws IOException {
+		pendingCount++;
+		if(pendingCount >= groupSize)
+			commit();
+	}
+	
+	/**
+	 * Forces every change made so far to disk.
+	 *
+	 * @throws IOException if the journal cannot be written, or failed before
+	 */
+	public synchronized void sync() throws IOException {
+		checkUsable();
+		commit();
+	}
+	
+	/**
+	 * Private method that writes the pending records to the journal and forces it to disk.
+	 * If that fails, the journal no longer matches the tree, so every later change fails too.
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	private void commit() throws IOException {
+		if(pendingCount == 0)
+			return;
+		
+		try {
+			ByteBuffer buffer = pending.toByteBuffer();
+			while(buffer.hasRemaining()) {
+				journal.write(buffer);
+			}
+			journal.force(false); //on most platforms this still writes the new length, which recovery needs
+		} catch(IOException ex) {
+			failure = ex;
+			throw ex;
+		}
+		pending.reset();
+		pendingCount = 0;
+	}
+	
+	/**
+	 * Private method for the timer that commits the pending records. A failure is kept in
+	 * failure and reported by the next call on this tree.
+	 */
+	private synchronized void commitQuietly() {
+		if(closed || failure != null)
+			return;
+		try {
+			commit();
+		} catch(IOException ex) {
+			//commit recorded it
+		}
+	}
+	
+	/**
+	 * Private method that checks this tree can still be changed
+	 *
+	 * @throws IOException if the journal failed before or was closed
+	 */
+	private void checkUsable() throws IOException {
+		if(closed)
+			throw new IOException("Journal is closed");
+		if(failure != null)
+			throw new IOException("Journal failed earlier", failure);
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified element.
+	 *
+	 * @param e element whose presence in this tree is to be tested
+	 * @return true if this tree contains the specified element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public synchronized boolean contains(E e) throws NullPointerException {
+		return tree.contains(e);
+	}
+	
+	/**
+	 * Returns the number of elements in this tree.
+	 *
+	 * @return number of elements in this tree
+	 */
+	public synchronized int size() {
+		return tree.size();
+	}
+	
+	/**
+	 * Returns an immutable snapshot of this tree in O(1), which supports every query of BST
+	 * and can be read from any number of threads without locking while this tree changes.
+	 *
+	 * @return a snapshot of this tree
+	 */
+	public synchronized BST<E> snapshot() {
+		return tree.snapshot();
+	}
+	
+	/**
+	 * Saves a snapshot of this tree and deletes the journals it replaces, so that recovery
+	 * no longer has to replay them. Writers are only held up while the journal is switched
+	 * to a new generation; the snapshot is written out while they go on, so this can be
+	 * called from a background thread at any time. Only one compaction runs at a time.
+	 *
+	 * @throws IOException if the snapshot or the new journal cannot be written, or the
+	 * 		journal failed before
+	 */
+	public void compact() throws IOException {
+		synchronized(compacting) {
+			BST<E> snapshot;
+			long g;
+			synchronized(this) { //start a new generation, whose snapshot is this tree right now
+				checkUsable();
+				commit();
+				FileChannel next = createJournal(directory, generation + 1);
+				journal.close();
+				journal = next;
+				generation++;
+				g = generation;
+				snapshot = tree.snapshot();
+			}
+			
+			//write the snapshot under a temporary name, and only give it its real name once it
+			//is complete on disk, so recovery never sees half a snapshot
+			Path temporary = directory.resolve(SNAPSHOT + g + ".tmp");
+			try(FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				snapshot.writeTo(out, codec);
+				out.force(true);
+			}
+			Files.move(temporary, directory.resolve(SNAPSHOT + g), StandardCopyOption.ATOMIC_MOVE);
+			syncDirectory(directory);
+			
+			//the older generations are now covered by the snapshot
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for(Path file : files) {
+					String name = file.getFileName().toString();
+					if(name.endsWith(".tmp"))
+						continue;
+					if((name.startsWith(SNAPSHOT) && generationOf(name, SNAPSHOT) < g)
+							|| (name.startsWith(JOURNAL) && generationOf(name, JOURNAL) < g))
+						Files.delete(file);
+				}
+			}
+			syncDirectory(directory);
+		}
+	}
+	
+	/**
+	 * Commits the pending changes and closes the journal. Closing a closed tree does nothing.
+	 *
+	 * @throws IOException if the pending changes cannot be written
+	 */
+	public synchronized void close() throws IOException {
+		if(closed)
+			return;
+		closed = true;
+		if(timer != null)
+			timer.shutdown();
+		try {
+			if(failure == null)
+				commit();
+		} finally {
+			journal.close();
+		}
+	}
+	
+	/**
+	 * This is the buffer of pending records, which writes them to the journal without
+	 * copying them and lets the last record be finished or taken back.
+	 */
+	private static class RecordBuffer extends ByteArrayOutputStream {
+		
+		/**
+		 * Constructs an empty buffer.
+		 */
+		private RecordBuffer() {
+			super(1 << 12);
+		}
+		
+		/**
+		 * Fills in the length and appends the checksum of the record starting at the given
+		 * position, whose element has just been written.
+		 *
+		 * @param start Position of the record
+		 */
+		private void finishRecord(int start) {
+			int length = count - start - HEADER_SIZE;
+			ByteBuffer.wrap(buf, start + 1, 4).putInt(length);
+			CRC32 crc = new CRC32();
+			crc.update(buf, start, count - start);
+			int value = (int) crc.getValue();
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+		
+		/**
+		 * Drops everything from the given position on.
+		 *
+		 * @param start Position to truncate at
+		 */
+		private void truncate(int start) {
+			count = start;
+		}
+		
+		/**
+		 * Returns the buffered bytes, without copying them.
+		 *
+		 * @return the buffered bytes
+		 */
+		private ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,308 @@
+/**
+ * Check for BSTJournal, comparing the recovered tree with a TreeSet. It runs three phases
+ * and exits with status 1 on the first mismatch:
+ *
+ * 1. Random adds, removes, clears and compactions with several group sizes, closing and
+ *    reopening the journal every so often, and checking the recovered tree every time.
+ * 2. The last record of the journal is torn, by cutting it short or by breaking its
+ *    checksum, and reopening must drop only that record and truncate the journal there.
+ * 3. A record in the middle of the journal is broken, and reopening must fail with
+ *    StreamCorruptedException without truncating anything. A codec that fails on an
+ *    intact record must not truncate the journal either.
+ *
+ * Usage: java project4.BSTJournalStress [operations]
+ */
+
+package project4;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+public class BSTJournalStress {
+	
+	//bytes of a journal header, and of a record of an Integer: type, length, element and checksum
+	private static final int HEADER = 4;
+	private static final int RECORD = 13;
+	
+	/**
+	 * Runs the check.
+	 *
+	 * @param args Optional number of random operations per group size
+	 * @throws IOException if the temporary directories cannot be used
+	 */
+	public static void main(String[] args) throws IOException {
+		int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 5_000;
+		
+		for(int groupSize : new int[] {1, 16, 1000}) {
+			Path directory = Files.createTempDirectory("journal");
+			try {
+				random(directory, groupSize, operations, new Random(groupSize));
+			} finally {
+				delete(directory);
+			}
+		}
+		System.out.println("random changes and reopens: ok");
+		
+		Path directory = Files.createTempDirectory("journal");
+		try {
+			tornTail(directory);
+			System.out.println("torn last record: ok");
+			damagedMiddle(directory);
+			System.out.println("damaged middle record: ok");
+		} finally {
+			delete(directory);
+		}
+	}
+	
+	/**
+	 * Private method for the first phase, checking the recovered tree after random changes
+	 *
+	 * @param directory Empty directory for the journal
+	 * @param groupSize Number of changes to commit together
+	 * @param operations Number of random operations
+	 * @param random Source of the keys and operations
+	 * @throws IOException if the journal cannot be used
+	 */
+	private static void random(Path directory, int groupSize, int operations, Random random) throws IOException {
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		BSTJournal<Integer> journal = BSTJournal.open(directory, Codec.INTEGER, groupSize, 0);
+		for(int i = 0; i < operations; i++) {
+			Integer key = random.nextInt(1000);
+			int choice = random.nextInt(100);
+			if(choice < 50) {
+				check(journal.add(key), expected.add(key), "add " + key);
+			} else if(choice < 95) {
+				check(journal.remove(key), expected.remove(key), "remove " + key);
+			} else if(choice < 96) {
+				journal.clear();
+				expected.clear();
+			} else if(choice < 98) {
+				journal.compact();
+			} else { //close, which commits everything, and recover
+				journal.close();
+				journal = BSTJournal.open(directory, Codec.INTEGER, groupSize, 0);
+				check(journal.snapshot(), expected, "reopen after " + i + " operations");
+			}
+		}
+		journal.close();
+		journal = BSTJournal.open(directory, Codec.INTEGER, groupSize, 0);
+		check(journal.snapshot(), expected, "final reopen");
+		journal.close();
+	}
+	
+	/**
+	 * Private method for the second phase, tearing the last record in both ways
+	 *
+	 * @param directory Empty directory for the journal
+	 * @throws IOException if the journal cannot be used
+	 */
+	private static void tornTail(Path directory) throws IOException {
+		TreeSet<Integer> expected = write(directory, 10);
+		Path file = journalOf(directory);
+		
+		//cut short, as a crash in the middle of the write would leave it
+		resize(file, HEADER + 10 * RECORD - 3);
+		expected.remove(9);
+		reopen(directory, expected, "cut short");
+		check(Files.size(file), (long) (HEADER + 9 * RECORD), "journal size after cutting short");
+		
+		//whole, but with a broken checksum
+		flip(file, HEADER + 8 * RECORD + 6);
+		expected.remove(8);
+		reopen(directory, expected, "broken checksum");
+		check(Files.size(file), (long) (HEADER + 8 * RECORD), "journal size after broken checksum");
+	}
+	
+	/**
+	 * Private method for the third phase, breaking a record with good ones after it
+	 *
+	 * @param directory Directory holding the journal of the second phase
+	 * @throws IOException if the journal cannot be used
+	 */
+	private static void damagedMiddle(Path directory) throws IOException {
+		delete(directory);
+		Files.createDirectories(directory);
+		write(directory, 10);
+		Path file = journalOf(directory);
+		long size = Files.size(file);
+		
+		flip(file, HEADER + 4 * RECORD + 6); //the element of the fifth of ten records
+		try {
+			BSTJournal.open(directory, Codec.INTEGER).close();
+			fail("a damaged middle record was not reported");
+		} catch(StreamCorruptedException ex) {
+			//expected
+		}
+		check(Files.size(file), size, "journal size after a damaged middle record");
+		
+		//a negative length gives the record no end, so it is reported as damage too
+		flip(file, HEADER + 4 * RECORD + 6); //repair it
+		flip(file, HEADER + 4 * RECORD + 1);
+		try {
+			BSTJournal.open(directory, Codec.INTEGER).close();
+			fail("a damaged middle length was not reported");
+		} catch(StreamCorruptedException ex) {
+			//expected
+		}
+		check(Files.size(file), size, "journal size after a damaged middle length");
+		flip(file, HEADER + 4 * RECORD + 1);
+		
+		//every record is intact, but the codec can't read them
+		Codec<Integer> broken = new Codec<Integer>() {
+			@Override
+			public void write(Integer e, DataOutput out) throws IOException {
+				out.writeInt(e);
+			}
+			
+			@Override
+			public Integer read(DataInput in) throws IOException {
+				return (int) in.readLong(); //reads past the end of the element
+			}
+		};
+		try {
+			BSTJournal.open(directory, broken).close();
+			fail("a failing codec was not reported");
+		} catch(IOException ex) {
+			//expected
+		}
+		check(Files.size(file), size, "journal size after a failing codec");
+	}
+	
+	/**
+	 * Private method that adds the keys 0 to count - 1 to a new journal, one record each
+	 *
+	 * @param directory Directory for the journal
+	 * @param count Number of keys
+	 * @return the keys that were added
+	 * @throws IOException if the journal cannot be used
+	 */
+	private static TreeSet<Integer> write(Path directory, int count) throws IOException {
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		try(BSTJournal<Integer> journal = BSTJournal.open(directory, Codec.INTEGER)) {
+			for(int i = 0; i < count; i++) {
+				journal.add(i);
+				expected.add(i);
+			}
+		}
+		return expected;
+	}
+	
+	/**
+	 * Private method that reopens the journal and checks the recovered tree
+	 *
+	 * @param directory Directory holding the journal
+	 * @param expected Elements the tree must hold
+	 * @param what Description of the case
+	 * @throws IOException if the journal cannot be used
+	 */
+	private static void reopen(Path directory, TreeSet<Integer> expected, String what) throws IOException {
+		try(BSTJournal<Integer> journal = BSTJournal.open(directory, Codec.INTEGER)) {
+			check(journal.snapshot(), expected, what);
+		}
+	}
+	
+	/**
+	 * Private method that returns the only journal in the directory
+	 *
+	 * @param directory Directory holding the journal
+	 * @return the journal
+	 * @throws IOException if the directory cannot be listed
+	 */
+	private static Path journalOf(Path directory) throws IOException {
+		try(Stream<Path> files = Files.list(directory)) {
+			return files.filter(f -> f.getFileName().toString().startsWith("journal-")).findFirst().get();
+		}
+	}
+	
+	/**
+	 * Private method that truncates a file
+	 *
+	 * @param file File to truncate
+	 * @param size New size of the file
+	 * @throws IOException if the file cannot be truncated
+	 */
+	private static void resize(Path file, long size) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(size);
+		}
+	}
+	
+	/**
+	 * Private method that inverts the bits of one byte of a file
+	 *
+	 * @param file File to change
+	 * @param position Position of the byte
+	 * @throws IOException if the file cannot be changed
+	 */
+	private static void flip(Path file, long position) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(1);
+			channel.read(b, position);
+			b.put(0, (byte) ~b.get(0));
+			b.rewind();
+			channel.write(b, position);
+		}
+	}
+	
+	/**
+	 * Private method that deletes a directory and everything in it
+	 *
+	 * @param directory Directory to delete
+	 * @throws IOException if anything cannot be deleted
+	 */
+	private static void delete(Path directory) throws IOException {
+		if(!Files.exists(directory))
+			return;
+		try(Stream<Path> files = Files.walk(directory)) {
+			for(Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+	
+	/**
+	 * Private method that exits with status 1 if a tree does not hold the expected elements
+	 *
+	 * @param tree Recovered tree
+	 * @param expected Elements it must hold
+	 * @param what Description of the case
+	 */
+	private static void check(BST<Integer> tree, TreeSet<Integer> expected, String what) {
+		if(!Arrays.equals(tree.toArray(), expected.toArray()))
+			fail(what + ": tree has " + tree.size() + " elements, expected " + expected.size());
+	}
+	
+	/**
+	 * Private method that exits with status 1 if a result differs from the expected one
+	 *
+	 * @param actual Result of the journal
+	 * @param expected Expected result
+	 * @param what Description of the case
+	 */
+	private static void check(Object actual, Object expected, String what) {
+		if(!actual.equals(expected))
+			fail(what + " returned " + actual + ", expected " + expected);
+	}
+	
+	/**
+	 * Private method that reports a failure and exits with status 1
+	 *
+	 * @param message Description of the failure
+	 */
+	private static void fail(String message) {
+		System.out.println("FAILED: " + message);
+		System.exit(1);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,454 @@
+/**
+ * These are the metrics of one BST, which the tree records while they are turned on with
+ * BST.enableMetrics(). For each Operation they count the calls, the compareTo calls and the
+ * nodes visited, and sort the latency of every call into a histogram with one bucket per
+ * power of two nanoseconds. Comparing the nodes visited per call with the ideal height shows
+ * whether slow calls come from a deep tree, and comparing the latency with the comparisons
+ * shows whether they come from an expensive compareTo. A range query counts the nodes on its
+ * way down to the first element and the nodes it reports, and its comparisons against the
+ * upper bound. countRange counts the nodes on the paths to both of its bounds.
+ *
+ * The counters are LongAdders, so several threads can record at once. The numbers can be
+ * read as a Snapshot, or over JMX once the metrics are registered with register(String).
+ */
+
+package project4;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class BSTMetrics implements BSTMetricsMXBean {
+	
+	/**
+	 * Operations that are measured: REMOVE covers remove and removeAt, GET is get(int),
+	 * RANGE covers getRange and forEachInRange, NEIGHBOR covers lower, higher, floor and
+	 * ceiling, and RANK covers rank, indexOf, countLess and countRange
+	 */
+	public enum Operation { ADD, CONTAINS, REMOVE, GET, RANGE, NEIGHBOR, RANK }
+	
+	//bucket i holds latencies below 2^i nanoseconds, and the last one everything slower
+	private static final int BUCKETS = 40;
+	
+	private static final Operation[] OPERATIONS = Operation.values();
+	
+	private final BST<?> tree; //tree these are the metrics of
+	private final LongAdder[] counts = adders(OPERATIONS.length);
+	private final LongAdder[] comparisons = adders(OPERATIONS.length);
+	private final LongAdder[] visited = adders(OPERATIONS.length);
+	private final LongAdder[] totalNanos = adders(OPERATIONS.length);
+	private final LongAdder[][] latencies = new LongAdder[OPERATIONS.length][];
+	private ObjectName name; //name this is registered with JMX under, or null
+	
+	/**
+	 * Constructs empty metrics for the given tree
+	 *
+	 * @param tree Tree to record the metrics of
+	 */
+	BSTMetrics(BST<?> tree) {
+		this.tree = tree;
+		for(int i = 0; i < latencies.length; i++) {
+			latencies[i] = adders(BUCKETS);
+		}
+	}
+	
+	/**
+	 * Private method that creates an array of new adders
+	 *
+	 * @param length Number of adders
+	 * @return Array of adders
+	 */
+	private static LongAdder[] adders(int length) {
+		LongAdder[] adders = new LongAdder[length];
+		for(int i = 0; i < length; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+	
+	/**
+	 * Package-private method that records one call of an operation
+	 *
+	 * @param op Operation that was called
+	 * @param start System.nanoTime() when the call started
+	 * @param nodes Number of nodes the call visited
+	 * @param compares Number of compareTo calls it made
+	 */
+	void record(Operation op, long start, int nodes, int compares) {
+		long nanos = System.nanoTime() - start;
+		int i = op.ordinal();
+		counts[i].increment();
+		visited[i].add(nodes);
+		comparisons[i].add(compares);
+		totalNanos[i].add(nanos);
+		latencies[i][Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1)].increment();
+	}
+	
+	/**
+	 * Returns the numbers recorded so far, along with the current height and size of the
+	 * tree. The counters are read one at a time, so calls that finish while the snapshot is
+	 * taken may be counted in some of them and not in others.
+	 *
+	 * @return a snapshot of these metrics
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+	
+	/**
+	 * Sets every counter and histogram back to zero.
+	 */
+	@Override
+	public void reset() {
+		for(int i = 0; i < OPERATIONS.length; i++) {
+			counts[i].reset();
+			comparisons[i].reset();
+			visited[i].reset();
+			totalNanos[i].reset();
+			for(LongAdder bucket : latencies[i]) {
+				bucket.reset();
+			}
+		}
+	}
+	
+	/**
+	 * Registers these metrics with the platform MBean server under the name
+	 * project4:type=BST,name=(the given name).
+	 *
+	 * @param name Name to tell this tree apart from others
+	 * @return the name the metrics were registered under
+	 * @throws NullPointerException if the given name is null
+	 * @throws IllegalStateException if these metrics are already registered
+	 * @throws JMException if the name is not valid or is already taken
+	 */
+	public synchronized ObjectName register(String name) throws NullPointerException, IllegalStateException, JMException {
+		if(name == null) //null check
+			throw new NullPointerException("Given name cannot be null");
+		if(this.name != null)
+			throw new IllegalStateException("Metrics are already registered as " + this.name);
+		
+		ObjectName objectName = new ObjectName("project4:type=BST,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.name = objectName;
+		return objectName;
+	}
+	
+	/**
+	 * Unregisters these metrics from the platform MBean server, if they are registered.
+	 *
+	 * @throws JMException if the MBean server fails to unregister them
+	 */
+	public synchronized void unregister() throws JMException {
+		if(name == null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if(server.isRegistered(name))
+			server.unregisterMBean(name);
+		name = null;
+	}
+	
+	/**
+	 * Returns the number of calls of each operation.
+	 *
+	 * @return Number of calls by operation
+	 */
+	@Override
+	public Map<String, Long> getCounts() {
+		return byOperation(Snapshot::getCount);
+	}
+	
+	/**
+	 * Returns the number of compareTo calls made by each operation.
+	 *
+	 * @return Number of comparisons by operation
+	 */
+	@Override
+	public Map<String, Long> getComparisons() {
+		return byOperation(Snapshot::getComparisons);
+	}
+	
+	/**
+	 * Returns the number of nodes visited by each operation.
+	 *
+	 * @return Number of nodes visited by operation
+	 */
+	@Override
+	public Map<String, Long> getNodesVisited() {
+		return byOperation(Snapshot::getNodesVisited);
+	}
+	
+	/**
+	 * Returns the mean latency of each operation in nanoseconds.
+	 *
+	 * @return Mean latency by operation
+	 */
+	@Override
+	public Map<String, Double> getMeanLatencyNanos() {
+		Snapshot snapshot = snapshot();
+		Map<String, Double> map = new LinkedHashMap<String, Double>();
+		for(Operation op : OPERATIONS) {
+			map.put(op.name(), snapshot.getMeanLatencyNanos(op));
+		}
+		return map;
+	}
+	
+	/**
+	 * Returns the median latency of each operation in nanoseconds, rounded up to the
+	 * end of its histogram bucket.
+	 *
+	 * @return Median latency by operation
+	 */
+	@Override
+	public Map<String, Long> getMedianLatencyNanos() {
+		return byOperation((snapshot, op) -> snapshot.getLatencyPercentileNanos(op, 50));
+	}
+	
+	/**
+	 * Returns the 99th percentile latency of each operation in nanoseconds, rounded up
+	 * to the end of its histogram bucket.
+	 *
+	 * @return 99th percentile latency by operation
+	 */
+	@Override
+	public Map<String, Long> getP99LatencyNanos() {
+		return byOperation((snapshot, op) -> snapshot.getLatencyPercentileNanos(op, 99));
+	}
+	
+	/**
+	 * Returns the current height of the tree. The tree is read without any locking,
+	 * so while it is being changed the result may be out of date.
+	 *
+	 * @return Height of the tree, or 0 if it is empty
+	 */
+	@Override
+	public int getHeight() {
+		return heightOf(tree);
+	}
+	
+	/**
+	 * Returns the height a perfectly balanced tree of the current size would have.
+	 *
+	 * @return Ideal height of the tree
+	 */
+	@Override
+	public int getIdealHeight() {
+		return idealHeight(tree.size());
+	}
+	
+	/**
+	 * Returns the current size of the tree.
+	 *
+	 * @return Size of the tree
+	 */
+	@Override
+	public int getSize() {
+		return tree.size();
+	}
+	
+	/**
+	 * Private method that takes a snapshot and maps every operation to a number from it
+	 *
+	 * @param value Function reading the number for an operation from the snapshot
+	 * @return Map from operation name to number, in the order of Operation
+	 */
+	private Map<String, Long> byOperation(ToLongBiFunction<Snapshot, Operation> value) {
+		Snapshot snapshot = snapshot();
+		Map<String, Long> map = new LinkedHashMap<String, Long>();
+		for(Operation op : OPERATIONS) {
+			map.put(op.name(), value.applyAsLong(snapshot, op));
+		}
+		return map;
+	}
+	
+	/**
+	 * Private method that reads the height of the given tree without failing when it is empty
+	 *
+	 * @param tree Tree to read the height of
+	 * @return Height of the tree, or 0 if it is empty
+	 */
+	private static int heightOf(BST<?> tree) {
+		BST.Node<?> root = tree.rootNode();
+		return (root == null) ? 0 : root.height;
+	}
+	
+	/**
+	 * Private method that returns the height of a perfectly balanced tree of the given size
+	 *
+	 * @param size Number of elements
+	 * @return Smallest height that can hold that many elements
+	 */
+	private static int idealHeight(int size) {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+	
+	/**
+	 * Immutable copy of the metrics of a tree at one point in time
+	 */
+	public static final class Snapshot {
+		
+		private final long[] counts = new long[OPERATIONS.length];
+		private final long[] comparisons = new long[OPERATIONS.length];
+		private final long[] visited = new long[OPERATIONS.length];
+		private final long[] totalNanos = new long[OPERATIONS.length];
+		private final long[][] latencies = new long[OPERATIONS.length][BUCKETS];
+		private final int height;
+		private final int size;
+		
+		/**
+		 * Constructs a snapshot of the given metrics
+		 *
+		 * @param metrics Metrics to copy
+		 */
+		private Snapshot(BSTMetrics metrics) {
+			for(int i = 0; i < OPERATIONS.length; i++) {
+				counts[i] = metrics.counts[i].sum();
+				comparisons[i] = metrics.comparisons[i].sum();
+				visited[i] = metrics.visited[i].sum();
+				totalNanos[i] = metrics.totalNanos[i].sum();
+				for(int b = 0; b < BUCKETS; b++) {
+					latencies[i][b] = metrics.latencies[i][b].sum();
+				}
+			}
+			height = heightOf(metrics.tree);
+			size = metrics.tree.size();
+		}
+		
+		/**
+		 * Returns the number of calls of the given operation.
+		 *
+		 * @param op Operation to look up
+		 * @return Number of calls
+		 */
+		public long getCount(Operation op) {
+			return counts[op.ordinal()];
+		}
+		
+		/**
+		 * Returns the number of compareTo calls made by the given operation.
+		 *
+		 * @param op Operation to look up
+		 * @return Number of comparisons
+		 */
+		public long getComparisons(Operation op) {
+			return comparisons[op.ordinal()];
+		}
+		
+		/**
+		 * Returns the number of nodes visited by the given operation.
+		 *
+		 * @param op Operation to look up
+		 * @return Number of nodes visited
+		 */
+		public long getNodesVisited(Operation op) {
+			return visited[op.ordinal()];
+		}
+		
+		/**
+		 * Returns the mean latency of the given operation.
+		 *
+		 * @param op Operation to look up
+		 * @return Mean latency in nanoseconds, or 0 if it was never called
+		 */
+		public double getMeanLatencyNanos(Operation op) {
+			long count = counts[op.ordinal()];
+			return (count == 0) ? 0 : (double) totalNanos[op.ordinal()] / count;
+		}
+		
+		/**
+		 * Returns the latency histogram of the given operation, in which entry i counts the
+		 * calls that took less than 2^i nanoseconds (and at least 2^(i-1)), except for the
+		 * last entry, which counts every slower call.
+		 *
+		 * @param op Operation to look up
+		 * @return a copy of the histogram
+		 */
+		public long[] getLatencyHistogram(Operation op) {
+			return latencies[op.ordinal()].clone();
+		}
+		
+		/**
+		 * Returns the given percentile of the latency of the given operation, rounded up to
+		 * the end of its histogram bucket.
+		 *
+		 * @param op Operation to look up
+		 * @param percentile Percentile between 0 and 100
+		 * @return Latency in nanoseconds below which the given percentage of calls finished,
+		 * 		or 0 if the operation was never called
+		 * @throws IllegalArgumentException if the percentile is not between 0 and 100
+		 */
+		public long getLatencyPercentileNanos(Operation op, double percentile) throws IllegalArgumentException {
+			if(!(percentile >= 0 && percentile <= 100))
+				throw new IllegalArgumentException("Percentile must be between 0 and 100");
+			long[] histogram = latencies[op.ordinal()];
+			long count = 0;
+			for(long bucket : histogram) {
+				count += bucket;
+			}
+			if(count == 0)
+				return 0;
+			
+			long rank = (long) Math.ceil(percentile / 100 * count); //calls at or below the percentile
+			long seen = 0;
+			for(int b = 0; b < BUCKETS - 1; b++) {
+				seen += histogram[b];
+				if(seen >= rank)
+					return (1L << b) - 1; //largest latency in bucket b
+			}
+			return Long.MAX_VALUE; //in the last bucket, which has no upper end
+		}
+		
+		/**
+		 * Returns the height of the tree when the snapshot was taken.
+		 *
+		 * @return Height of the tree, or 0 if it was empty
+		 */
+		public int getHeight() {
+			return height;
+		}
+		
+		/**
+		 * Returns the height a perfectly balanced tree of the same size would have.
+		 *
+		 * @return Ideal height of the tree
+		 */
+		public int getIdealHeight() {
+			return idealHeight(size);
+		}
+		
+		/**
+		 * Returns the size of the tree when the snapshot was taken.
+		 *
+		 * @return Size of the tree
+		 */
+		public int getSize() {
+			return size;
+		}
+		
+		/**
+		 * Returns a summary with one line per operation that was called.
+		 *
+		 * @return String representation of this snapshot
+		 */
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("size=").append(size).append(", height=").append(height)
+					.append(", ideal height=").append(getIdealHeight());
+			for(Operation op : OPERATIONS) {
+				long count = getCount(op);
+				if(count == 0)
+					continue;
+				sb.append(String.format("%n%s: %d calls, %.1f nodes and %.1f comparisons per call, mean %.0f ns, p50 %d ns, p99 %d ns",
+						op, count, (double) getNodesVisited(op) / count, (double) getComparisons(op) / count,
+						getMeanLatencyNanos(op), getLatencyPercentileNanos(op, 50), getLatencyPercentileNanos(op, 99)));
+			}
+			return sb.toString();
+		}
+	}
+}
\ No newline at end of file
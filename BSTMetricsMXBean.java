@@ -0,0 +1,81 @@
+/**
+ * Management interface of BSTMetrics. Every map is keyed by operation name (ADD, CONTAINS,
+ * REMOVE, GET, RANGE, NEIGHBOR and RANK), and shows up in JMX clients as a table.
+ */
+
+package project4;
+
+import java.util.Map;
+
+public interface BSTMetricsMXBean {
+	
+	/**
+	 * Returns the number of calls of each operation.
+	 *
+	 * @return Number of calls by operation
+	 */
+	Map<String, Long> getCounts();
+	
+	/**
+	 * Returns the number of compareTo calls made by each operation.
+	 *
+	 * @return Number of comparisons by operation
+	 */
+	Map<String, Long> getComparisons();
+	
+	/**
+	 * Returns the number of nodes visited by each operation.
+	 *
+	 * @return Number of nodes visited by operation
+	 */
+	Map<String, Long> getNodesVisited();
+	
+	/**
+	 * Returns the mean latency of each operation in nanoseconds.
+	 *
+	 * @return Mean latency by operation
+	 */
+	Map<String, Double> getMeanLatencyNanos();
+	
+	/**
+	 * Returns the median latency of each operation in nanoseconds, rounded up to the
+	 * end of its histogram bucket.
+	 *
+	 * @return Median latency by operation
+	 */
+	Map<String, Long> getMedianLatencyNanos();
+	
+	/**
+	 * Returns the 99th percentile latency of each operation in nanoseconds, rounded up
+	 * to the end of its histogram bucket.
+	 *
+	 * @return 99th percentile latency by operation
+	 */
+	Map<String, Long> getP99LatencyNanos();
+	
+	/**
+	 * Returns the current height of the tree.
+	 *
+	 * @return Height of the tree
+	 */
+	int getHeight();
+	
+	/**
+	 * Returns the height a perfectly balanced tree of the current size would have.
+	 *
+	 * @return Ideal height of the tree
+	 */
+	int getIdealHeight();
+	
+	/**
+	 * Returns the current size of the tree.
+	 *
+	 * @return Size of the tree
+	 */
+	int getSize();
+	
+	/**
+	 * Sets every counter and histogram back to zero.
+	 */
+	void reset();
+}
\ No newline at end of file
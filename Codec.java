@@ -0,0 +1,113 @@
+/**
+ * This is a binary encoding of the elements of a tree, used by BST.writeTo and BST.readFrom
+ * to save a tree and load it again. Constants are provided for the common key types; for
+ * other types, implement write and read so that read returns an element equal to the one
+ * that was written.
+ *
+ * @param <E> Type of the elements
+ */
+
+package project4;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public interface Codec<E> {
+	
+	/**
+	 * Codec for Integer elements, 4 bytes each
+	 */
+	Codec<Integer> INTEGER = new Codec<Integer>() {
+		@Override
+		public void write(Integer e, DataOutput out) throws IOException {
+			out.writeInt(e);
+		}
+		
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+	
+	/**
+	 * Codec for Long elements, 8 bytes each
+	 */
+	Codec<Long> LONG = new Codec<Long>() {
+		@Override
+		public void write(Long e, DataOutput out) throws IOException {
+			out.writeLong(e);
+		}
+		
+		@Override
+		public Long read(DataInput in) throws IOException {
+			return in.readLong();
+		}
+	};
+	
+	/**
+	 * Codec for Double elements, 8 bytes each
+	 */
+	Codec<Double> DOUBLE = new Codec<Double>() {
+		@Override
+		public void write(Double e, DataOutput out) throws IOException {
+			out.writeDouble(e);
+		}
+		
+		@Override
+		public Double read(DataInput in) throws IOException {
+			return in.readDouble();
+		}
+	};
+	
+	/**
+	 * Codec for String elements, each written as its length in bytes followed by its UTF-8 bytes
+	 */
+	Codec<String> STRING = new Codec<String>() {
+		@Override
+		public void write(String e, DataOutput out) throws IOException {
+			byte[] bytes = e.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		
+		@Override
+		public String read(DataInput in) throws IOException {
+			int length = in.readInt();
+			if(length < 0)
+				throw new StreamCorruptedException("Negative string length " + length);
+			//the length hasn't been checked against anything yet, so grow the array as the
+			//bytes arrive instead of trusting it, and a corrupt length can't allocate a huge array
+			byte[] bytes = new byte[Math.min(length, 1 << 13)];
+			int read = 0;
+			while(read < length) {
+				if(read == bytes.length)
+					bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * read));
+				in.readFully(bytes, read, bytes.length - read); //throws EOFException if the input ends first
+				read = bytes.length;
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+	
+	/**
+	 * Writes one element.
+	 *
+	 * @param e Element to write, never null
+	 * @param out Output to write it to
+	 * @throws IOException if the output fails
+	 */
+	void write(E e, DataOutput out) throws IOException;
+	
+	/**
+	 * Reads one element written by write.
+	 *
+	 * @param in Input to read it from
+	 * @return the element that was read
+	 * @throws IOException if the input fails, ends early or holds invalid data
+	 */
+	E read(DataInput in) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,869 @@
+/**
+ * This is a thread-safe binary search tree. It wraps a BST and guards it with a
+ * StampedLock: mutations take the write lock, lookups first search the tree under an
+ * optimistic read and only take the read lock if a writer got in the way, so readers
+ * never block each other and mostly never touch shared state at all. Operations that
+ * return many elements take the read lock directly.
+ */
+
+package project4;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+public class ConcurrentBST<E extends Comparable<E>> implements Iterable<E>{
+	
+	//kinds of searches that can run under an optimistic read
+	private static final int EXACT = 0;
+	private static final int LOWER = 1;
+	private static final int HIGHER = 2;
+	private static final int CEILING = 3;
+	private static final int FLOOR = 4;
+	private static final int FIRST = 5;
+	private static final int LAST = 6;
+	private static final int INDEX = 7;
+	
+	//returned by a search that gave up, since null is a valid result
+	private static final Object RETRY = new Object();
+	
+	//number of elements an iterator copies out of the tree each time it takes the read lock
+	private static final int ITERATOR_BATCH = 64;
+	
+	private final BST<E> tree; //the tree being guarded
+	private final StampedLock lock = new StampedLock();
+	
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order.
+	 */
+	public ConcurrentBST() {
+		this(false);
+	}
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order. If balanced is true,
+	 * the tree stays AVL balanced, which also keeps the time writers hold the lock
+	 * down to O(log n).
+	 *
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 */
+	public ConcurrentBST(boolean balanced) {
+		this(balanced, false);
+	}
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order. If persistent is true, the
+	 * tree copies the paths it changes instead of changing nodes, so that snapshot() can
+	 * hand out immutable snapshots that readers can use without any locking.
+	 *
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @param persistent true if the tree should copy paths instead of changing nodes
+	 */
+	public ConcurrentBST(boolean balanced, boolean persistent) {
+		tree = new BST<E>(balanced, persistent);
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection,
+	 * built perfectly balanced.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @throws NullPointerException if the given collection is null or contains null
+	 */
+	public ConcurrentBST(Collection<? extends E> collection) throws NullPointerException {
+		this(collection, false);
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection,
+	 * built perfectly balanced.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @throws NullPointerException if the given collection is null or contains null
+	 */
+	public ConcurrentBST(Collection<? extends E> collection, boolean balanced) throws NullPointerException {
+		tree = new BST<E>(collection, balanced);
+	}
+	
+	/**
+	 * Private method that runs the given search, first under an optimistic read and then,
+	 * if a writer changed the tree in the meantime, under the read lock
+	 *
+	 * @param mode Kind of search to run
+	 * @param e Element to search for, if the search needs one
+	 * @param index Index to search for, if the search needs one
+	 * @return Result of the search
+	 */
+	@SuppressWarnings("unchecked")
+	private E read(int mode, E e, int index) {
+		long stamp = lock.tryOptimisticRead();
+		if(stamp != 0L) { //zero if a writer holds the lock right now
+			try {
+				Object result = search(mode, e, index);
+				if(result != RETRY && lock.validate(stamp))
+					return (E) result;
+			} catch(RuntimeException ex) {
+				//a search over a half-changed tree can fail in any way, but if no writer
+				//got in, the tree was consistent and the exception is a genuine one
+				if(lock.validate(stamp))
+					throw ex;
+			}
+		}
+		
+		stamp = lock.readLock();
+		try {
+			return (E) search(mode, e, index); //the tree can't change, so this never gives up
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Private method that searches the tree without any locking. While a writer is in the
+	 * middle of a rotation the nodes can briefly form a cycle, so the search gives up once
+	 * it has visited more nodes than the tree is high, which no real path can do.
+	 *
+	 * @param mode Kind of search to run
+	 * @param e Element to search for, if the search needs one
+	 * @param index Index to search for, if the search needs one
+	 * @return Element found, null if there is none, or RETRY if the search gave up
+	 * @throws IndexOutOfBoundsException if an index search is out of range
+	 * @throws NoSuchElementException if the tree is empty on a first or last search
+	 */
+	private Object search(int mode, E e, int index) throws IndexOutOfBoundsException, NoSuchElementException {
+		BST.Node<E> curRoot = tree.rootNode();
+		if(curRoot == null) {
+			if(mode == FIRST || mode == LAST)
+				throw new NoSuchElementException("Tree is empty");
+			if(mode == INDEX)
+				throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+			return null;
+		}
+		int steps = curRoot.height; //no path from the root is longer than the height
+		
+		if(mode == INDEX) {
+			if(index < 0 || index >= curRoot.size) //range check
+				throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+			while(true) {
+				if(steps-- == 0)
+					return RETRY;
+				int leftSize = (curRoot.left == null) ? 0 : curRoot.left.size;
+				if(index == leftSize)
+					return curRoot.data;
+				if(index < leftSize) {
+					curRoot = curRoot.left;
+				} else {
+					index -= leftSize + 1;
+					curRoot = curRoot.right;
+				}
+			}
+		}
+		
+		if(mode == FIRST || mode == LAST) {
+			BST.Node<E> next = (mode == FIRST) ? curRoot.left : curRoot.right;
+			while(next != null) { //go as far to that side as possible
+				if(steps-- == 0)
+					return RETRY;
+				curRoot = next;
+				next = (mode == FIRST) ? curRoot.left : curRoot.right;
+			}
+			return curRoot.data;
+		}
+		
+		E result = null; //closest candidate found so far
+		while(curRoot != null) {
+			if(steps-- == 0)
+				return RETRY;
+			int comp = e.compareTo(curRoot.data);
+			if(comp == 0) {
+				if(mode == LOWER) { //an equal element isn't lower, so keep looking left
+					comp = -1;
+				} else if(mode == HIGHER) { //nor is it higher, so keep looking right
+					comp = 1;
+				} else {
+					return curRoot.data;
+				}
+			}
+			if(comp < 0) { //node is greater than e
+				if(mode == HIGHER || mode == CEILING)
+					result = curRoot.data;
+				curRoot = curRoot.left;
+			} else { //node is less than e
+				if(mode == LOWER || mode == FLOOR)
+					result = curRoot.data;
+				curRoot = curRoot.right;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the specified element to this tree if it is not already present.
+	 *
+	 * @param e element to be added to this tree
+	 * @return true if this tree did not already contain the specified element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean add(E e) throws NullPointerException {
+		long stamp = lock.writeLock();
+		try {
+			return tree.add(e);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Adds all of the elements in the specified collection to this tree, holding the
+	 * write lock for the whole call so that readers see either none or all of them.
+	 *
+	 * @param collection to be added
+	 * @return true if this set changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null or
+	 * 		if any element of the collection is null
+	 */
+	public boolean addAll(Collection<? extends E> collection) throws NullPointerException {
+		long stamp = lock.writeLock();
+		try {
+			return tree.addAll(collection);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Adds all of the elements in the specified collection to this tree using
+	 * BST.parallelAddAll, holding the write lock for the whole call so that readers
+	 * see either none or all of them.
+	 *
+	 * @param collection to be added
+	 * @return true if this set changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null or
+	 * 		if any element of the collection is null
+	 */
+	public boolean parallelAddAll(Collection<? extends E> collection) throws NullPointerException {
+		long stamp = lock.writeLock();
+		try {
+			return tree.parallelAddAll(collection);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Removes the specified element from this tree if it is present.
+	 *
+	 * @param o Object to be removed
+	 * @return true if item is removed
+	 * @throws ClassCastException if the specified object cannot be compared with the
+	 * 		elements currently in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean remove(Object o) throws ClassCastException, NullPointerException {
+		long stamp = lock.writeLock();
+		try {
+			return tree.remove(o);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Removes the element at the specified position in this tree.
+	 *
+	 * @param index Index of the element to remove
+	 * @return Element that was removed
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public E removeAt(int index) throws IndexOutOfBoundsException {
+		long stamp = lock.writeLock();
+		try {
+			return tree.removeAt(index);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Removes all of the elements from this tree.
+	 */
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			tree.clear();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Returns an immutable snapshot of this tree in O(1), taken under the read lock. The
+	 * snapshot can be traversed, indexed and ranged over from any thread without locking,
+	 * while writers keep changing this tree.
+	 *
+	 * @return an immutable snapshot of this tree
+	 * @throws IllegalStateException if this tree is not persistent
+	 */
+	public BST<E> snapshot() throws IllegalStateException {
+		long stamp = lock.readLock();
+		try {
+			return tree.snapshot();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified element. Never blocks
+	 * unless a writer changes the tree during the search.
+	 *
+	 * @param o Object to look for
+	 * @return true if the tree contains the object
+	 * @throws ClassCastException if the specified object cannot be compared
+	 * 		with the elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) throws ClassCastException, NullPointerException {
+		if(o == null) //null check
+			throw new NullPointerException("Given item cannot be null");
+		
+		return read(EXACT, (E) o, 0) != null;
+	}
+	
+	/**
+	 * Returns true if this tree contains all of the elements in the specified collection.
+	 * Each element is looked up separately, so the answer is not atomic.
+	 *
+	 * @param c Collection to compare
+	 * @return true if this tree contains all of the elements in the specified collection
+	 * @throws NullPointerException if the specified collection is null or contains null
+	 */
+	public boolean containsAll(Collection<?> c) throws NullPointerException {
+		if(c == null) //null check
+			throw new NullPointerException("Given collection cannot be null");
+		
+		for(Object item : c) {
+			if(item == null) //null check each item
+				throw new NullPointerException("Given collection cannot contain null items");
+			if(!contains(item))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the element at the specified position in this tree. Never blocks
+	 * unless a writer changes the tree during the search.
+	 *
+	 * @param index Index of the element to return
+	 * @return Element at given index
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public E get(int index) throws IndexOutOfBoundsException {
+		return read(INDEX, null, index);
+	}
+	
+	/**
+	 * Returns the first (lowest) element currently in this tree.
+	 *
+	 * @return the first (lowest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E first() throws NoSuchElementException {
+		return read(FIRST, null, 0);
+	}
+	
+	/**
+	 * Returns the last (highest) element currently in this tree.
+	 *
+	 * @return last (highest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E last() throws NoSuchElementException {
+		return read(LAST, null, 0);
+	}
+	
+	/**
+	 * Returns the greatest element in this tree strictly less than the
+	 * given element, or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the greatest element less than e, or null if there is no such element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E lower(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		return read(LOWER, e, 0);
+	}
+	
+	/**
+	 * Returns the least element in this tree strictly greater than the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the least element greater than e, or null if there is no such element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E higher(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		return read(HIGHER, e, 0);
+	}
+	
+	/**
+	 * Returns the least element in this tree greater than or equal to the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the least element in this tree greater than or equal to the given element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E ceiling(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		return read(CEILING, e, 0);
+	}
+	
+	/**
+	 * Returns the greatest element in this tree less than or equal to the given
+	 * element, or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the greatest element less than or equal to e, or null if there is no such element
+	 * @throws ClassCastException if the specified element cannot be compared with the
+	 * 		elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E floor(E e) throws ClassCastException, NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		return read(FLOOR, e, 0);
+	}
+	
+	/**
+	 * Checks every element of the given sorted array for containment in one descent of the
+	 * tree, under a single read lock, and returns a BitSet with bit i set if probes[i] is in
+	 * this tree.
+	 *
+	 * @param probes Elements to look for, in ascending order, duplicates allowed
+	 * @return BitSet of the probes that are contained in this tree
+	 * @throws NullPointerException if the array or any of its elements is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order
+	 */
+	public BitSet containsBatch(E[] probes) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.containsBatch(probes);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Finds the floor of every element of the given sorted array in one descent of the tree,
+	 * under a single read lock, and stores the floor of probes[i] in results[i].
+	 *
+	 * @param probes Elements to compare, in ascending order, duplicates allowed
+	 * @param results Array to fill, at least as long as probes
+	 * @return the number of probes that have a floor
+	 * @throws NullPointerException if either array or any of the probes is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order, or results is too short
+	 */
+	public int floorBatch(E[] probes, E[] results) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.floorBatch(probes, results);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Finds the ceiling of every element of the given sorted array in one descent of the
+	 * tree, under a single read lock, and stores the ceiling of probes[i] in results[i].
+	 *
+	 * @param probes Elements to compare, in ascending order, duplicates allowed
+	 * @param results Array to fill, at least as long as probes
+	 * @return the number of probes that have a ceiling
+	 * @throws NullPointerException if either array or any of the probes is null
+	 * @throws IllegalArgumentException if the probes are not in ascending order, or results is too short
+	 */
+	public int ceilingBatch(E[] probes, E[] results) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.ceilingBatch(probes, results);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the elements at every one of the given sorted positions in one descent of the
+	 * tree, under a single read lock, storing the element at indices[i] in results[i].
+	 *
+	 * @param indices Positions of the elements to return, in ascending order, duplicates allowed
+	 * @param results Array to fill, at least as long as indices
+	 * @throws NullPointerException if either array is null
+	 * @throws IllegalArgumentException if the indices are not in ascending order, or results is too short
+	 * @throws IndexOutOfBoundsException if any index is negative or not less than the tree size
+	 */
+	public void getBatch(int[] indices, E[] results) throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException {
+		long stamp = lock.readLock();
+		try {
+			tree.getBatch(indices, results);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the number of elements in this tree.
+	 *
+	 * @return number of elements in this tree
+	 */
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int size = tree.size();
+		if(!lock.validate(stamp)) { //a writer got in, so read it again under the lock
+			stamp = lock.readLock();
+			try {
+				size = tree.size();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns true if this tree contains no elements.
+	 *
+	 * @return true if this tree contains no elements
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	/**
+	 * Returns the height of this tree.
+	 *
+	 * @return the height of this tree or zero if the tree is empty
+	 */
+	public int height() {
+		long stamp = lock.readLock();
+		try {
+			return tree.height();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree if it is contained in the
+	 * tree; otherwise, (-(insertion point) - 1).
+	 *
+	 * @param e Element to look for
+	 * @return Index of the element, or (-(insertion point) - 1) if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int rank(E e) throws NullPointerException {
+		long stamp = lock.readLock();
+		try {
+			return tree.rank(e);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree, or -1 if it is not in this tree.
+	 *
+	 * @param e Element to look for
+	 * @return Index of the element, or -1 if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int indexOf(E e) throws NullPointerException {
+		long stamp = lock.readLock();
+		try {
+			return tree.indexOf(e);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the number of elements in this tree that are strictly less than the
+	 * specified element.
+	 *
+	 * @param e Element to compare
+	 * @return Number of elements less than e
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int countLess(E e) throws NullPointerException {
+		long stamp = lock.readLock();
+		try {
+			return tree.countLess(e);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the number of elements in this tree between the given bounds, each of which
+	 * is included if its flag is true.
+	 *
+	 * @param fromElement Lower bound of range
+	 * @param fromInclusive true if the lower bound is included
+	 * @param toElement Higher bound of range
+	 * @param toInclusive true if the higher bound is included
+	 * @return Number of elements in the range
+	 * @throws NullPointerException if either bound is null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public int countRange(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.countRange(fromElement, fromInclusive, toElement, toInclusive);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Augments this tree with the given aggregator, or turns the augmentation off if it is
+	 * null, under the write lock.
+	 *
+	 * @param aggregator Aggregator whose summaries to keep, or null for none
+	 */
+	public void augment(Aggregator<? super E, ?> aggregator) {
+		long stamp = lock.writeLock();
+		try {
+			tree.augment(aggregator);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Returns the summary of the elements of this tree from fromElement, inclusive, to
+	 * toElement, inclusive, in O(H). The tree must have been augmented with the given aggregator.
+	 *
+	 * @param <A> Type of the summaries
+	 * @param aggregator Aggregator this tree is augmented with
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @return the summary of the elements in the range
+	 * @throws NullPointerException if the aggregator, fromElement or toElement are null
+	 * @throws IllegalArgumentException if this tree is not augmented with the given
+	 * 		aggregator, or if fromElement is larger than toElement
+	 */
+	public <A> A aggregate(Aggregator<? super E, A> aggregator, E fromElement, E toElement) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.aggregate(aggregator, fromElement, toElement);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns a collection whose elements range from fromElement, inclusive, to toElement,
+	 * inclusive, copied out under the read lock.
+	 *
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @return ArrayList of the elements in the range
+	 * @throws NullPointerException if either bound is null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public ArrayList<E> getRange(E fromElement, E toElement) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.getRange(fromElement, toElement);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Passes every element from fromElement, inclusive, to toElement, inclusive, to the given
+	 * action in ascending order. The read lock is held while the action runs, so the action
+	 * must not change this tree.
+	 *
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param action Action to perform on each element in the range
+	 * @return Number of elements in the range
+	 * @throws NullPointerException if either bound or the action is null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement
+	 */
+	public int forEachInRange(E fromElement, E toElement, Consumer<? super E> action) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.forEachInRange(fromElement, toElement, action);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns up to limit elements of the range from fromElement, inclusive, to toElement,
+	 * inclusive, after skipping the first offset elements.
+	 *
+	 * @param fromElement Lower bound of range
+	 * @param toElement Higher bound of range
+	 * @param offset Number of elements of the range to skip
+	 * @param limit Maximum number of elements to return
+	 * @return ArrayList of the elements in the page
+	 * @throws NullPointerException if either bound is null
+	 * @throws IllegalArgumentException if fromElement is larger than toElement, or offset
+	 * 		or limit is negative
+	 */
+	public ArrayList<E> getRange(E fromElement, E toElement, int offset, int limit) throws NullPointerException, IllegalArgumentException {
+		long stamp = lock.readLock();
+		try {
+			return tree.getRange(fromElement, toElement, offset, limit);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns an array containing all of the elements in this tree in ascending order.
+	 *
+	 * @return an array containing all of the elements in this tree
+	 */
+	public Object[] toArray() {
+		long stamp = lock.readLock();
+		try {
+			return tree.toArray();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns a string representation of this tree, inorder.
+	 *
+	 * @return String representation of this tree
+	 */
+	@Override
+	public String toString() {
+		long stamp = lock.readLock();
+		try {
+			return tree.toString();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns a weakly consistent iterator over the elements in this tree in ascending
+	 * order. It never throws ConcurrentModificationException, returns every element at
+	 * most once, and reflects some of the changes made after it was created. It copies
+	 * the elements out in small batches, holding the read lock only while it copies a
+	 * batch, and supports remove().
+	 *
+	 * @return an iterator over the elements in this tree in ascending order
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new weakIterator();
+	}
+	
+	/**
+	 * Weakly consistent iterator
+	 * Copies the elements after the last returned one out of the tree
+	 * in batches, each under the read lock
+	 */
+	private class weakIterator implements Iterator<E> {
+		
+		ArrayList<E> batch = new ArrayList<E>(); //elements copied out but not returned yet
+		int position; //index of the next element of the batch to return
+		E last; //last element returned, or the last element of the batch once it is used up
+		boolean done; //true once there is nothing after last in the tree
+		boolean canRemove; //true if the last returned element can be removed
+		
+		//copies the next batch of elements after last out of the tree
+		private void fill() {
+			batch.clear();
+			position = 0;
+			long stamp = lock.readLock();
+			try {
+				if(tree.isEmpty()) {
+					done = true;
+					return;
+				}
+				E from = (last == null) ? tree.first() : tree.higher(last);
+				if(from == null) {
+					done = true;
+					return;
+				}
+				batch.addAll(tree.getRange(from, tree.last(), 0, ITERATOR_BATCH));
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		
+		/**
+		 * Checks if there are any elements left to be iterated over
+		 *
+		 * @return True if there are elements left to return
+		 */
+		@Override
+		public boolean hasNext() {
+			if(position == batch.size() && !done)
+				fill();
+			return position < batch.size();
+		}
+		
+		/**
+		 * Returns next element
+		 *
+		 * @return The next element in the iteration
+		 * @throws NoSuchElementException if there are no elements left
+		 */
+		@Override
+		public E next() throws NoSuchElementException {
+			if(!hasNext())
+				throw new NoSuchElementException("No elements left");
+			
+			last = batch.get(position++);
+			canRemove = true;
+			return last;
+		}
+		
+		/**
+		 * Removes the last element returned by this iterator from the tree
+		 *
+		 * @throws IllegalStateException if next() has not been called yet, or remove()
+		 * 		has already been called after the last call to next()
+		 */
+		@Override
+		public void remove() throws IllegalStateException {
+			if(!canRemove)
+				throw new IllegalStateException("No element to remove");
+			
+			ConcurrentBST.this.remove(last);
+			canRemove = false;
+		}
+	}
+}
\ No newline at end of file
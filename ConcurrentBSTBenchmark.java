@@ -0,0 +1,142 @@
+/**
+ * Measures the read throughput of ConcurrentBST against a BST guarded by synchronized,
+ * for every thread count from 1 up to the number of available cores. Each thread runs a
+ * read-heavy mix of contains, floor and get(int) with an occasional add or remove, and
+ * the total number of operations per second is printed for both trees.
+ *
+ * Usage: java project4.ConcurrentBSTBenchmark [size] [writePercent] [millisPerRun]
+ */
+
+package project4;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentBSTBenchmark {
+	
+	//written by every thread at the end of a run, so the JIT can't drop the lookups
+	static volatile long blackhole;
+	
+	/**
+	 * Tree operations used by the benchmark, so both trees can run the same loop
+	 */
+	private interface Target {
+		boolean contains(Integer e);
+		Integer floor(Integer e);
+		Integer get(int index);
+		int size();
+		boolean add(Integer e);
+		boolean remove(Integer e);
+	}
+	
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args Optional tree size, percentage of writes and length of each run in milliseconds
+	 * @throws InterruptedException if the main thread is interrupted while waiting for a run
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+		int writePercent = (args.length > 1) ? Integer.parseInt(args[1]) : 2;
+		long millis = (args.length > 2) ? Long.parseLong(args[2]) : 2000;
+		int cores = Runtime.getRuntime().availableProcessors();
+		
+		//even keys are in the tree to begin with, so about half of the lookups hit
+		ArrayList<Integer> keys = new ArrayList<Integer>(size);
+		for(int i = 0; i < size; i++) {
+			keys.add(2 * i);
+		}
+		BST<Integer> plain = new BST<Integer>(keys, true);
+		ConcurrentBST<Integer> concurrent = new ConcurrentBST<Integer>(keys, true);
+		
+		Target synchronizedTarget = new Target() {
+			public synchronized boolean contains(Integer e) { return plain.contains(e); }
+			public synchronized Integer floor(Integer e) { return plain.floor(e); }
+			public synchronized Integer get(int index) { return plain.get(index); }
+			public synchronized int size() { return plain.size(); }
+			public synchronized boolean add(Integer e) { return plain.add(e); }
+			public synchronized boolean remove(Integer e) { return plain.remove(e); }
+		};
+		Target concurrentTarget = new Target() {
+			public boolean contains(Integer e) { return concurrent.contains(e); }
+			public Integer floor(Integer e) { return concurrent.floor(e); }
+			public Integer get(int index) { return concurrent.get(index); }
+			public int size() { return concurrent.size(); }
+			public boolean add(Integer e) { return concurrent.add(e); }
+			public boolean remove(Integer e) { return concurrent.remove(e); }
+		};
+		
+		System.out.println("size=" + size + ", writes=" + writePercent + "%, " + millis + " ms per run, " + cores + " cores");
+		System.out.println("warming up...");
+		run(synchronizedTarget, cores, 2 * size, writePercent, millis);
+		run(concurrentTarget, cores, 2 * size, writePercent, millis);
+		
+		System.out.printf("%8s %18s %18s %8s%n", "threads", "synchronized op/s", "concurrent op/s", "speedup");
+		for(int threads = 1; ; threads = Math.min(2 * threads, cores)) { //powers of two, then all cores
+			double sync = run(synchronizedTarget, threads, 2 * size, writePercent, millis);
+			double conc = run(concurrentTarget, threads, 2 * size, writePercent, millis);
+			System.out.printf("%8d %18.0f %18.0f %7.2fx%n", threads, sync, conc, conc / sync);
+			if(threads == cores)
+				break;
+		}
+	}
+	
+	/**
+	 * Private method that runs the operation mix on the given tree from the given number
+	 * of threads for the given time
+	 *
+	 * @param target Tree to run the operations on
+	 * @param threads Number of threads to run
+	 * @param keyRange Keys are drawn from 0, inclusive, to keyRange, exclusive
+	 * @param writePercent Percentage of operations that are an add or a remove
+	 * @param millis Length of the run in milliseconds
+	 * @return Total number of operations per second
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	private static double run(Target target, int threads, int keyRange, int writePercent, long millis) throws InterruptedException {
+		LongAdder ops = new LongAdder();
+		long deadline = System.nanoTime() + millis * 1_000_000L;
+		Thread[] workers = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long count = 0;
+				long sink = 0;
+				while((count & 0xFF) != 0 || System.nanoTime() < deadline) {
+					int key = random.nextInt(keyRange);
+					int choice = random.nextInt(100);
+					if(choice < writePercent) {
+						//add and remove equally often, so the size stays about the same
+						if(random.nextBoolean())
+							target.add(key);
+						else
+							target.remove(key);
+					} else if(choice % 3 == 0) {
+						sink += target.contains(key) ? 1 : 0;
+					} else if(choice % 3 == 1) {
+						Integer floor = target.floor(key);
+						sink += (floor == null) ? 0 : floor;
+					} else {
+						int size = target.size();
+						if(size > 0) {
+							try {
+								sink += target.get(random.nextInt(size));
+							} catch(IndexOutOfBoundsException e) {
+								//a writer shrank the tree between size() and get()
+							}
+						}
+					}
+					count++;
+				}
+				ops.add(count);
+				blackhole = sink;
+			});
+			workers[t].start();
+		}
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		return ops.sum() * 1000.0 / millis;
+	}
+}
\ No newline at end of file
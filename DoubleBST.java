@@ -0,0 +1,973 @@
+/**
+ * This is an implementation of a binary search tree of primitive double values.
+ * It offers the same operations as BST, but its keys are never boxed. Instead of
+ * node objects, the tree keeps its nodes in a pool of parallel arrays indexed by
+ * slot number (keys, child slots, subtree sizes and heights), which takes 24 bytes
+ * per value and keeps neighbouring nodes close together in memory. Slots freed by
+ * removals are kept on a free list and reused by later insertions. Values are
+ * ordered as by Double.compare, so -0.0 is less than 0.0 and NaN is greater than
+ * every other value (including positive infinity), and NaN can be stored like any
+ * other value.
+ */
+
+package project4;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleConsumer;
+
+public class DoubleBST {
+	
+	//slot 0 is never used for a value: it stands for "no node", and its size and height are
+	//always zero, so empty subtrees never need a special case
+	private static final int NIL = 0;
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	//the node pool: slot i holds one node of the tree
+	private double[] keys; //value of each node
+	private int[] left; //slot of each node's left child, or the next free slot for free slots
+	private int[] right; //slot of each node's right child
+	private int[] sizes; //size of each node's subtree
+	private int[] heights; //height of each node
+	
+	private int root = NIL; //slot of root node of the tree
+	private int freeList = NIL; //first free slot, the rest are chained through left
+	private int nextSlot = 1; //first slot that has never been used
+	private int size = 0; //keeps track of the amount of nodes in the tree
+	private int modCount = 0; //number of structural changes, so iterators can detect concurrent modification
+	private final boolean balanced; //true if the tree rotates to stay AVL balanced
+	
+	//reusable buffers holding the root-to-node path of the current insertion or removal,
+	//and the direction taken from each node on it (true if we went left)
+	private int[] path = new int[32];
+	private boolean[] wentLeft = new boolean[32];
+	
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order.
+	 */
+	public DoubleBST() {
+		this(false);
+	}
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order. If balanced is true,
+	 * the tree rotates its nodes on every insertion and removal so that it always
+	 * satisfies the AVL balancing requirements.
+	 *
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 */
+	public DoubleBST(boolean balanced) {
+		this(balanced, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order, with room for the
+	 * given number of values before its node pool has to grow.
+	 *
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @param initialCapacity Number of values the tree can hold before growing
+	 * @throws IllegalArgumentException if the initial capacity is negative
+	 */
+	public DoubleBST(boolean balanced, int initialCapacity) throws IllegalArgumentException {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Initial capacity cannot be negative");
+		this.balanced = balanced;
+		allocatePool(initialCapacity + 1); //plus one for the NIL slot
+	}
+	
+	/**
+	 * Constructs a new tree containing the values in the specified array. The tree is
+	 * built perfectly balanced in O(n log n) time, and duplicate values are only added
+	 * once. The given array is not modified.
+	 *
+	 * @param values Values to create the tree out of
+	 * @throws NullPointerException if the given array is null
+	 */
+	public DoubleBST(double[] values) throws NullPointerException {
+		this(values, false);
+	}
+	
+	/**
+	 * Constructs a new tree containing the values in the specified array. The tree is
+	 * built perfectly balanced in O(n log n) time, and duplicate values are only added
+	 * once. The given array is not modified.
+	 *
+	 * @param values Values to create the tree out of
+	 * @param balanced true if the tree should keep itself AVL balanced
+	 * @throws NullPointerException if the given array is null
+	 */
+	public DoubleBST(double[] values, boolean balanced) throws NullPointerException {
+		this.balanced = balanced;
+		if(values == null)
+			throw new NullPointerException("Given array cannot be null");
+		
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int n = 0; //amount of distinct values, which are moved to the front of the array
+		for(int i = 0; i < sorted.length; i++) {
+			if(n == 0 || compare(sorted[n - 1], sorted[i]) != 0)
+				sorted[n++] = sorted[i];
+		}
+		allocatePool(n + 1); //exactly big enough, plus the NIL slot
+		root = buildBalanced(sorted, 0, n - 1);
+		size = n;
+	}
+	
+	//recursive, builds the subtree for sorted[lo..hi] and fills in its metadata bottom-up
+	private int buildBalanced(double[] sorted, int lo, int hi) {
+		if(lo > hi) //base case: empty range
+			return NIL;
+		
+		int mid = (lo + hi) >>> 1; //middle value becomes the root of the subtree
+		int n = newNode(sorted[mid]);
+		left[n] = buildBalanced(sorted, lo, mid - 1);
+		right[n] = buildBalanced(sorted, mid + 1, hi);
+		updateNode(n);
+		return n;
+	}
+	
+	/**
+	 * Private method that creates the node pool arrays with the given number of slots
+	 *
+	 * @param capacity Number of slots, including the NIL slot
+	 */
+	private void allocatePool(int capacity) {
+		keys = new double[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		sizes = new int[capacity];
+		heights = new int[capacity];
+		freeList = NIL;
+		nextSlot = 1;
+	}
+	
+	/**
+	 * Private method that takes a slot from the pool for a new leaf holding the given
+	 * value, reusing a freed slot if there is one and growing the pool otherwise
+	 *
+	 * @param e Value of the new node
+	 * @return Slot of the new node
+	 */
+	private int newNode(double e) {
+		int n;
+		if(freeList != NIL) { //reuse the most recently freed slot
+			n = freeList;
+			freeList = left[n];
+		} else {
+			if(nextSlot == keys.length) {
+				//grow by half, like ArrayList does
+				int capacity = Math.max(keys.length + (keys.length >> 1), DEFAULT_CAPACITY);
+				keys = Arrays.copyOf(keys, capacity);
+				left = Arrays.copyOf(left, capacity);
+				right = Arrays.copyOf(right, capacity);
+				sizes = Arrays.copyOf(sizes, capacity);
+				heights = Arrays.copyOf(heights, capacity);
+			}
+			n = nextSlot++;
+		}
+		keys[n] = e;
+		left[n] = NIL;
+		right[n] = NIL;
+		sizes[n] = 1;
+		heights[n] = 1;
+		return n;
+	}
+	
+	/**
+	 * Private method that gives the slot of a removed node back to the pool
+	 *
+	 * @param n Slot to free
+	 */
+	private void freeNode(int n) {
+		left[n] = freeList; //chain it in front of the other free slots
+		right[n] = NIL;
+		freeList = n;
+	}
+	
+	/**
+	 * Private method that compares two values in ascending order
+	 *
+	 * @param a First value
+	 * @param b Second value
+	 * @return Negative, zero or positive if a is less than, equal to or greater than b
+	 */
+	private static int compare(double a, double b) {
+		return Double.compare(a, b);
+	}
+	
+	/**
+	 * Adds the specified value to this tree if it is not already present.
+	 *
+	 * @param e value to be added to this tree
+	 * @return true if this tree did not already contain the specified value
+	 */
+	public boolean add(double e) {
+		if(root == NIL) { //if this is the first node to be added
+			root = newNode(e);
+			size++;
+			modCount++;
+			return true;
+		}
+		
+		//walk down to the empty spot where the value belongs, remembering the path
+		int depth = 0;
+		int curRoot = root;
+		while(curRoot != NIL) {
+			int comp = compare(e, keys[curRoot]);
+			if(comp == 0) //the value is a duplicate
+				return false;
+			pushPath(depth++, curRoot, comp < 0);
+			curRoot = (comp < 0) ? left[curRoot] : right[curRoot];
+		}
+		
+		size++;
+		modCount++;
+		rebuildPath(depth, newNode(e)); //link in the new leaf and update its ancestors
+		return true;
+	}
+	
+	/**
+	 * Adds all of the values in the specified array to this tree.
+	 *
+	 * @param values Values to be added
+	 * @return true if this tree changed as a result of the call
+	 * @throws NullPointerException if the given array is null
+	 */
+	public boolean addAll(double[] values) throws NullPointerException {
+		if(values == null)
+			throw new NullPointerException("Given array cannot be null");
+		
+		boolean changed = false;
+		for(double e : values) {
+			changed |= add(e);
+		}
+		return changed;
+	}
+	
+	/**
+	 * Private method that records a node in the path buffer, growing
+	 * the buffer if the tree is deeper than it can hold
+	 *
+	 * @param depth Position of the node in the path
+	 * @param n Slot of the node to record
+	 * @param left True if the path continues to the node's left child
+	 */
+	private void pushPath(int depth, int n, boolean left) {
+		if(depth == path.length) {
+			path = Arrays.copyOf(path, depth * 2);
+			wentLeft = Arrays.copyOf(wentLeft, depth * 2);
+		}
+		path[depth] = n;
+		wentLeft[depth] = left;
+	}
+	
+	/**
+	 * Private method that links the given subtree in below the last node of the path
+	 * buffer, in place of the child the path went to, then walks back up the path to the
+	 * root updating each node's metadata (and rotating it if the tree is balanced)
+	 *
+	 * @param depth Number of nodes in the path
+	 * @param child Slot of the new subtree to link in, may be NIL
+	 */
+	private void rebuildPath(int depth, int child) {
+		for(int i = depth - 1; i >= 0; i--) {
+			int n = path[i];
+			if(wentLeft[i]) {
+				left[n] = child;
+			} else {
+				right[n] = child;
+			}
+			updateNode(n);
+			child = balanced ? rebalance(n) : n;
+		}
+		root = child;
+	}
+	
+	/**
+	 * Private method that updates the height and subtree size of the given
+	 * node from its children
+	 *
+	 * @param n Slot of the node to update
+	 */
+	private void updateNode(int n) {
+		int l = left[n];
+		int r = right[n];
+		heights[n] = Math.max(heights[l], heights[r]) + 1;
+		sizes[n] = sizes[l] + sizes[r] + 1;
+	}
+	
+	/**
+	 * Returns the value at the specified position in this tree. The indexing is zero
+	 * based (i.e., the smallest value in this tree is at index 0 and the largest one is
+	 * at index size()-1). This operation is O(H).
+	 *
+	 * @param index Index of the value to return
+	 * @return Value at given index
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public double get(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= size) //range check
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		return keys[slotAt(index)];
+	}
+	
+	/**
+	 * Private method that finds the node at the given index, assuming it is in range
+	 *
+	 * @param index Index of the node
+	 * @return Slot of the node
+	 */
+	private int slotAt(int index) {
+		int[] left = this.left;
+		int[] sizes = this.sizes;
+		int curRoot = root;
+		int leftSize = sizes[left[curRoot]];
+		while(index != leftSize) {
+			if(index < leftSize) {
+				curRoot = left[curRoot];
+			} else {
+				index -= leftSize + 1;
+				curRoot = right[curRoot];
+			}
+			leftSize = sizes[left[curRoot]];
+		}
+		return curRoot;
+	}
+	
+	/**
+	 * Removes the value at the specified position in this tree, using the same
+	 * indexing as get(int). This operation is O(H).
+	 *
+	 * @param index Index of the value to remove
+	 * @return Value that was removed
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public double removeAt(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= size) //range check
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		int depth = 0;
+		int curRoot = root;
+		int leftSize = sizes[left[curRoot]];
+		while(index != leftSize) {
+			if(index < leftSize) {
+				pushPath(depth++, curRoot, true);
+				curRoot = left[curRoot];
+			} else {
+				index -= leftSize + 1;
+				pushPath(depth++, curRoot, false);
+				curRoot = right[curRoot];
+			}
+			leftSize = sizes[left[curRoot]];
+		}
+		double removed = keys[curRoot]; //saved first, since removing may overwrite the node's value
+		removeNode(depth, curRoot);
+		return removed;
+	}
+	
+	/**
+	 * Returns the index of the specified value in this tree if it is contained in the
+	 * tree; otherwise, (-(insertion point) - 1). This operation is O(H).
+	 *
+	 * @param e Value to look for
+	 * @return Index of the value, or (-(insertion point) - 1) if it isn't in this tree
+	 */
+	public int rank(double e) {
+		int count = 0; //amount of values known to be less than e
+		int curRoot = root;
+		while(curRoot != NIL) {
+			int comp = compare(e, keys[curRoot]);
+			if(comp == 0)
+				return count + sizes[left[curRoot]];
+			if(comp > 0) {
+				count += sizes[left[curRoot]] + 1;
+				curRoot = right[curRoot];
+			} else {
+				curRoot = left[curRoot];
+			}
+		}
+		return -count - 1;
+	}
+	
+	/**
+	 * Returns the number of values in this tree that are strictly less than
+	 * the specified value. This operation is O(H).
+	 *
+	 * @param e Value to compare
+	 * @return Number of values less than e
+	 */
+	public int countLess(double e) {
+		int rank = rank(e);
+		if(rank < 0)
+			return -rank - 1;
+		return rank;
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified value.
+	 *
+	 * @param e Value to look for
+	 * @return true if the tree contains the value
+	 */
+	public boolean contains(double e) {
+		double[] keys = this.keys;
+		int curRoot = root;
+		while(curRoot != NIL) {
+			int comp = compare(e, keys[curRoot]);
+			if(comp == 0)
+				return true;
+			curRoot = (comp < 0) ? left[curRoot] : right[curRoot];
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes the specified value from this tree if it is present.
+	 *
+	 * @param e Value to be removed
+	 * @return true if the value was removed
+	 */
+	public boolean remove(double e) {
+		//walk down to the target, remembering the path
+		int depth = 0;
+		int curRoot = root;
+		while(curRoot != NIL) {
+			int comp = compare(e, keys[curRoot]);
+			if(comp == 0) {
+				removeNode(depth, curRoot);
+				return true;
+			}
+			pushPath(depth++, curRoot, comp < 0);
+			curRoot = (comp < 0) ? left[curRoot] : right[curRoot];
+		}
+		return false;
+	}
+	
+	/**
+	 * Private method that removes the given node from the tree and frees its slot.
+	 * The path buffer must hold the path from the root to the node's parent.
+	 *
+	 * @param depth Number of nodes in the path (the depth of the target node)
+	 * @param target Slot of the node to remove
+	 */
+	private void removeNode(int depth, int target) {
+		int replacement; //subtree that takes the removed node's place
+		int removed = target; //slot that is given back to the pool
+		
+		if(left[target] != NIL && right[target] != NIL) {
+			//replace the target's value with its predecessor and remove the predecessor instead
+			pushPath(depth++, target, true);
+			int predecessor = left[target];
+			while(right[predecessor] != NIL) {
+				pushPath(depth++, predecessor, false);
+				predecessor = right[predecessor];
+			}
+			keys[target] = keys[predecessor];
+			replacement = left[predecessor];
+			removed = predecessor;
+		} else if(left[target] != NIL) {
+			replacement = left[target];
+		} else {
+			replacement = right[target];
+		}
+		
+		size--;
+		modCount++;
+		rebuildPath(depth, replacement);
+		freeNode(removed);
+	}
+	
+	/**
+	 * Private method that restores the AVL balancing requirements at the given node,
+	 * assuming both of its subtrees are already balanced and its metadata is up to date
+	 *
+	 * @param n Slot of the root of the subtree to balance
+	 * @return Slot of the new root of the subtree
+	 */
+	private int rebalance(int n) {
+		int balance = heights[left[n]] - heights[right[n]];
+		
+		if(balance > 1) { //left heavy
+			if(heights[left[left[n]]] < heights[right[left[n]]])
+				left[n] = rotateLeft(left[n]);
+			return rotateRight(n);
+		}
+		if(balance < -1) { //right heavy
+			if(heights[right[right[n]]] < heights[left[right[n]]])
+				right[n] = rotateRight(right[n]);
+			return rotateLeft(n);
+		}
+		return n;
+	}
+	
+	/**
+	 * Private method that rotates the given subtree to the right, making
+	 * its left child the new root of the subtree
+	 *
+	 * @param n Slot of the root of the subtree to rotate
+	 * @return Slot of the new root of the subtree
+	 */
+	private int rotateRight(int n) {
+		int pivot = left[n];
+		left[n] = right[pivot];
+		right[pivot] = n;
+		updateNode(n);
+		updateNode(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Private method that rotates the given subtree to the left, making
+	 * its right child the new root of the subtree
+	 *
+	 * @param n Slot of the root of the subtree to rotate
+	 * @return Slot of the new root of the subtree
+	 */
+	private int rotateLeft(int n) {
+		int pivot = right[n];
+		right[n] = left[pivot];
+		left[pivot] = n;
+		updateNode(n);
+		updateNode(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Returns the number of values in this tree.
+	 *
+	 * @return number of values in this tree
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the height of this tree. The height of a leaf is 1.
+	 *
+	 * @return the height of this tree or zero if the tree is empty
+	 */
+	public int height() {
+		return heights[root];
+	}
+	
+	/**
+	 * Returns true if this tree contains no values.
+	 *
+	 * @return true if this tree contains no values
+	 */
+	public boolean isEmpty() {
+		return root == NIL;
+	}
+	
+	/**
+	 * Removes all of the values from this tree and shrinks its node
+	 * pool back to the default capacity.
+	 */
+	public void clear() {
+		allocatePool(DEFAULT_CAPACITY);
+		size = 0;
+		root = NIL;
+		modCount++;
+	}
+	
+	/**
+	 * Returns the first (lowest) value currently in this tree.
+	 *
+	 * @return the first (lowest) value in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public double first() throws NoSuchElementException {
+		if(isEmpty())
+			throw new NoSuchElementException("Tree is empty");
+		
+		int curRoot = root;
+		while(left[curRoot] != NIL) {
+			curRoot = left[curRoot];
+		}
+		return keys[curRoot];
+	}
+	
+	/**
+	 * Returns the last (highest) value currently in this tree.
+	 *
+	 * @return the last (highest) value in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public double last() throws NoSuchElementException {
+		if(isEmpty())
+			throw new NoSuchElementException("Tree is empty");
+		
+		int curRoot = root;
+		while(right[curRoot] != NIL) {
+			curRoot = right[curRoot];
+		}
+		return keys[curRoot];
+	}
+	
+	/**
+	 * Returns the greatest value in this tree strictly less than the given value.
+	 *
+	 * @param e the value to match
+	 * @return the greatest value less than e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public double lower(double e) throws NoSuchElementException {
+		int result = NIL; //closest candidate found so far
+		int curRoot = root;
+		while(curRoot != NIL) {
+			if(compare(e, keys[curRoot]) > 0) {
+				result = curRoot;
+				curRoot = right[curRoot];
+			} else {
+				curRoot = left[curRoot];
+			}
+		}
+		return valueOf(result);
+	}
+	
+	/**
+	 * Returns the least value in this tree strictly greater than the given value.
+	 *
+	 * @param e the value to match
+	 * @return the least value greater than e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public double higher(double e) throws NoSuchElementException {
+		int result = NIL; //closest candidate found so far
+		int curRoot = root;
+		while(curRoot != NIL) {
+			if(compare(e, keys[curRoot]) < 0) {
+				result = curRoot;
+				curRoot = left[curRoot];
+			} else {
+				curRoot = right[curRoot];
+			}
+		}
+		return valueOf(result);
+	}
+	
+	/**
+	 * Returns the least value in this tree greater than or equal to the given value.
+	 *
+	 * @param e the value to match
+	 * @return the least value greater than or equal to e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public double ceiling(double e) throws NoSuchElementException {
+		int result = NIL; //closest candidate found so far
+		int curRoot = root;
+		while(curRoot != NIL) {
+			int comp = compare(e, keys[curRoot]);
+			if(comp == 0)
+				return keys[curRoot];
+			if(comp < 0) {
+				result = curRoot;
+				curRoot = left[curRoot];
+			} else {
+				curRoot = right[curRoot];
+			}
+		}
+		return valueOf(result);
+	}
+	
+	/**
+	 * Returns the greatest value in this tree less than or equal to the given value.
+	 *
+	 * @param e the value to match
+	 * @return the greatest value less than or equal to e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public double floor(double e) throws NoSuchElementException {
+		int result = NIL; //closest candidate found so far
+		int curRoot = root;
+		while(curRoot != NIL) {
+			int comp = compare(e, keys[curRoot]);
+			if(comp == 0)
+				return keys[curRoot];
+			if(comp > 0) {
+				result = curRoot;
+				curRoot = right[curRoot];
+			} else {
+				curRoot = left[curRoot];
+			}
+		}
+		return valueOf(result);
+	}
+	
+	/**
+	 * Private method for the navigation queries that returns the value of the
+	 * node they found, since there is no null to return when there isn't one
+	 *
+	 * @param n Slot of the node that was found, or NIL
+	 * @return Value of the node
+	 * @throws NoSuchElementException if the slot is NIL
+	 */
+	private double valueOf(int n) throws NoSuchElementException {
+		if(n == NIL)
+			throw new NoSuchElementException("No such value in the tree");
+		return keys[n];
+	}
+	
+	/**
+	 * Returns an array containing all the values in this tree in ascending order.
+	 *
+	 * @return an array containing all of the values in this tree
+	 */
+	public double[] toArray() {
+		double[] arr = new double[size];
+		if(size > 0)
+			fillFrom(0, arr);
+		return arr;
+	}
+	
+	/**
+	 * Returns an array containing the values of this tree from fromValue, inclusive, to
+	 * toValue, inclusive, in ascending order. The array is sized exactly using the subtree
+	 * sizes, so this operation is O(H + M) where M is the number of values returned.
+	 *
+	 * @param fromValue Lower bound of range
+	 * @param toValue Higher bound of range
+	 * @return an array containing the values in the range
+	 * @throws IllegalArgumentException if fromValue is larger than toValue
+	 */
+	public double[] getRange(double fromValue, double toValue) throws IllegalArgumentException {
+		if(compare(fromValue, toValue) > 0)
+			throw new IllegalArgumentException("fromValue cannot be larger than toValue");
+		
+		int start = countLess(fromValue); //index of the first value in the range
+		int end = rank(toValue); //index just past the last value in the range
+		if(end >= 0)
+			end++; //toValue itself is in the tree
+		else
+			end = -end - 1;
+		
+		double[] arr = new double[end - start];
+		if(arr.length > 0)
+			fillFrom(start, arr);
+		return arr;
+	}
+	
+	/**
+	 * Private method that fills the given array with the values of this tree in
+	 * ascending order, starting with the value at the given index. Walks down to that
+	 * index like get(int) does, stacking the nodes it passes on their left side since
+	 * they come after it, then continues inorder.
+	 *
+	 * @param start Index of the first value to copy, which must be in range
+	 * @param arr Array to fill, which must not go past the end of the tree
+	 */
+	private void fillFrom(int start, double[] arr) {
+		int[] stack = new int[heights[root]];
+		int top = 0;
+		int index = start;
+		int curRoot = root;
+		while(true) {
+			int leftSize = sizes[left[curRoot]];
+			if(index < leftSize) {
+				stack[top++] = curRoot;
+				curRoot = left[curRoot];
+			} else if(index > leftSize) {
+				index -= leftSize + 1;
+				curRoot = right[curRoot];
+			} else {
+				stack[top++] = curRoot;
+				break;
+			}
+		}
+		for(int i = 0; i < arr.length; i++) {
+			int n = stack[--top];
+			arr[i] = keys[n];
+			curRoot = right[n];
+			while(curRoot != NIL) {
+				stack[top++] = curRoot;
+				curRoot = left[curRoot];
+			}
+		}
+	}
+	
+	/**
+	 * Returns a string representation of this tree: its values in ascending order,
+	 * separated by ", " and enclosed in square brackets ("[]").
+	 *
+	 * @return String representation of this tree, inorder
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		PrimitiveIterator.OfDouble itr = iterator();
+		while(itr.hasNext()) {
+			sb.append(itr.nextDouble());
+			if(itr.hasNext())
+				sb.append(", ");
+		}
+		return sb.append("]").toString();
+	}
+	
+	/**
+	 * Returns an iterator over the values in this tree in ascending order, which returns
+	 * them without boxing through nextDouble(). The iterator supports remove(), and is
+	 * fail-fast: if the tree is changed in any way other than through the iterator's
+	 * own remove(), the iterator throws a ConcurrentModificationException.
+	 *
+	 * @return an iterator over the values in this tree in ascending order
+	 */
+	public PrimitiveIterator.OfDouble iterator() {
+		return new inorderIterator();
+	}
+	
+	/**
+	 * Inorder iterator
+	 * Iterates through the tree with inorder traversal, keeping the path
+	 * from the root to the last returned node
+	 */
+	private class inorderIterator implements PrimitiveIterator.OfDouble {
+		
+		int[] path; //path from the root to the last returned node, bounded by the tree height
+		int depth; //amount of nodes in the path
+		int remaining; //amount of values left to return
+		int expectedModCount; //modCount of the tree when we last saw it
+		boolean canRemove; //true if the last returned value can be removed
+		boolean resume; //true if the path has to be found again before moving on
+		double resumeAfter; //last removed value, if resume is true
+		
+		/**
+		 * Default constructor, generates iterator in O(1)
+		 */
+		public inorderIterator() {
+			path = new int[heights[root]];
+			depth = 0;
+			remaining = size;
+			expectedModCount = modCount;
+		}
+		
+		//moves the path to the node that comes after the last returned one (or to the first node)
+		private void advance() {
+			if(resume)
+				seekBefore(resumeAfter); //the path was broken by a removal
+			
+			int curRoot;
+			if(depth == 0) {
+				curRoot = root;
+			} else if(right[path[depth - 1]] != NIL) {
+				curRoot = right[path[depth - 1]];
+			} else {
+				//go back up until we come from a left child; that parent is next
+				int child = path[--depth];
+				while(right[path[depth - 1]] == child) {
+					child = path[--depth];
+				}
+				return;
+			}
+			
+			while(curRoot != NIL) {
+				path[depth++] = curRoot;
+				curRoot = left[curRoot];
+			}
+		}
+		
+		//rebuilds the path to the greatest value smaller than e (or empties it if there is none)
+		private void seekBefore(double e) {
+			resume = false;
+			int keep = 0; //depth of the last node smaller than e
+			depth = 0;
+			int curRoot = root;
+			while(curRoot != NIL) {
+				path[depth++] = curRoot;
+				if(compare(e, keys[curRoot]) > 0) {
+					keep = depth;
+					curRoot = right[curRoot];
+				} else {
+					curRoot = left[curRoot];
+				}
+			}
+			depth = keep;
+		}
+		
+		/**
+		 * Checks if there are any values left to be iterated over
+		 *
+		 * @return True if there are values left to return
+		 */
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+		
+		/**
+		 * Returns next value
+		 *
+		 * @return The next value in the iteration
+		 * @throws NoSuchElementException if there are no values left
+		 * @throws ConcurrentModificationException if the tree was changed other
+		 * 		than through this iterator
+		 */
+		@Override
+		public double nextDouble() throws NoSuchElementException, ConcurrentModificationException {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			if(!hasNext())
+				throw new NoSuchElementException("No values left");
+			
+			advance();
+			remaining--;
+			canRemove = true;
+			return keys[path[depth - 1]];
+		}
+		
+		/**
+		 * Removes the last value returned by this iterator from the tree in O(H),
+		 * using the path the iterator already holds instead of searching for it
+		 *
+		 * @throws IllegalStateException if nextDouble() has not been called yet, or remove()
+		 * 		has already been called after the last call to nextDouble()
+		 * @throws ConcurrentModificationException if the tree was changed other
+		 * 		than through this iterator
+		 */
+		@Override
+		public void remove() throws IllegalStateException, ConcurrentModificationException {
+			if(!canRemove)
+				throw new IllegalStateException("No value to remove");
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException("Tree was changed during iteration");
+			
+			int target = path[depth - 1];
+			for(int i = 0; i < depth - 1; i++) {
+				pushPath(i, path[i], left[path[i]] == path[i + 1]);
+			}
+			resumeAfter = keys[target];
+			resume = true;
+			removeNode(depth - 1, target);
+			
+			depth = 0;
+			expectedModCount = modCount;
+			canRemove = false;
+		}
+		
+		/**
+		 * Performs the given action for each remaining value
+		 *
+		 * @param action The action to be performed for each value
+		 * @throws NullPointerException if the given action is null
+		 * @throws ConcurrentModificationException if the tree was changed other
+		 * 		than through this iterator
+		 */
+		@Override
+		public void forEachRemaining(DoubleConsumer action) throws NullPointerException, ConcurrentModificationException {
+			if(action == null)
+				throw new NullPointerException("Given action cannot be null");
+			
+			while(remaining > 0) {
+				if(modCount != expectedModCount)
+					throw new ConcurrentModificationException("Tree was changed during iteration");
+				advance();
+				remaining--;
+				canRemove = true;
+				action.accept(keys[path[depth - 1]]);
+			}
+		}
+	}
+}
\ No newline at end of file
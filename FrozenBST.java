@@ -0,0 +1,420 @@
+/**
+ * This is an immutable binary search tree, made by BST.freeze(). Instead of nodes linked by
+ * pointers, it keeps references to its elements in a single array in Eytzinger order: the
+ * root at position 1 and the children of position k at 2k and 2k + 1. The tree is always
+ * perfectly balanced, a search reads one array slot per level instead of chasing a Node
+ * object to wherever it was allocated, and the top levels, which every search goes
+ * through, share a handful of cache lines. Frozen trees never change, so they are safe to
+ * use from any number of threads.
+ *
+ * For primitive long keys, FrozenLongBST uses the same layout with branch-free searches,
+ * and can be saved to a file and memory-mapped.
+ *
+ * @param <E> Type of the elements
+ */
+
+package project4;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class FrozenBST<E extends Comparable<E>> implements Iterable<E> {
+	
+	private final Object[] elements; //element of each node, elements[k - 1] holding position k
+	private final int size; //number of elements, which fill positions 1 to size
+	
+	
+	/**
+	 * Package-private constructor that freezes the given sorted elements
+	 *
+	 * @param sorted Distinct elements in ascending order
+	 */
+	FrozenBST(Object[] sorted) {
+		elements = new Object[sorted.length];
+		size = sorted.length;
+		fill(sorted, elements, 0, 1);
+	}
+	
+	//recursive, puts sorted elements from index i on into the subtree at position k, inorder,
+	//and returns the index of the first element that didn't fit
+	private static int fill(Object[] sorted, Object[] eytzinger, int i, int k) {
+		if(k > eytzinger.length) //base case: no such position
+			return i;
+		
+		i = fill(sorted, eytzinger, i, 2 * k);
+		eytzinger[k - 1] = sorted[i++];
+		return fill(sorted, eytzinger, i, 2 * k + 1);
+	}
+	
+	/**
+	 * Private method that returns the element at the given position
+	 *
+	 * @param k Position of a node
+	 * @return Element of the node
+	 */
+	@SuppressWarnings("unchecked")
+	private E elementAt(int k) {
+		return (E) elements[k - 1];
+	}
+	
+	/**
+	 * Private method that goes down the tree towards the given element, to the right at
+	 * every node whose element is less than it (or equal to it, if inclusive is true) and
+	 * to the left at every other node, until it falls off the tree. The bits of the
+	 * returned position after the leading one spell out the path, 1 for every step to the
+	 * right.
+	 *
+	 * @param e Element to go towards
+	 * @param inclusive True if the search should also go right at a node equal to e
+	 * @return Position just below the bottom of the tree
+	 */
+	private int descend(E e, boolean inclusive) {
+		int bound = inclusive ? 0 : -1; //go right when the node compares at or below this
+		int k = 1;
+		while(k <= size) {
+			k = 2 * k + ((elementAt(k).compareTo(e) <= bound) ? 1 : 0);
+		}
+		return k;
+	}
+	
+	/**
+	 * Private method that returns the last node descend went right at, which holds the
+	 * greatest element it went right at
+	 *
+	 * @param k Position returned by descend
+	 * @return Position of the node, or 0 if descend never went right
+	 */
+	private static int lastRight(int k) {
+		return k >>> (Integer.numberOfTrailingZeros(k) + 1); //drop the steps left, then the step right
+	}
+	
+	/**
+	 * Private method that returns the last node descend went left at, which holds the
+	 * least element it went left at
+	 *
+	 * @param k Position returned by descend
+	 * @return Position of the node, or 0 if descend never went left
+	 */
+	private static int lastLeft(int k) {
+		return k >>> (Integer.numberOfTrailingZeros(~k) + 1); //drop the steps right, then the step left
+	}
+	
+	/**
+	 * Private method that returns the element at the given position, or null for position 0
+	 *
+	 * @param k Position that was found, or 0
+	 * @return Element at the position, or null
+	 */
+	private E elementOrNull(int k) {
+		return (k == 0) ? null : elementAt(k);
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified element.
+	 *
+	 * @param e Element to look for
+	 * @return true if the tree contains the element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean contains(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		int k = lastLeft(descend(e, false)); //the ceiling of e
+		return k != 0 && elementAt(k).compareTo(e) == 0;
+	}
+	
+	/**
+	 * Returns the greatest element in this tree strictly less than the
+	 * given element, or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the greatest element less than e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E lower(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return elementOrNull(lastRight(descend(e, false)));
+	}
+	
+	/**
+	 * Returns the least element in this tree strictly greater than the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the least element greater than e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E higher(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return elementOrNull(lastLeft(descend(e, true)));
+	}
+	
+	/**
+	 * Returns the least element in this tree greater than or equal to the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the least element greater than or equal to e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E ceiling(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return elementOrNull(lastLeft(descend(e, false)));
+	}
+	
+	/**
+	 * Returns the greatest element in this tree less than or equal to the given
+	 * element, or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the greatest element less than or equal to e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E floor(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return elementOrNull(lastRight(descend(e, true)));
+	}
+	
+	/**
+	 * Returns the first (lowest) element in this tree.
+	 *
+	 * @return the first (lowest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E first() throws NoSuchElementException {
+		if(isEmpty()) //empty check
+			throw new NoSuchElementException("Tree is empty");
+		return elementAt(firstPosition());
+	}
+	
+	/**
+	 * Returns the last (highest) element in this tree.
+	 *
+	 * @return the last (highest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E last() throws NoSuchElementException {
+		if(isEmpty()) //empty check
+			throw new NoSuchElementException("Tree is empty");
+		
+		int k = 1;
+		while(2 * k + 1 <= size) { //go as right as possible
+			k = 2 * k + 1;
+		}
+		return elementAt(k);
+	}
+	
+	/**
+	 * Returns the element at the specified position in this tree, in ascending order.
+	 * This operation is O(log n), and only reads the element it returns.
+	 *
+	 * @param index Index of the element to return
+	 * @return Element at given index
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public E get(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= size) //range check
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		int k = 1;
+		int leftSize = subtreeSize(2 * k);
+		while(index != leftSize) { //stop when the index matches
+			if(index < leftSize) {
+				k = 2 * k;
+			} else {
+				index -= leftSize + 1;
+				k = 2 * k + 1;
+			}
+			leftSize = subtreeSize(2 * k);
+		}
+		return elementAt(k);
+	}
+	
+	/**
+	 * Returns the index of the specified element in this tree if it is contained in the
+	 * tree; otherwise, (-(insertion point) - 1).
+	 *
+	 * @param e Element to look for
+	 * @return Index of the element, or (-(insertion point) - 1) if it isn't in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int rank(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		int k = lastLeft(descend(e, false)); //the ceiling of e, which is where e is or would go
+		if(k == 0)
+			return -size - 1;
+		int index = indexOf(k);
+		return (elementAt(k).compareTo(e) == 0) ? index : -index - 1;
+	}
+	
+	/**
+	 * Returns the number of elements in this tree that are strictly less than
+	 * the specified element.
+	 *
+	 * @param e Element to compare
+	 * @return Number of elements less than e
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public int countLess(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		int k = lastLeft(descend(e, false));
+		return (k == 0) ? size : indexOf(k);
+	}
+	
+	/**
+	 * Private method that returns the index of the element at the given position, by adding
+	 * up everything that comes before it: its left subtree, and every ancestor it is in the
+	 * right subtree of, along with that ancestor's left subtree
+	 *
+	 * @param k Position of a node
+	 * @return Index of its element
+	 */
+	private int indexOf(int k) {
+		int index = subtreeSize(2 * k);
+		for(; k > 1; k >>>= 1) {
+			if((k & 1) == 1) //k is a right child, so its parent and its left sibling come first
+				index += subtreeSize(k - 1) + 1;
+		}
+		return index;
+	}
+	
+	/**
+	 * Private method that returns the number of nodes in the subtree at the given position in constant time.
+	 * Every level of the subtree above the last one is full, so only its range on the last level needs clamping.
+	 *
+	 * @param k Position of the subtree
+	 * @return Number of nodes in it
+	 */
+	private int subtreeSize(int k) {
+		if(k > size) //no subtree there
+			return 0;
+		
+		int below = height() - (32 - Integer.numberOfLeadingZeros(k)); //levels of the subtree under its root
+		long lo = (long) k << below; //first position of the subtree on the last level
+		long last = Math.min(lo + (1L << below) - 1, size) - lo + 1;
+		return (int) ((1L << below) - 1 + Math.max(last, 0));
+	}
+	
+	/**
+	 * Returns the number of elements in this tree.
+	 *
+	 * @return number of elements in this tree
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns true if this tree contains no elements.
+	 *
+	 * @return true if this tree contains no elements
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the height of this tree, which is always the smallest height that can
+	 * hold its elements. The height of a leaf is 1.
+	 *
+	 * @return the height of this tree or zero if the tree is empty
+	 */
+	public int height() {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+	
+	/**
+	 * Returns an array containing all the elements in this tree in ascending order.
+	 *
+	 * @return an array, whose runtime component type is Object, containing all of the elements in this tree
+	 */
+	public Object[] toArray() {
+		Object[] arr = new Object[size];
+		int i = 0;
+		for(int k = firstPosition(); k != 0; k = nextPosition(k)) {
+			arr[i++] = elements[k - 1];
+		}
+		return arr;
+	}
+	
+	/**
+	 * Returns a string of the elements in this tree in ascending order, in the same
+	 * format as BST.toString().
+	 *
+	 * @return String of the elements in this tree
+	 */
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+	
+	/**
+	 * Private method that returns the position of the lowest element
+	 *
+	 * @return Position of the lowest element, or 0 if the tree is empty
+	 */
+	private int firstPosition() {
+		if(size == 0)
+			return 0;
+		int k = 1;
+		while(2 * k <= size) { //go as left as possible
+			k = 2 * k;
+		}
+		return k;
+	}
+	
+	/**
+	 * Private method that returns the position of the element after the one at the given
+	 * position: the leftmost node of its right subtree if it has one, and otherwise the
+	 * nearest ancestor it is in the left subtree of
+	 *
+	 * @param k Position of a node
+	 * @return Position of the next element, or 0 if k holds the highest element
+	 */
+	private int nextPosition(int k) {
+		if(2 * k + 1 <= size) {
+			k = 2 * k + 1;
+			while(2 * k <= size) {
+				k = 2 * k;
+			}
+			return k;
+		}
+		return lastLeft(k); //climb while k is a right child, then once more
+	}
+	
+	/**
+	 * Returns an iterator over the elements in this tree in ascending order.
+	 *
+	 * @return an iterator over the elements in this tree in ascending order
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int next = firstPosition(); //position of the next element, or 0 when done
+			
+			@Override
+			public boolean hasNext() {
+				return next != 0;
+			}
+			
+			@Override
+			public E next() {
+				if(next == 0)
+					throw new NoSuchElementException("No elements left");
+				E e = elementAt(next);
+				next = nextPosition(next);
+				return e;
+			}
+		};
+	}
+}
\ No newline at end of file
@@ -0,0 +1,456 @@
+/**
+ * This is an immutable binary search tree of primitive long values, made by LongBST.freeze().
+ * Instead of nodes linked by pointers, it keeps its values in a single array in Eytzinger
+ * order: the root at position 1 and the children of position k at 2k and 2k + 1, so the
+ * tree is always perfectly balanced and the top levels, which every search goes through,
+ * share a handful of cache lines. Searches compute the next position from the comparison
+ * instead of branching on it, which the JIT turns into conditional moves, and the
+ * positional queries (get, rank) work out subtree sizes arithmetically, touching only the
+ * values they compare with.
+ *
+ * The array takes 8 bytes per value, and can be written to a file with writeTo and mapped
+ * back into memory with map, so the tree is available right away, off the heap, and can
+ * be shared through the page cache by every JVM on the host that maps the same file.
+ * Frozen trees never change, so they are safe to use from any number of threads.
+ */
+
+package project4;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+public final class FrozenLongBST {
+	
+	//first eight bytes of a frozen tree file: "BSTFRZ" and the format version
+	private static final long MAGIC = 0x42535446525A0001L;
+	//bytes before the values in a file: the magic number and the size
+	private static final int HEADER = 16;
+	private static final int BUFFER_SIZE = 1 << 16; //bytes written to the file at a time
+	//largest tree that fits in a single mapped buffer
+	private static final int MAX_SIZE = (Integer.MAX_VALUE - HEADER) / Long.BYTES;
+	
+	private final LongBuffer keys; //value of each node, keys.get(k - 1) holding position k
+	private final int size; //number of values, which fill positions 1 to size
+	
+	
+	/**
+	 * Package-private constructor that freezes the given sorted values
+	 *
+	 * @param sorted Distinct values in ascending order
+	 * @throws IllegalArgumentException if there are too many values to map from a file
+	 */
+	FrozenLongBST(long[] sorted) throws IllegalArgumentException {
+		if(sorted.length > MAX_SIZE)
+			throw new IllegalArgumentException("Cannot freeze more than " + MAX_SIZE + " values");
+		long[] eytzinger = new long[sorted.length];
+		fill(sorted, eytzinger, 0, 1);
+		keys = LongBuffer.wrap(eytzinger);
+		size = sorted.length;
+	}
+	
+	/**
+	 * Private constructor for a tree whose values are already in Eytzinger order
+	 *
+	 * @param keys Values in Eytzinger order
+	 * @param size Number of values
+	 */
+	private FrozenLongBST(LongBuffer keys, int size) {
+		this.keys = keys;
+		this.size = size;
+	}
+	
+	//recursive, puts sorted values from index i on into the subtree at position k, inorder,
+	//and returns the index of the first value that didn't fit
+	private static int fill(long[] sorted, long[] eytzinger, int i, int k) {
+		if(k > eytzinger.length) //base case: no such position
+			return i;
+		
+		i = fill(sorted, eytzinger, i, 2 * k);
+		eytzinger[k - 1] = sorted[i++];
+		return fill(sorted, eytzinger, i, 2 * k + 1);
+	}
+	
+	/**
+	 * Maps a tree written by writeTo into memory. The tree reads its values straight from
+	 * the mapped file, which stays mapped until the tree is garbage collected.
+	 *
+	 * @param file File to map
+	 * @return the tree in the file
+	 * @throws NullPointerException if the file is null
+	 * @throws IOException if the file can't be opened or mapped
+	 * @throws StreamCorruptedException if the file does not hold a frozen tree
+	 */
+	public static FrozenLongBST map(Path file) throws NullPointerException, IOException, StreamCorruptedException {
+		if(file == null) //null check
+			throw new NullPointerException("Given file cannot be null");
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if(length < HEADER || length > HEADER + (long) MAX_SIZE * Long.BYTES)
+				throw new StreamCorruptedException("File does not hold a frozen tree");
+			ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+			long n = bytes.getLong(Long.BYTES);
+			if(bytes.getLong(0) != MAGIC || HEADER + n * Long.BYTES != length)
+				throw new StreamCorruptedException("File does not hold a frozen tree");
+			//slice() resets the byte order, so it has to be set again
+			LongBuffer keys = bytes.position(HEADER).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			return new FrozenLongBST(keys, (int) n);
+		}
+	}
+	
+	/**
+	 * Writes this tree to the given file, replacing anything in it, so that it can be
+	 * mapped with map. The file holds a 16 byte header and then the values in Eytzinger
+	 * order, 8 bytes each, little-endian.
+	 *
+	 * @param file File to write
+	 * @throws NullPointerException if the file is null
+	 * @throws IOException if the file can't be written
+	 */
+	public void writeTo(Path file) throws NullPointerException, IOException {
+		if(file == null) //null check
+			throw new NullPointerException("Given file cannot be null");
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putLong(MAGIC).putLong(size);
+			for(int i = 0; i < size; i++) {
+				if(!buffer.hasRemaining())
+					drain(buffer, channel);
+				buffer.putLong(keys.get(i));
+			}
+			drain(buffer, channel);
+		}
+	}
+	
+	/**
+	 * Private method that writes out everything in the given buffer and empties it
+	 *
+	 * @param buffer Buffer to write out
+	 * @param channel Channel to write it to
+	 * @throws IOException if the channel can't be written
+	 */
+	private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Private method that goes down the tree towards the given value, to the right at every
+	 * node whose value is less than it (or equal to it, if inclusive is true) and to the
+	 * left at every other node, until it falls off the tree. The bits of the returned
+	 * position after the leading one spell out the path, 1 for every step to the right.
+	 *
+	 * @param e Value to go towards
+	 * @param inclusive True if the search should also go right at a node equal to e
+	 * @return Position just below the bottom of the tree
+	 */
+	private int descend(long e, boolean inclusive) {
+		LongBuffer keys = this.keys;
+		int n = size;
+		int k = 1;
+		if(inclusive) {
+			while(k <= n) {
+				k = 2 * k + ((keys.get(k - 1) <= e) ? 1 : 0);
+			}
+		} else {
+			while(k <= n) {
+				k = 2 * k + ((keys.get(k - 1) < e) ? 1 : 0);
+			}
+		}
+		return k;
+	}
+	
+	/**
+	 * Private method that returns the last node descend went right at, which holds the
+	 * greatest value it went right at
+	 *
+	 * @param k Position returned by descend
+	 * @return Position of the node, or 0 if descend never went right
+	 */
+	private static int lastRight(int k) {
+		return k >>> (Integer.numberOfTrailingZeros(k) + 1); //drop the steps left, then the step right
+	}
+	
+	/**
+	 * Private method that returns the last node descend went left at, which holds the
+	 * least value it went left at
+	 *
+	 * @param k Position returned by descend
+	 * @return Position of the node, or 0 if descend never went left
+	 */
+	private static int lastLeft(int k) {
+		return k >>> (Integer.numberOfTrailingZeros(~k) + 1); //drop the steps right, then the step left
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified value.
+	 *
+	 * @param e Value to look for
+	 * @return true if the tree contains the value
+	 */
+	public boolean contains(long e) {
+		int k = lastLeft(descend(e, false)); //the ceiling of e
+		return k != 0 && keys.get(k - 1) == e;
+	}
+	
+	/**
+	 * Returns the greatest value in this tree strictly less than the given value.
+	 *
+	 * @param e the value to match
+	 * @return the greatest value less than e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public long lower(long e) throws NoSuchElementException {
+		return valueOf(lastRight(descend(e, false)));
+	}
+	
+	/**
+	 * Returns the least value in this tree strictly greater than the given value.
+	 *
+	 * @param e the value to match
+	 * @return the least value greater than e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public long higher(long e) throws NoSuchElementException {
+		return valueOf(lastLeft(descend(e, true)));
+	}
+	
+	/**
+	 * Returns the least value in this tree greater than or equal to the given value.
+	 *
+	 * @param e the value to match
+	 * @return the least value greater than or equal to e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public long ceiling(long e) throws NoSuchElementException {
+		return valueOf(lastLeft(descend(e, false)));
+	}
+	
+	/**
+	 * Returns the greatest value in this tree less than or equal to the given value.
+	 *
+	 * @param e the value to match
+	 * @return the greatest value less than or equal to e
+	 * @throws NoSuchElementException if there is no such value
+	 */
+	public long floor(long e) throws NoSuchElementException {
+		return valueOf(lastRight(descend(e, true)));
+	}
+	
+	/**
+	 * Returns the lowest value in this tree.
+	 *
+	 * @return the lowest value in this tree
+	 * @throws NoSuchElementException if the tree is empty
+	 */
+	public long first() throws NoSuchElementException {
+		if(isEmpty())
+			throw new NoSuchElementException("Tree is empty");
+		return keys.get(firstPosition() - 1);
+	}
+	
+	/**
+	 * Returns the highest value in this tree.
+	 *
+	 * @return the highest value in this tree
+	 * @throws NoSuchElementException if the tree is empty
+	 */
+	public long last() throws NoSuchElementException {
+		if(isEmpty())
+			throw new NoSuchElementException("Tree is empty");
+		
+		int k = 1;
+		while(2 * k + 1 <= size) { //go as right as possible
+			k = 2 * k + 1;
+		}
+		return keys.get(k - 1);
+	}
+	
+	/**
+	 * Private method for the navigation queries that returns the value at the
+	 * position they found, since there is no null to return when there isn't one
+	 *
+	 * @param k Position that was found, or 0
+	 * @return Value at the position
+	 * @throws NoSuchElementException if the position is 0
+	 */
+	private long valueOf(int k) throws NoSuchElementException {
+		if(k == 0)
+			throw new NoSuchElementException("No such value in the tree");
+		return keys.get(k - 1);
+	}
+	
+	/**
+	 * Returns the value at the specified position in this tree, in ascending order.
+	 * This operation is O(log n), and only reads the value it returns.
+	 *
+	 * @param index Index of the value to return
+	 * @return Value at given index
+	 * @throws IndexOutOfBoundsException If index is negative or larger than the tree size
+	 */
+	public long get(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= size) //range check
+			throw new IndexOutOfBoundsException("Index cannot be negative or exceed tree size");
+		
+		int k = 1;
+		int leftSize = subtreeSize(2 * k);
+		while(index != leftSize) {
+			if(index < leftSize) {
+				k = 2 * k;
+			} else {
+				index -= leftSize + 1;
+				k = 2 * k + 1;
+			}
+			leftSize = subtreeSize(2 * k);
+		}
+		return keys.get(k - 1);
+	}
+	
+	/**
+	 * Returns the index of the specified value in this tree if it is contained in the
+	 * tree; otherwise, (-(insertion point) - 1).
+	 *
+	 * @param e Value to look for
+	 * @return Index of the value, or (-(insertion point) - 1) if it isn't in this tree
+	 */
+	public int rank(long e) {
+		int k = lastLeft(descend(e, false)); //the ceiling of e, which is where e is or would go
+		if(k == 0)
+			return -size - 1;
+		int index = indexOf(k);
+		return (keys.get(k - 1) == e) ? index : -index - 1;
+	}
+	
+	/**
+	 * Returns the number of values in this tree that are strictly less than
+	 * the specified value.
+	 *
+	 * @param e Value to compare
+	 * @return Number of values less than e
+	 */
+	public int countLess(long e) {
+		int k = lastLeft(descend(e, false));
+		return (k == 0) ? size : indexOf(k);
+	}
+	
+	/**
+	 * Private method that returns the index of the value at the given position, by adding
+	 * up everything that comes before it: its left subtree, and every ancestor it is in the
+	 * right subtree of, along with that ancestor's left subtree
+	 *
+	 * @param k Position of a node
+	 * @return Index of its value
+	 */
+	private int indexOf(int k) {
+		int index = subtreeSize(2 * k);
+		for(; k > 1; k >>>= 1) {
+			if((k & 1) == 1) //k is a right child, so its parent and its left sibling come first
+				index += subtreeSize(k - 1) + 1;
+		}
+		return index;
+	}
+	
+	/**
+	 * Private method that returns the number of nodes in the subtree at the given position in constant time.
+	 * Every level of the subtree above the last one is full, so only its range on the last level needs clamping.
+	 *
+	 * @param k Position of the subtree
+	 * @return Number of nodes in it
+	 */
+	private int subtreeSize(int k) {
+		if(k > size) //no subtree there
+			return 0;
+		
+		int below = height() - (32 - Integer.numberOfLeadingZeros(k)); //levels of the subtree under its root
+		long lo = (long) k << below; //first position of the subtree on the last level
+		long last = Math.min(lo + (1L << below) - 1, size) - lo + 1;
+		return (int) ((1L << below) - 1 + Math.max(last, 0));
+	}
+	
+	/**
+	 * Returns the number of values in this tree.
+	 *
+	 * @return number of values in this tree
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns true if this tree contains no values.
+	 *
+	 * @return true if this tree contains no values
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the height of this tree, which is always the smallest height that can
+	 * hold its values. The height of a leaf is 1.
+	 *
+	 * @return the height of this tree or zero if the tree is empty
+	 */
+	public int height() {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+	
+	/**
+	 * Returns an array containing all the values in this tree in ascending order.
+	 *
+	 * @return an array containing all of the values in this tree
+	 */
+	public long[] toArray() {
+		long[] arr = new long[size];
+		int i = 0;
+		for(int k = firstPosition(); k != 0; k = nextPosition(k)) {
+			arr[i++] = keys.get(k - 1);
+		}
+		return arr;
+	}
+	
+	/**
+	 * Private method that returns the position of the lowest value
+	 *
+	 * @return Position of the lowest value, or 0 if the tree is empty
+	 */
+	private int firstPosition() {
+		if(size == 0)
+			return 0;
+		int k = 1;
+		while(2 * k <= size) { //go as left as possible
+			k = 2 * k;
+		}
+		return k;
+	}
+	
+	/**
+	 * Private method that returns the position of the value after the one at the given
+	 * position: the leftmost node of its right subtree if it has one, and otherwise the
+	 * nearest ancestor it is in the left subtree of
+	 *
+	 * @param k Position of a node
+	 * @return Position of the next value, or 0 if k holds the highest value
+	 */
+	private int nextPosition(int k) {
+		if(2 * k + 1 <= size) {
+			k = 2 * k + 1;
+			while(2 * k <= size) {
+				k = 2 * k;
+			}
+			return k;
+		}
+		return lastLeft(k); //climb while k is a right child, then once more
+	}
+}
\ No newline at end of file
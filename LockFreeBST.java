@@ -0,0 +1,652 @@
+/**
+ * This is a lock-free concurrent binary search tree, following the external tree of
+ * Natarajan and Mittal ("Fast Concurrent Lock-Free Binary Search Trees", PPoPP 2014).
+ * Elements are kept only in the leaves; internal nodes just route searches, and every
+ * internal node has exactly two children. Insertions and removals change the tree with a
+ * single compare-and-set on a child link, and a removal first flags the link to the leaf
+ * it removes and tags the link to its sibling, so that other threads can see an unfinished
+ * removal and help finish it instead of waiting for it. No operation ever blocks.
+ *
+ * add, remove and contains are linearizable. first, last, lower, higher, ceiling and
+ * floor never return an element that was removed before they were called, but they are
+ * not atomic with respect to changes made while they run, and neither are size() and the
+ * iterator, which are weakly consistent.
+ */
+
+package project4;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LockFreeBST<E extends Comparable<E>> implements Iterable<E>{
+	
+	//the sentinel keys, which compare greater than every element: INF0 < INF1 < INF2
+	private static final int INF0 = 1;
+	private static final int INF1 = 2;
+	private static final int INF2 = 3;
+	
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Node, Object> LEFT =
+			AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "left");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Node, Object> RIGHT =
+			AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "right");
+	
+	//the sentinel internal nodes, R above S; every element lives in the left subtree of S
+	private final Node<E> r;
+	private final Node<E> s;
+	private final LongAdder size = new LongAdder(); //number of elements, updated after each change
+	
+	
+	/**
+	 * Constructs a new, empty tree, sorted in ascending order.
+	 */
+	public LockFreeBST() {
+		s = new Node<E>(null, INF1, new Node<E>(null, INF0), new Node<E>(null, INF1));
+		r = new Node<E>(null, INF2, s, new Node<E>(null, INF2));
+	}
+	
+	/**
+	 * Constructs a new tree containing the elements in the specified collection.
+	 *
+	 * @param collection Collection to create the tree out of
+	 * @throws NullPointerException if the given collection is null or contains null
+	 */
+	public LockFreeBST(Collection<? extends E> collection) throws NullPointerException {
+		this();
+		if(collection == null)
+			throw new NullPointerException("Given collection cannot be null");
+		for(E item : collection) {
+			add(item);
+		}
+	}
+	
+	/**
+	 * Private method that tells whether the given key goes to the left of the given node,
+	 * which is the case if it is strictly less than the node's key
+	 *
+	 * @param e Key to compare
+	 * @param n Node to compare with
+	 * @return true if e is less than the key of n
+	 */
+	private static <E extends Comparable<E>> boolean goesLeft(E e, Node<E> n) {
+		return n.inf != 0 || e.compareTo(n.key) < 0;
+	}
+	
+	/**
+	 * Private method that tells whether a is greater than (or equal to, if inclusive) b
+	 *
+	 * @param a First element
+	 * @param b Second element
+	 * @param inclusive true if equal elements count
+	 * @return true if a is above b
+	 */
+	private static <E extends Comparable<E>> boolean isAbove(E a, E b, boolean inclusive) {
+		int comp = a.compareTo(b);
+		return comp > 0 || (comp == 0 && inclusive);
+	}
+	
+	/**
+	 * Private method that tells whether the given node is a leaf holding the given element
+	 *
+	 * @param n Leaf to check
+	 * @param e Element to look for
+	 * @return true if the leaf holds e
+	 */
+	private static <E extends Comparable<E>> boolean holds(Node<E> n, E e) {
+		return n.inf == 0 && e.compareTo(n.key) == 0;
+	}
+	
+	/**
+	 * Adds the specified element to this tree if it is not already present.
+	 *
+	 * @param e element to be added to this tree
+	 * @return true if this tree did not already contain the specified element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean add(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Cannot input null element");
+		
+		SeekRecord<E> record = new SeekRecord<E>();
+		while(true) {
+			seek(e, record);
+			Node<E> leaf = record.leaf;
+			Node<E> parent = record.parent;
+			if(holds(leaf, e)) //the element is a duplicate
+				return false;
+			
+			//replace the leaf with a new internal node that has the old leaf and the new one
+			//as its children, keyed by the larger of the two
+			Node<E> newLeaf = new Node<E>(e, 0);
+			Node<E> internal;
+			if(goesLeft(e, leaf)) {
+				internal = new Node<E>(leaf.key, leaf.inf, newLeaf, leaf);
+			} else {
+				internal = new Node<E>(e, 0, leaf, newLeaf);
+			}
+			boolean left = goesLeft(e, parent);
+			if(casChild(parent, left, leaf, internal)) {
+				size.increment();
+				return true;
+			}
+			
+			//we lost a race; if it was against a removal of this leaf, help it finish first
+			Object link = child(parent, left);
+			Node<E> linked = nodeOf(link);
+			if(linked == leaf && (isFlagged(link) || isTagged(link)))
+				cleanup(e, record);
+		}
+	}
+	
+	/**
+	 * Removes the specified element from this tree if it is present.
+	 *
+	 * @param o Object to be removed
+	 * @return true if item is removed
+	 * @throws ClassCastException if the specified object cannot be compared with the
+	 * 		elements currently in this tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean remove(Object o) throws ClassCastException, NullPointerException {
+		if(o == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		
+		@SuppressWarnings("unchecked")
+		E e = (E) o;
+		SeekRecord<E> record = new SeekRecord<E>();
+		Node<E> leaf = null; //the leaf we flagged, once we have flagged it
+		while(true) {
+			seek(e, record);
+			Node<E> parent = record.parent;
+			boolean left = goesLeft(e, parent);
+			
+			if(leaf == null) { //injection: flag the link to the leaf, which removes the element
+				if(!holds(record.leaf, e))
+					return false;
+				if(casChild(parent, left, record.leaf, new Mark<E>(record.leaf, true, false))) {
+					leaf = record.leaf;
+					size.decrement();
+					if(cleanup(e, record))
+						return true;
+				} else {
+					//someone else is removing this leaf or its sibling, so help them
+					Object link = child(parent, left);
+					Node<E> linked = nodeOf(link);
+					if(linked == record.leaf && (isFlagged(link) || isTagged(link)))
+						cleanup(e, record);
+				}
+			} else { //cleanup: unlink the flagged leaf from the tree
+				if(record.leaf != leaf) //another thread already unlinked it for us
+					return true;
+				if(cleanup(e, record))
+					return true;
+			}
+		}
+	}
+	
+	/**
+	 * Private method that finishes a removal along the path in the given seek record, by
+	 * tagging the link to the sibling of the flagged leaf, so that it can no longer change,
+	 * and then swinging the ancestor's link from the successor over to that sibling
+	 *
+	 * @param e Key that the seek record was found with
+	 * @param record Seek record of the removal
+	 * @return true if this call unlinked the leaf
+	 */
+	private boolean cleanup(E e, SeekRecord<E> record) {
+		Node<E> ancestor = record.ancestor;
+		Node<E> successor = record.successor;
+		Node<E> parent = record.parent;
+		
+		boolean successorLeft = goesLeft(e, ancestor);
+		boolean childLeft = goesLeft(e, parent);
+		boolean siblingLeft = !childLeft;
+		if(!isFlagged(child(parent, childLeft))) {
+			//the leaf on our side isn't the flagged one, so the removal being
+			//helped is of the other leaf, and our side is the sibling to keep
+			siblingLeft = childLeft;
+		}
+		
+		//tag the sibling link, keeping its flag
+		Object sibling;
+		while(true) {
+			sibling = child(parent, siblingLeft);
+			if(isTagged(sibling))
+				break;
+			Object tagged = new Mark<E>(nodeOf(sibling), isFlagged(sibling), true);
+			if(casChild(parent, siblingLeft, sibling, tagged)) {
+				sibling = tagged;
+				break;
+			}
+		}
+		
+		//move the sibling up in place of the successor, dropping the tag but keeping the flag
+		Node<E> siblingNode = nodeOf(sibling);
+		Object replacement = isFlagged(sibling) ? new Mark<E>(siblingNode, true, false) : siblingNode;
+		return casChild(ancestor, successorLeft, successor, replacement);
+	}
+	
+	/**
+	 * Private method that walks down to the leaf where the given key belongs, filling in the
+	 * seek record with the leaf, its parent, and the last untagged link above them (from the
+	 * ancestor to the successor), which is where a removal has to swing its link
+	 *
+	 * @param e Key to seek
+	 * @param record Seek record to fill in
+	 */
+	private void seek(E e, SeekRecord<E> record) {
+		record.ancestor = r;
+		record.successor = s;
+		record.parent = s;
+		Object parentLink = s.left;
+		record.leaf = nodeOf(parentLink);
+		Object currentLink = record.leaf.left;
+		Node<E> current = nodeOf(currentLink);
+		
+		while(current != null) {
+			if(!isTagged(parentLink)) { //the link above the leaf can still change, so move the ancestor down
+				record.ancestor = record.parent;
+				record.successor = record.leaf;
+			}
+			record.parent = record.leaf;
+			record.leaf = current;
+			parentLink = currentLink;
+			currentLink = goesLeft(e, current) ? current.left : current.right;
+			current = nodeOf(currentLink);
+		}
+	}
+	
+	/**
+	 * Returns true if this tree contains the specified element.
+	 *
+	 * @param o Object to look for
+	 * @return true if the tree contains the object
+	 * @throws ClassCastException if the specified object cannot be compared
+	 * 		with the elements currently in the tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public boolean contains(Object o) throws ClassCastException, NullPointerException {
+		if(o == null) //null check
+			throw new NullPointerException("Given item cannot be null");
+		
+		@SuppressWarnings("unchecked")
+		E e = (E) o;
+		Node<E> curRoot = nodeOf(s.left);
+		Object link = curRoot.left;
+		while(link != null) { //leaves have no children
+			curRoot = nodeOf(link);
+			link = goesLeft(e, curRoot) ? curRoot.left : curRoot.right;
+		}
+		return holds(curRoot, e);
+	}
+	
+	/**
+	 * Returns the first (lowest) element currently in this tree.
+	 *
+	 * @return the first (lowest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E first() throws NoSuchElementException {
+		E result = next(null, true);
+		if(result == null)
+			throw new NoSuchElementException("Tree is empty");
+		return result;
+	}
+	
+	/**
+	 * Returns the last (highest) element currently in this tree.
+	 *
+	 * @return last (highest) element in this tree
+	 * @throws NoSuchElementException if tree is empty
+	 */
+	public E last() throws NoSuchElementException {
+		E result = previous(null, true);
+		if(result == null)
+			throw new NoSuchElementException("Tree is empty");
+		return result;
+	}
+	
+	/**
+	 * Returns the greatest element in this tree strictly less than the
+	 * given element, or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the greatest element less than e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E lower(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return previous(e, false);
+	}
+	
+	/**
+	 * Returns the least element in this tree strictly greater than the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e the value to match
+	 * @return the least element greater than e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E higher(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return next(e, false);
+	}
+	
+	/**
+	 * Returns the least element in this tree greater than or equal to the given element,
+	 * or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the least element in this tree greater than or equal to the given element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E ceiling(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return next(e, true);
+	}
+	
+	/**
+	 * Returns the greatest element in this tree less than or equal to the given
+	 * element, or null if there is no such element.
+	 *
+	 * @param e element to compare
+	 * @return the greatest element less than or equal to e, or null if there is no such element
+	 * @throws NullPointerException if the specified element is null
+	 */
+	public E floor(E e) throws NullPointerException {
+		if(e == null) //null check
+			throw new NullPointerException("Given element cannot be null");
+		return previous(e, true);
+	}
+	
+	/**
+	 * Private method that finds the least element greater than (or equal to, if inclusive)
+	 * the given one. It walks down to where e belongs; if the leaf there doesn't qualify,
+	 * the answer is the leftmost leaf of the right subtree of the last node where the walk
+	 * went left. A leaf whose link is flagged has already been removed, so it is skipped
+	 * by searching again from it.
+	 *
+	 * @param e Element to compare, or null to find the first element
+	 * @param inclusive true if e itself qualifies
+	 * @return The element found, or null if there is none
+	 */
+	private E next(E e, boolean inclusive) {
+		while(true) {
+			Node<E> turn = null; //last node where the walk went left
+			Object link = s.left;
+			Node<E> curRoot = nodeOf(link);
+			while(curRoot.left != null) { //walk down to a leaf
+				if(e == null || goesLeft(e, curRoot)) {
+					turn = curRoot;
+					link = curRoot.left;
+				} else {
+					link = curRoot.right;
+				}
+				curRoot = nodeOf(link);
+			}
+			
+			if(curRoot.inf == 0 && (e == null || isAbove(curRoot.key, e, inclusive))) {
+				if(!isFlagged(link))
+					return curRoot.key;
+			} else {
+				if(turn == null)
+					turn = s; //the walk never went left, so only the sentinels are larger
+				link = turn.right;
+				curRoot = nodeOf(link);
+				while(curRoot.left != null) { //leftmost leaf of the subtree
+					link = curRoot.left;
+					curRoot = nodeOf(link);
+				}
+				if(curRoot.inf != 0)
+					return null;
+				if(!isFlagged(link))
+					return curRoot.key;
+			}
+			//the leaf we found is being removed, so look past it
+			e = curRoot.key;
+			inclusive = false;
+		}
+	}
+	
+	/**
+	 * Private method that finds the greatest element less than (or equal to, if inclusive)
+	 * the given one, the mirror image of next.
+	 *
+	 * @param e Element to compare, or null to find the last element
+	 * @param inclusive true if e itself qualifies
+	 * @return The element found, or null if there is none
+	 */
+	private E previous(E e, boolean inclusive) {
+		while(true) {
+			Node<E> turn = null; //last node where the walk went right
+			Object link = s.left;
+			Node<E> curRoot = nodeOf(link);
+			while(curRoot.left != null) { //walk down to a leaf
+				//with no bound, stay left of the sentinels and right of everything else
+				if((e == null) ? curRoot.inf != 0 : goesLeft(e, curRoot)) {
+					link = curRoot.left;
+				} else {
+					turn = curRoot;
+					link = curRoot.right;
+				}
+				curRoot = nodeOf(link);
+			}
+			
+			if(curRoot.inf == 0 && (e == null || isAbove(e, curRoot.key, inclusive))) {
+				if(!isFlagged(link))
+					return curRoot.key;
+			} else {
+				if(turn == null) //the walk never went right, so nothing is smaller
+					return null;
+				link = turn.left;
+				curRoot = nodeOf(link);
+				while(curRoot.left != null) { //rightmost leaf of the subtree
+					link = curRoot.right;
+					curRoot = nodeOf(link);
+				}
+				if(!isFlagged(link))
+					return curRoot.key;
+			}
+			//the leaf we found is being removed, so look past it
+			e = curRoot.key;
+			inclusive = false;
+		}
+	}
+	
+	/**
+	 * Returns the number of elements in this tree. The count is exact when no changes
+	 * are in progress, and otherwise may or may not include the changes in progress.
+	 *
+	 * @return number of elements in this tree
+	 */
+	public int size() {
+		return (int) Math.max(0L, size.sum());
+	}
+	
+	/**
+	 * Returns true if this tree contains no elements.
+	 *
+	 * @return true if this tree contains no elements
+	 */
+	public boolean isEmpty() {
+		return next(null, true) == null;
+	}
+	
+	/**
+	 * Returns a string representation of this tree: its elements in ascending order,
+	 * separated by ", " and enclosed in square brackets ("[]").
+	 *
+	 * @return String representation of this tree, inorder
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		Iterator<E> itr = iterator();
+		while(itr.hasNext()) {
+			sb.append(itr.next());
+			if(itr.hasNext())
+				sb.append(", ");
+		}
+		return sb.append("]").toString();
+	}
+	
+	/**
+	 * Returns a weakly consistent iterator over the elements in this tree in ascending
+	 * order. It never throws ConcurrentModificationException, returns every element at
+	 * most once, and reflects some of the changes made after it was created. Each step
+	 * searches for the next element from the root, so it costs O(H), and remove() is
+	 * supported.
+	 *
+	 * @return an iterator over the elements in this tree in ascending order
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new weakIterator();
+	}
+	
+	//accessors for links, which hold either a node or a Mark around a node
+	
+	@SuppressWarnings("unchecked")
+	private static <E> Node<E> nodeOf(Object link) {
+		return (link instanceof Mark) ? ((Mark<E>) link).node : (Node<E>) link;
+	}
+	
+	private static boolean isFlagged(Object link) {
+		return (link instanceof Mark) && ((Mark<?>) link).flag;
+	}
+	
+	private static boolean isTagged(Object link) {
+		return (link instanceof Mark) && ((Mark<?>) link).tag;
+	}
+	
+	private static Object child(Node<?> n, boolean left) {
+		return left ? n.left : n.right;
+	}
+	
+	private static boolean casChild(Node<?> n, boolean left, Object expect, Object update) {
+		return (left ? LEFT : RIGHT).compareAndSet(n, expect, update);
+	}
+	
+	/**
+	 * Node class
+	 * A leaf if it has no children, otherwise an internal node with exactly two. Its key is
+	 * either an element or, if inf is not zero, one of the sentinel keys. Each child link
+	 * holds the child itself, or a Mark around it while a removal is in progress.
+	 */
+	private static final class Node<E> {
+		final E key;
+		final int inf;
+		volatile Object left;
+		volatile Object right;
+		
+		//constructor for leaves
+		Node(E key, int inf) {
+			this.key = key;
+			this.inf = inf;
+		}
+		
+		//constructor for internal nodes
+		Node(E key, int inf, Object left, Object right) {
+			this.key = key;
+			this.inf = inf;
+			this.left = left;
+			this.right = right;
+		}
+	}
+	
+	/**
+	 * Mark class
+	 * An immutable child link that is flagged (the leaf it leads to has been removed and
+	 * is about to be unlinked) or tagged (the link can no longer change)
+	 */
+	private static final class Mark<E> {
+		final Node<E> node;
+		final boolean flag;
+		final boolean tag;
+		
+		Mark(Node<E> node, boolean flag, boolean tag) {
+			this.node = node;
+			this.flag = flag;
+			this.tag = tag;
+		}
+	}
+	
+	/**
+	 * Seek record class
+	 * The nodes found by a seek, reused across the retries of one operation
+	 */
+	private static final class SeekRecord<E> {
+		Node<E> ancestor;
+		Node<E> successor;
+		Node<E> parent;
+		Node<E> leaf;
+	}
+	
+	/**
+	 * Weakly consistent iterator
+	 * Finds each element by searching for the least element
+	 * greater than the last one returned
+	 */
+	private class weakIterator implements Iterator<E> {
+		
+		E next; //next element to return, or null if there is none
+		E last; //last element returned
+		boolean canRemove; //true if the last returned element can be removed
+		
+		/**
+		 * Default constructor, finds the first element
+		 */
+		public weakIterator() {
+			next = LockFreeBST.this.next(null, true);
+		}
+		
+		/**
+		 * Checks if there are any elements left to be iterated over
+		 *
+		 * @return True if there are elements left to return
+		 */
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		/**
+		 * Returns next element
+		 *
+		 * @return The next element in the iteration
+		 * @throws NoSuchElementException if there are no elements left
+		 */
+		@Override
+		public E next() throws NoSuchElementException {
+			if(next == null)
+				throw new NoSuchElementException("No elements left");
+			
+			last = next;
+			next = LockFreeBST.this.next(last, false);
+			canRemove = true;
+			return last;
+		}
+		
+		/**
+		 * Removes the last element returned by this iterator from the tree
+		 *
+		 * @throws IllegalStateException if next() has not been called yet, or remove()
+		 * 		has already been called after the last call to next()
+		 */
+		@Override
+		public void remove() throws IllegalStateException {
+			if(!canRemove)
+				throw new IllegalStateException("No element to remove");
+			
+			LockFreeBST.this.remove(last);
+			canRemove = false;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+/**
+ * Measures the throughput of LockFreeBST against ConcurrentSkipListSet and ConcurrentBST,
+ * for every thread count from 1 up to the number of available cores. Each thread runs a
+ * write-heavy mix of adds and removes, with contains making up the rest, and the total
+ * number of operations per second is printed for each set.
+ *
+ * Usage: java project4.LockFreeBSTBenchmark [keyRange] [writePercent] [millisPerRun]
+ */
+
+package project4;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LockFreeBSTBenchmark {
+	
+	//written by every thread at the end of a run, so the JIT can't drop the lookups
+	static volatile long blackhole;
+	
+	/**
+	 * Set operations used by the benchmark, so every set can run the same loop
+	 */
+	private interface Target {
+		boolean contains(Integer e);
+		boolean add(Integer e);
+		boolean remove(Integer e);
+	}
+	
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args Optional key range, percentage of writes and length of each run in milliseconds
+	 * @throws InterruptedException if the main thread is interrupted while waiting for a run
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int keyRange = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+		int writePercent = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+		long millis = (args.length > 2) ? Long.parseLong(args[2]) : 2000;
+		int cores = Runtime.getRuntime().availableProcessors();
+		
+		System.out.println("keys=" + keyRange + ", writes=" + writePercent + "%, " + millis + " ms per run, " + cores + " cores");
+		System.out.printf("%8s %18s %18s %18s%n", "threads", "LockFreeBST op/s", "skip list op/s", "ConcurrentBST op/s");
+		boolean warm = false;
+		for(int threads = 1; ; threads = Math.min(2 * threads, cores)) { //powers of two, then all cores
+			//each run starts from a fresh set, half full, which the mix of adds and removes keeps it at
+			LockFreeBST<Integer> lockFree = new LockFreeBST<Integer>();
+			ConcurrentSkipListSet<Integer> skipList = new ConcurrentSkipListSet<Integer>();
+			ConcurrentBST<Integer> locked = new ConcurrentBST<Integer>(true);
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for(int i = 0; i < keyRange / 2; i++) {
+				Integer key = random.nextInt(keyRange);
+				lockFree.add(key);
+				skipList.add(key);
+				locked.add(key);
+			}
+			Target[] targets = {
+				new Target() {
+					public boolean contains(Integer e) { return lockFree.contains(e); }
+					public boolean add(Integer e) { return lockFree.add(e); }
+					public boolean remove(Integer e) { return lockFree.remove(e); }
+				},
+				new Target() {
+					public boolean contains(Integer e) { return skipList.contains(e); }
+					public boolean add(Integer e) { return skipList.add(e); }
+					public boolean remove(Integer e) { return skipList.remove(e); }
+				},
+				new Target() {
+					public boolean contains(Integer e) { return locked.contains(e); }
+					public boolean add(Integer e) { return locked.add(e); }
+					public boolean remove(Integer e) { return locked.remove(e); }
+				}
+			};
+			
+			if(!warm) { //the first runs only warm up the JIT
+				for(Target target : targets) {
+					run(target, cores, keyRange, writePercent, millis);
+				}
+				warm = true;
+			}
+			double[] results = new double[targets.length];
+			for(int i = 0; i < targets.length; i++) {
+				results[i] = run(targets[i], threads, keyRange, writePercent, millis);
+			}
+			System.out.printf("%8d %18.0f %18.0f %18.0f%n", threads, results[0], results[1], results[2]);
+			if(threads == cores)
+				break;
+		}
+	}
+	
+	/**
+	 * Private method that runs the operation mix on the given set from the given number
+	 * of threads for the given time
+	 *
+	 * @param target Set to run the operations on
+	 * @param threads Number of threads to run
+	 * @param keyRange Keys are drawn from 0, inclusive, to keyRange, exclusive
+	 * @param writePercent Percentage of operations that are an add or a remove
+	 * @param millis Length of the run in milliseconds
+	 * @return Total number of operations per second
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	private static double run(Target target, int threads, int keyRange, int writePercent, long millis) throws InterruptedException {
+		LongAdder ops = new LongAdder();
+		long deadline = System.nanoTime() + millis * 1_000_000L;
+		Thread[] workers = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long count = 0;
+				long sink = 0;
+				while((count & 0xFF) != 0 || System.nanoTime() < deadline) {
+					Integer key = random.nextInt(keyRange);
+					if(random.nextInt(100) < writePercent) {
+						//add and remove equally often, so the size stays about the same
+						if(random.nextBoolean())
+							target.add(key);
+						else
+							target.remove(key);
+					} else {
+						sink += target.contains(key) ? 1 : 0;
+					}
+					count++;
+				}
+				ops.add(count);
+				blackhole = sink;
+			});
+			workers[t].start();
+		}
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		return ops.sum() * 1000.0 / millis;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,246 @@
+/**
+ * Stress test for LockFreeBST, checking it against ConcurrentSkipListSet. It runs three
+ * phases and exits with status 1 on the first mismatch:
+ *
+ * 1. One thread runs random operations on both sets and compares every result, including
+ *    the navigation queries and a full iteration.
+ * 2. Every thread runs random adds and removes on its own keys, mirroring each one on a
+ *    ConcurrentSkipListSet. The keys of all threads are interleaved, so the threads keep
+ *    changing the same parts of the tree, but since nobody else touches a thread's keys,
+ *    every result must match the skip list's exactly.
+ * 3. Writers add and remove keys from a shared range while readers check that keys which
+ *    are never removed are always found, by contains and by the navigation queries.
+ *    At the end, the net number of successful adds of every key must match whether
+ *    the tree contains it.
+ *
+ * Usage: java project4.LockFreeBSTStress [threads] [millisPerPhase]
+ */
+
+package project4;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class LockFreeBSTStress {
+	
+	private static final int KEY_RANGE = 1 << 14;
+	
+	/**
+	 * Runs the stress test.
+	 *
+	 * @param args Optional number of threads and length of each concurrent phase in milliseconds
+	 * @throws InterruptedException if the main thread is interrupted while waiting for a phase
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+		long millis = (args.length > 1) ? Long.parseLong(args[1]) : 3000;
+		
+		sequential(200_000);
+		System.out.println("sequential: ok");
+		partitioned(threads, millis);
+		System.out.println("partitioned, " + threads + " threads: ok");
+		shared(threads, millis);
+		System.out.println("shared, " + threads + " threads: ok");
+	}
+	
+	/**
+	 * Private method for the first phase, comparing every result from one thread
+	 *
+	 * @param operations Number of random operations to run
+	 */
+	private static void sequential(int operations) {
+		LockFreeBST<Integer> tree = new LockFreeBST<Integer>();
+		NavigableSet<Integer> expected = new ConcurrentSkipListSet<Integer>();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		
+		for(int i = 0; i < operations; i++) {
+			Integer key = random.nextInt(1000);
+			switch(random.nextInt(8)) {
+				case 0: case 1:
+					check(tree.add(key), expected.add(key), "add", key);
+					break;
+				case 2: case 3:
+					check(tree.remove(key), expected.remove(key), "remove", key);
+					break;
+				case 4:
+					check(tree.contains(key), expected.contains(key), "contains", key);
+					break;
+				case 5:
+					check(tree.floor(key), expected.floor(key), "floor", key);
+					check(tree.lower(key), expected.lower(key), "lower", key);
+					break;
+				case 6:
+					check(tree.ceiling(key), expected.ceiling(key), "ceiling", key);
+					check(tree.higher(key), expected.higher(key), "higher", key);
+					break;
+				default:
+					check(tree.size(), expected.size(), "size", key);
+					if(!expected.isEmpty()) {
+						check(tree.first(), expected.first(), "first", key);
+						check(tree.last(), expected.last(), "last", key);
+					}
+			}
+		}
+		
+		Iterator<Integer> actual = tree.iterator();
+		for(Integer e : expected) {
+			check(actual.hasNext() ? actual.next() : null, e, "iterator", e);
+		}
+		check(actual.hasNext(), false, "iterator end", null);
+	}
+	
+	/**
+	 * Private method for the second phase, where each thread owns the keys that are
+	 * equal to its number modulo the number of threads
+	 *
+	 * @param threads Number of threads to run
+	 * @param millis Length of the phase in milliseconds
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	private static void partitioned(int threads, long millis) throws InterruptedException {
+		LockFreeBST<Integer> tree = new LockFreeBST<Integer>();
+		ConcurrentSkipListSet<Integer> expected = new ConcurrentSkipListSet<Integer>();
+		ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+		long deadline = System.nanoTime() + millis * 1_000_000L;
+		
+		Thread[] workers = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			int id = t;
+			workers[t] = new Thread(() -> {
+				try {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					while(System.nanoTime() < deadline && failures.isEmpty()) {
+						Integer key = random.nextInt(KEY_RANGE / threads) * threads + id;
+						int choice = random.nextInt(3);
+						if(choice == 0)
+							check(tree.add(key), expected.add(key), "add", key);
+						else if(choice == 1)
+							check(tree.remove(key), expected.remove(key), "remove", key);
+						else
+							check(tree.contains(key), expected.contains(key), "contains", key);
+					}
+				} catch(Throwable e) {
+					failures.add(e);
+				}
+			});
+			workers[t].start();
+		}
+		join(workers, failures);
+		
+		//once everyone is done, the two sets must hold exactly the same keys
+		Iterator<Integer> actual = tree.iterator();
+		for(Integer e : expected) {
+			check(actual.hasNext() ? actual.next() : null, e, "final contents", e);
+		}
+		check(actual.hasNext(), false, "final contents end", null);
+		check(tree.size(), expected.size(), "final size", null);
+	}
+	
+	/**
+	 * Private method for the third phase, where writers share every odd key and readers
+	 * check the even keys, which are added first and never removed
+	 *
+	 * @param threads Number of threads to run, half of them writers
+	 * @param millis Length of the phase in milliseconds
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	private static void shared(int threads, long millis) throws InterruptedException {
+		LockFreeBST<Integer> tree = new LockFreeBST<Integer>();
+		for(int key = 0; key < KEY_RANGE; key += 2) {
+			tree.add(key);
+		}
+		AtomicIntegerArray net = new AtomicIntegerArray(KEY_RANGE); //successful adds minus removes
+		ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+		long deadline = System.nanoTime() + millis * 1_000_000L;
+		
+		Thread[] workers = new Thread[Math.max(2, threads)];
+		for(int t = 0; t < workers.length; t++) {
+			boolean writer = (t % 2 == 0);
+			workers[t] = new Thread(() -> {
+				try {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					while(System.nanoTime() < deadline && failures.isEmpty()) {
+						if(writer) {
+							int key = 2 * random.nextInt(KEY_RANGE / 2) + 1;
+							if(random.nextBoolean()) {
+								if(tree.add(key))
+									net.incrementAndGet(key);
+							} else {
+								if(tree.remove(key))
+									net.decrementAndGet(key);
+							}
+						} else {
+							int key = 2 * random.nextInt(1, KEY_RANGE / 2 - 1);
+							check(tree.contains(key), true, "contains", key);
+							check(tree.floor(key), key, "floor", key);
+							check(tree.ceiling(key), key, "ceiling", key);
+							Integer lower = tree.lower(key);
+							if(lower == null || lower < key - 2 || lower >= key)
+								throw new AssertionError("lower(" + key + ") returned " + lower);
+							Integer higher = tree.higher(key);
+							if(higher == null || higher <= key || higher > key + 2)
+								throw new AssertionError("higher(" + key + ") returned " + higher);
+						}
+					}
+				} catch(Throwable e) {
+					failures.add(e);
+				}
+			});
+			workers[t].start();
+		}
+		join(workers, failures);
+		
+		int size = KEY_RANGE / 2;
+		for(int key = 1; key < KEY_RANGE; key += 2) {
+			int count = net.get(key);
+			if(count != 0 && count != 1)
+				fail("key " + key + " was added " + count + " more times than it was removed");
+			check(tree.contains(key), count == 1, "final contains", key);
+			size += count;
+		}
+		check(tree.size(), size, "final size", null);
+	}
+	
+	/**
+	 * Private method that waits for the given threads and stops if any of them failed
+	 *
+	 * @param workers Threads to wait for
+	 * @param failures Failures reported by the threads
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	private static void join(Thread[] workers, ConcurrentLinkedQueue<Throwable> failures) throws InterruptedException {
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		if(!failures.isEmpty())
+			fail(failures.peek().getMessage());
+	}
+	
+	/**
+	 * Private method that fails if the actual result differs from the expected one
+	 *
+	 * @param actual Result from the tree
+	 * @param expected Result expected
+	 * @param operation Name of the operation
+	 * @param key Key the operation was called with
+	 */
+	private static void check(Object actual, Object expected, String operation, Object key) {
+		if(!Objects.equals(actual, expected))
+			throw new AssertionError(operation + "(" + key + ") returned " + actual + ", expected " + expected);
+	}
+	
+	/**
+	 * Private method that reports a failure and exits
+	 *
+	 * @param message Description of the failure
+	 */
+	private static void fail(String message) {
+		System.out.println("FAILED: " + message);
+		System.exit(1);
+	}
+}
\ No newline at end of file